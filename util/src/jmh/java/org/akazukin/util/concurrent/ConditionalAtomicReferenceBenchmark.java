@@ -0,0 +1,62 @@
+package org.akazukin.util.concurrent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Compares contended "keep the newest value" updates of {@link ConditionalAtomicReference}
+ * with {@link AtomicReference} and {@link AtomicLong} equivalents.
+ * Every benchmark runs on four threads, so the updates are contended.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Threads(4)
+public class ConditionalAtomicReferenceBenchmark {
+    final ConditionalAtomicReference<Long> ref =
+            new ConditionalAtomicReference<>((oldValue, newValue) -> newValue > oldValue, 0L);
+    final AtomicReference<Long> juc = new AtomicReference<>(0L);
+    final AtomicLong primitive = new AtomicLong();
+
+    @Benchmark
+    public Long updateAndGet() {
+        return this.ref.updateAndGet(v -> v + 1);
+    }
+
+    @Benchmark
+    public Long updateAndGetJuc() {
+        return this.juc.updateAndGet(v -> v + 1);
+    }
+
+    @Benchmark
+    public long updateAndGetPrimitive() {
+        return this.primitive.incrementAndGet();
+    }
+
+    /**
+     * Offers a value that the predicate rejects, exercising the read-only path.
+     */
+    @Benchmark
+    public boolean rejectedUpdate() {
+        return this.ref.update(-1L);
+    }
+
+    @Benchmark
+    public Long read() {
+        return this.ref.getValue();
+    }
+
+    @Benchmark
+    public Long readJuc() {
+        return this.juc.get();
+    }
+}
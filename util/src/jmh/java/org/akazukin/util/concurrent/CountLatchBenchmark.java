@@ -0,0 +1,71 @@
+package org.akazukin.util.concurrent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link CountLatch} and {@link StripedCountLatch} with {@link CountDownLatch}
+ * when all benchmark threads release the same latch, and when awaiting a released latch.
+ * <p>
+ * The latches are recreated every iteration with a count large enough not to drain within one.
+ * Every benchmark runs on four threads, so the fan-in is contended.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Threads(4)
+public class CountLatchBenchmark {
+    CountLatch latch;
+    StripedCountLatch striped;
+    CountDownLatch juc;
+    final CountLatch releasedLatch = new CountLatch(0);
+    final StripedCountLatch releasedStriped = new StripedCountLatch(0);
+    final CountDownLatch releasedJuc = new CountDownLatch(0);
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        this.latch = new CountLatch(Integer.MAX_VALUE);
+        this.striped = new StripedCountLatch(Integer.MAX_VALUE);
+        this.juc = new CountDownLatch(Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public void releaseFanIn() {
+        this.latch.release();
+    }
+
+    @Benchmark
+    public void releaseFanInStriped() {
+        this.striped.release();
+    }
+
+    @Benchmark
+    public void releaseFanInJuc() {
+        this.juc.countDown();
+    }
+
+    @Benchmark
+    public void awaitReleased() throws InterruptedException {
+        this.releasedLatch.await();
+    }
+
+    @Benchmark
+    public void awaitReleasedStriped() throws InterruptedException {
+        this.releasedStriped.await();
+    }
+
+    @Benchmark
+    public void awaitReleasedJuc() throws InterruptedException {
+        this.releasedJuc.await();
+    }
+}
@@ -0,0 +1,183 @@
+package org.akazukin.util.concurrent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Compares {@link FixedReentrantReadWriteLock} with {@link ReentrantReadWriteLock} and {@link StampedLock}
+ * under read-only, write-only, read-heavy, write-heavy and lending workloads.
+ * <p>
+ * The ungrouped benchmarks run on four threads, and the uncontended writes on one as their baseline;
+ * the grouped ones run their readers and writers side by side in the ratio given by {@link GroupThreads}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Threads(4)
+public class ReadWriteLockBenchmark {
+    final FixedReentrantReadWriteLock fixed = new FixedReentrantReadWriteLock();
+    final ReentrantReadWriteLock juc = new ReentrantReadWriteLock();
+    final StampedLock stamped = new StampedLock();
+    long x;
+    long y;
+
+    @Benchmark
+    public long readFixed() {
+        try (FixedReentrantReadWriteLock.ILock ignored = this.fixed.sharedLock()) {
+            return this.x + this.y;
+        }
+    }
+
+    @Benchmark
+    public long readJuc() {
+        this.juc.readLock().lock();
+        try {
+            return this.x + this.y;
+        } finally {
+            this.juc.readLock().unlock();
+        }
+    }
+
+    @Benchmark
+    public long readOptimisticFixed() {
+        final long stamp = this.fixed.tryOptimisticRead();
+        final long sum = this.x + this.y;
+        if (this.fixed.validate(stamp)) {
+            return sum;
+        }
+        return this.readFixed();
+    }
+
+    @Benchmark
+    public long readOptimisticStamped() {
+        final long stamp = this.stamped.tryOptimisticRead();
+        final long sum = this.x + this.y;
+        if (this.stamped.validate(stamp)) {
+            return sum;
+        }
+        final long read = this.stamped.readLock();
+        try {
+            return this.x + this.y;
+        } finally {
+            this.stamped.unlockRead(read);
+        }
+    }
+
+    @Benchmark
+    public void writeFixed() {
+        try (FixedReentrantReadWriteLock.ILock ignored = this.fixed.exclusiveLock()) {
+            this.x++;
+            this.y--;
+        }
+    }
+
+    @Benchmark
+    public void writeJuc() {
+        this.juc.writeLock().lock();
+        try {
+            this.x++;
+            this.y--;
+        } finally {
+            this.juc.writeLock().unlock();
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void writeUncontendedFixed() {
+        this.writeFixed();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void writeUncontendedJuc() {
+        this.writeJuc();
+    }
+
+    @Benchmark
+    @Group("mixedFixed")
+    @GroupThreads(3)
+    public long mixedFixedRead() {
+        return this.readFixed();
+    }
+
+    @Benchmark
+    @Group("mixedFixed")
+    @GroupThreads(1)
+    public void mixedFixedWrite() {
+        this.writeFixed();
+    }
+
+    @Benchmark
+    @Group("mixedJuc")
+    @GroupThreads(3)
+    public long mixedJucRead() {
+        return this.readJuc();
+    }
+
+    @Benchmark
+    @Group("mixedJuc")
+    @GroupThreads(1)
+    public void mixedJucWrite() {
+        this.writeJuc();
+    }
+
+    @Benchmark
+    @Group("writeHeavyFixed")
+    @GroupThreads(1)
+    public long writeHeavyFixedRead() {
+        return this.readFixed();
+    }
+
+    @Benchmark
+    @Group("writeHeavyFixed")
+    @GroupThreads(3)
+    public void writeHeavyFixedWrite() {
+        this.writeFixed();
+    }
+
+    @Benchmark
+    @Group("writeHeavyJuc")
+    @GroupThreads(1)
+    public long writeHeavyJucRead() {
+        return this.readJuc();
+    }
+
+    @Benchmark
+    @Group("writeHeavyJuc")
+    @GroupThreads(3)
+    public void writeHeavyJucWrite() {
+        this.writeJuc();
+    }
+
+    /**
+     * Readers hold lendable shared locks, which the writer borrows instead of waiting for them to be released.
+     */
+    @Benchmark
+    @Group("lendingFixed")
+    @GroupThreads(3)
+    public long lendingFixedRead() {
+        try (FixedReentrantReadWriteLock.ILock lock = this.fixed.sharedLock()) {
+            lock.setLendable(true);
+            return this.x + this.y;
+        }
+    }
+
+    @Benchmark
+    @Group("lendingFixed")
+    @GroupThreads(1)
+    public void lendingFixedWrite() {
+        this.writeFixed();
+    }
+}
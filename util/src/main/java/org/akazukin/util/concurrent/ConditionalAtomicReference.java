@@ -2,19 +2,52 @@
 
 import lombok.Getter;
 import org.akazukin.annotation.marker.ThreadSafe;
+import org.akazukin.util.time.TimeHolder;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BinaryOperator;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
 /**
  * A thread-safe reference holder that allows updating its value conditionally based on a
  * predicate.
- * The update operation is synchronized to ensure atomicity and thread safety.
+ * <p>
+ * Updates are lock-free: the predicate is evaluated against the current value,
+ * and the new value is installed with a compare-and-set that retries if another thread updated it in between.
+ * The predicate and update functions may therefore be evaluated more than once per call
+ * and should be free of side effects.
+ * Values are compared by identity.
+ * <p>
+ * Threads can wait for the value to match a predicate with {@link #awaitUntil(Predicate, TimeHolder)}
+ * or {@link #whenMatches(Predicate)} instead of polling.
+ * Waiters are only evaluated after a successful update, by the updating thread and without holding any lock;
+ * while nobody waits, an update costs a single extra volatile read.
+ * An exception thrown by the predicate of a waiter is delivered to that waiter and never to the updating thread.
  *
  * @param <T> the type of the value held by the reference
  */
 @ThreadSafe
 public class ConditionalAtomicReference<T> {
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<ConditionalAtomicReference, Object> VALUE =
+            AtomicReferenceFieldUpdater.newUpdater(ConditionalAtomicReference.class, Object.class, "value");
+
     final ValuePredicate<T> supplier;
+    private final Object waiterLock = new Object();
     @Getter
-    T value;
+    volatile T value;
+    /**
+     * The waiters, most recently registered first, guarded by {@link #waiterLock}.
+     * Read without the lock to skip signalling while nobody waits.
+     */
+    private volatile Waiter<T> waiters;
 
     /**
      * Constructs a new ConditionalAtomicReference instance with a specified predicate supplier
@@ -43,19 +76,275 @@ public ConditionalAtomicReference(final ValuePredicate<T> supplier) {
 
     /**
      * Updates the stored value if the specified condition, defined by the predicate, is met.
-     * The operation is thread-safe and synchronized to ensure atomicity during the update.
+     * The operation is thread-safe and atomic with respect to the value the predicate was evaluated against.
      *
      * @param value the new value to update the reference to if the predicate condition is satisfied
      * @return {@code true} if the value was successfully updated, {@code false} otherwise
      */
     public boolean update(final T value) {
-        synchronized (this) {
-            if (this.supplier.test(this.value, value)) {
-                this.value = value;
+        while (true) {
+            final T prev = this.value;
+            if (!this.supplier.test(prev, value)) {
+                return false;
+            }
+            if (VALUE.compareAndSet(this, prev, value)) {
+                this.signalWaiters(value);
                 return true;
             }
         }
-        return false;
+    }
+
+    /**
+     * Applies the function to the current value and stores the result if the predicate accepts it.
+     *
+     * @param function the side-effect-free function computing the new value from the current value
+     * @return the new value if it was stored, otherwise the current value that rejected it
+     */
+    public T updateAndGet(@NotNull final UnaryOperator<T> function) {
+        while (true) {
+            final T prev = this.value;
+            final T next = function.apply(prev);
+            if (!this.supplier.test(prev, next)) {
+                return prev;
+            }
+            if (VALUE.compareAndSet(this, prev, next)) {
+                this.signalWaiters(next);
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Applies the function to the current value and stores the result if the predicate accepts it.
+     *
+     * @param function the side-effect-free function computing the new value from the current value
+     * @return the value before this call, whether or not it was replaced
+     */
+    public T getAndUpdate(@NotNull final UnaryOperator<T> function) {
+        while (true) {
+            final T prev = this.value;
+            final T next = function.apply(prev);
+            if (!this.supplier.test(prev, next)) {
+                return prev;
+            }
+            if (VALUE.compareAndSet(this, prev, next)) {
+                this.signalWaiters(next);
+                return prev;
+            }
+        }
+    }
+
+    /**
+     * Combines the current value with the given value and stores the result if the predicate accepts it.
+     *
+     * @param x        the value to combine with the current value
+     * @param function the side-effect-free function taking the current value and {@code x}
+     * @return the new value if it was stored, otherwise the current value that rejected it
+     */
+    public T accumulateAndGet(final T x, @NotNull final BinaryOperator<T> function) {
+        return this.updateAndGet(prev -> function.apply(prev, x));
+    }
+
+    /**
+     * Combines the current value with the given value and stores the result if the predicate accepts it.
+     *
+     * @param x        the value to combine with the current value
+     * @param function the side-effect-free function taking the current value and {@code x}
+     * @return the value before this call, whether or not it was replaced
+     */
+    public T getAndAccumulate(final T x, @NotNull final BinaryOperator<T> function) {
+        return this.getAndUpdate(prev -> function.apply(prev, x));
+    }
+
+    /**
+     * Causes the calling thread to wait until the value matches the predicate or the specified waiting time elapses,
+     * unless the thread is interrupted.
+     * If the current value already matches, this method returns immediately.
+     * <p>
+     * The predicate is evaluated against the values installed by successful updates.
+     * A value that is replaced before the waiting thread observes it may still wake the thread,
+     * in which case it keeps waiting unless the latest value also matches.
+     * The predicate is always rechecked on the waiting thread, so an exception it throws is thrown by this method.
+     *
+     * @param predicate the side-effect-free condition to wait for
+     * @param timeout   the maximum time to wait
+     * @return {@code true} if the value matched the predicate;
+     * {@code false} if the waiting time elapsed first
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public boolean awaitUntil(@NotNull final Predicate<? super T> predicate, @NotNull final TimeHolder timeout)
+            throws InterruptedException {
+        if (predicate.test(this.value)) {
+            return true;
+        }
+
+        final long deadline = System.nanoTime() + timeout.toConvert(TimeUnit.NANOSECONDS);
+        final Waiter<T> waiter = new Waiter<>(predicate, Thread.currentThread(), null);
+        this.addWaiter(waiter);
+        try {
+            while (true) {
+                // Checked after registering, so an update racing with the registration is not missed
+                if (predicate.test(this.value)) {
+                    return true;
+                }
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                final long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                LockSupport.parkNanos(this, remaining);
+            }
+        } finally {
+            this.removeWaiter(waiter);
+        }
+    }
+
+    /**
+     * Returns a future that completes with the first value matching the predicate.
+     * If the current value already matches, the returned future is already completed.
+     * <p>
+     * No thread is held while waiting.
+     * The future is completed by the thread whose update installs the matching value,
+     * so dependent actions without an explicit executor run on that thread.
+     * If the predicate throws while evaluated against a later update, the future completes exceptionally.
+     * Cancelling the future stops the predicate from being evaluated on later updates.
+     *
+     * @param predicate the side-effect-free condition to wait for
+     * @return a future completed with the matching value
+     */
+    public CompletableFuture<T> whenMatches(@NotNull final Predicate<? super T> predicate) {
+        final T current = this.value;
+        if (predicate.test(current)) {
+            return CompletableFuture.completedFuture(current);
+        }
+
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        final Waiter<T> waiter = new Waiter<>(predicate, null, future);
+        this.addWaiter(waiter);
+        // Checked after registering, so an update racing with the registration is not missed
+        final T recheck = this.value;
+        try {
+            if (predicate.test(recheck)) {
+                future.complete(recheck);
+            }
+        } catch (final Throwable t) {
+            future.completeExceptionally(t);
+        }
+        if (future.isDone()) {
+            this.removeWaiter(waiter);
+        }
+        return future;
+    }
+
+    private void addWaiter(final Waiter<T> waiter) {
+        synchronized (this.waiterLock) {
+            waiter.next = this.waiters;
+            this.waiters = waiter;
+        }
+    }
+
+    private void removeWaiter(final Waiter<T> waiter) {
+        synchronized (this.waiterLock) {
+            Waiter<T> prev = null;
+            for (Waiter<T> w = this.waiters; w != null; prev = w, w = w.next) {
+                if (w == waiter) {
+                    this.unlink(prev, w);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void unlink(final Waiter<T> prev, final Waiter<T> waiter) {
+        if (prev == null) {
+            this.waiters = waiter.next;
+        } else {
+            prev.next = waiter.next;
+        }
+    }
+
+    private void signalWaiters(final T value) {
+        if (this.waiters == null) {
+            return;
+        }
+
+        // The predicates are evaluated outside the lock, as they are foreign code that may be slow or throw
+        final List<Waiter<T>> snapshot = new ArrayList<>();
+        synchronized (this.waiterLock) {
+            Waiter<T> prev = null;
+            for (Waiter<T> w = this.waiters; w != null; w = w.next) {
+                if (w.future != null && w.future.isDone()) {
+                    this.unlink(prev, w);
+                    continue;
+                }
+                snapshot.add(w);
+                prev = w;
+            }
+        }
+
+        boolean completed = false;
+        for (final Waiter<T> w : snapshot) {
+            if (w.thread != null) {
+                // A thread whose predicate throws is woken to recheck it, and so throw it, on its own
+                boolean matches = true;
+                try {
+                    matches = w.predicate.test(value);
+                } catch (final Throwable ignored) {
+                }
+                if (matches) {
+                    LockSupport.unpark(w.thread);
+                }
+                continue;
+            }
+
+            // Completed outside the lock, as dependent actions may run on this thread
+            try {
+                if (w.predicate.test(value)) {
+                    completed |= w.future.complete(value);
+                }
+            } catch (final Throwable t) {
+                completed |= w.future.completeExceptionally(t);
+            }
+        }
+
+        if (completed) {
+            this.removeDoneWaiters();
+        }
+    }
+
+    private void removeDoneWaiters() {
+        synchronized (this.waiterLock) {
+            Waiter<T> prev = null;
+            for (Waiter<T> w = this.waiters; w != null; w = w.next) {
+                if (w.future != null && w.future.isDone()) {
+                    this.unlink(prev, w);
+                    continue;
+                }
+                prev = w;
+            }
+        }
+    }
+
+    /**
+     * A thread or future waiting for the value to match a predicate.
+     * Thread waiters stay registered until the thread stops waiting;
+     * future waiters are removed once their future is completed, or on the next update if it was cancelled.
+     *
+     * @param <T> the type of the value
+     */
+    static final class Waiter<T> {
+        final Predicate<? super T> predicate;
+        final Thread thread;
+        final CompletableFuture<T> future;
+        Waiter<T> next;
+
+        Waiter(final Predicate<? super T> predicate, final Thread thread, final CompletableFuture<T> future) {
+            this.predicate = predicate;
+            this.thread = thread;
+            this.future = future;
+        }
     }
 
     /**
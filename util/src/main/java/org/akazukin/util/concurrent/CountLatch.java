@@ -3,9 +3,15 @@
 import lombok.AccessLevel;
 import lombok.experimental.FieldDefaults;
 import org.akazukin.annotation.marker.ThreadSafe;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.concurrent.locks.AbstractQueuedSynchronizer;
+import java.util.function.Consumer;
 
 /**
  * A synchronization utility that allows one or more threads to
@@ -23,11 +29,38 @@
  * <p>
  * Once the count reaches zero, the latch does not reset and all later invocations of
  * {@link CountLatch#await()} return immediately.
+ * Until then, the count can be grown with {@link CountLatch#addCount(int)}.
+ *
+ * <p>
+ * Instead of blocking a thread, callers can register a callback with {@link CountLatch#onZero(Runnable, Executor)}
+ * or obtain a future with {@link CountLatch#toCompletableFuture()}.
+ * Callbacks are kept in a lock-free stack and are dispatched by the thread whose release brings the count to zero.
+ * A callback that fails to dispatch does not keep the others from running;
+ * the failures are reported to the throwable consumer instead of the releasing thread.
  */
 @ThreadSafe
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public final class CountLatch {
+    private static final AtomicReferenceFieldUpdater<CountLatch, Callback> CALLBACKS =
+            AtomicReferenceFieldUpdater.newUpdater(CountLatch.class, Callback.class, "callbacks");
+    /**
+     * Marks the callback stack as drained; callbacks registered afterward run immediately.
+     */
+    private static final Callback FIRED = new Callback(null, null, null);
+
     final Sync sync;
+    /**
+     * The callbacks waiting for the count to reach zero, most recently registered first,
+     * or {@link #FIRED} once the count has reached zero.
+     */
+    volatile Callback callbacks;
+    /**
+     * The wait statistics, or {@code null} if this latch is not instrumented.
+     */
+    @Nullable
+    final LatchStatistics statistics;
+    @Nullable
+    volatile Consumer<Throwable> throwableConsumer;
 
     /**
      * Constructs a CountLatch with the given initial count.
@@ -40,10 +73,25 @@ public final class CountLatch {
      * @throws IllegalArgumentException if the count is less than zero.
      */
     public CountLatch(final int count) {
+        this(count, false);
+    }
+
+    /**
+     * Constructs a CountLatch with the given initial count.
+     *
+     * @param count        the initial count for the latch.
+     *                     Must be greater than or equal to zero.
+     * @param instrumented whether to record wait statistics, available from {@link #getStatistics()}.
+     *                     Recording reads the clock around every wait.
+     * @throws IllegalArgumentException if the count is less than zero.
+     */
+    public CountLatch(final int count, final boolean instrumented) {
         if (count < 0) {
             throw new IllegalArgumentException("count < 0");
         } else {
             this.sync = new Sync(count);
+            this.statistics = instrumented ? new LatchStatistics() : null;
+            this.callbacks = count == 0 ? FIRED : null;
         }
     }
 
@@ -60,7 +108,14 @@ public CountLatch(final int count) {
      * @throws InterruptedException if the current thread is interrupted while waiting
      */
     public void await() throws InterruptedException {
+        if (this.statistics == null) {
+            this.sync.acquireSharedInterruptibly(1);
+            return;
+        }
+
+        final long start = System.nanoTime();
         this.sync.acquireSharedInterruptibly(1);
+        this.statistics.recordAwait(System.nanoTime() - start);
     }
 
     /**
@@ -81,7 +136,18 @@ public void await() throws InterruptedException {
      * @throws InterruptedException if the current thread is interrupted while waiting
      */
     public boolean await(final long timeout, final TimeUnit unit) throws InterruptedException {
-        return this.sync.tryAcquireSharedNanos(1, unit.toNanos(timeout));
+        if (this.statistics == null) {
+            return this.sync.tryAcquireSharedNanos(1, unit.toNanos(timeout));
+        }
+
+        final long start = System.nanoTime();
+        final boolean reached = this.sync.tryAcquireSharedNanos(1, unit.toNanos(timeout));
+        if (reached) {
+            this.statistics.recordAwait(System.nanoTime() - start);
+        } else {
+            this.statistics.recordTimeout(System.nanoTime() - start);
+        }
+        return reached;
     }
 
     /**
@@ -92,7 +158,79 @@ public boolean await(final long timeout, final TimeUnit unit) throws Interrupted
      * If the count is already zero, later calls to this method have no effect.
      */
     public void release() {
-        this.sync.releaseShared(1);
+        final boolean reachedZero = this.sync.releaseShared(1);
+        if (this.statistics != null) {
+            this.statistics.recordRelease();
+        }
+        if (reachedZero) {
+            this.fireCallbacks();
+        }
+    }
+
+    /**
+     * Increments the count of the latch by the specified amount,
+     * unless the count has already reached zero.
+     *
+     * @param delta the amount to add. Must be greater than or equal to zero.
+     * @return {@code true} if the count was incremented;
+     * {@code false} if the count had already reached zero, in which case the latch stays released
+     * @throws IllegalArgumentException if the delta is less than zero
+     * @throws IllegalStateException    if the count would exceed {@link Integer#MAX_VALUE}
+     */
+    public boolean addCount(final int delta) {
+        if (delta < 0) {
+            throw new IllegalArgumentException("delta < 0");
+        }
+        return this.sync.tryAdd(delta);
+    }
+
+    /**
+     * Registers a callback to run when the count reaches zero.
+     * <p>
+     * No thread is held while waiting.
+     * The callback is submitted to the executor by the thread whose release brings the count to zero,
+     * or by the calling thread if the count has already reached zero.
+     * Callbacks are submitted in registration order.
+     *
+     * @param callback the callback to run
+     * @param executor the executor to run the callback on
+     */
+    public void onZero(@NotNull final Runnable callback, @NotNull final Executor executor) {
+        Callback head = this.callbacks;
+        while (head != FIRED) {
+            final Callback node = new Callback(callback, executor, head);
+            if (CALLBACKS.compareAndSet(this, head, node)) {
+                return;
+            }
+            head = this.callbacks;
+        }
+        executor.execute(callback);
+    }
+
+    /**
+     * Sets a consumer to handle the {@link Throwable} instances thrown while dispatching callbacks on zero.
+     * The failures of one dispatch are reported together, as the first failure with the others suppressed.
+     *
+     * @param throwableConsumer a {@link Consumer} to process {@link Throwable} instances. It may be {@code null},
+     *                          in which case no actions will be taken when a {@link Throwable} is encountered.
+     */
+    public void setThrowableConsumer(@Nullable final Consumer<Throwable> throwableConsumer) {
+        this.throwableConsumer = throwableConsumer;
+    }
+
+    /**
+     * Returns a future that completes when the count reaches zero.
+     * <p>
+     * Every call returns a new future, so completing or cancelling it does not affect the latch
+     * or other futures obtained from it.
+     * Dependent actions without an explicit executor run on the thread whose release brings the count to zero.
+     *
+     * @return a future completed with {@code null} when the count reaches zero
+     */
+    public CompletableFuture<Void> toCompletableFuture() {
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        this.onZero(() -> future.complete(null), Runnable::run);
+        return future;
     }
 
     /**
@@ -107,6 +245,50 @@ public long getCount() {
         return this.sync.getCount();
     }
 
+    private void fireCallbacks() {
+        Callback head = CALLBACKS.getAndSet(this, FIRED);
+        if (head == FIRED) {
+            return;
+        }
+
+        // Reverse the stack to dispatch in registration order
+        Callback ordered = null;
+        while (head != null) {
+            final Callback next = head.next;
+            head.next = ordered;
+            ordered = head;
+            head = next;
+        }
+
+        // Failures never reach the releasing thread, which may be counting down inside a finally block
+        Throwable failure = null;
+        for (Callback c = ordered; c != null; c = c.next) {
+            try {
+                c.executor.execute(c.callback);
+            } catch (final Throwable t) {
+                if (failure == null) {
+                    failure = t;
+                } else {
+                    failure.addSuppressed(t);
+                }
+            }
+        }
+        final Consumer<Throwable> consumer = this.throwableConsumer;
+        if (failure != null && consumer != null) {
+            consumer.accept(failure);
+        }
+    }
+
+    /**
+     * Returns a snapshot of the wait statistics of this latch.
+     *
+     * @return the statistics, or {@code null} if this latch was constructed without instrumentation
+     */
+    @Nullable
+    public LatchStatistics.Snapshot getStatistics() {
+        return this.statistics == null ? null : this.statistics.snapshot(this.sync.getQueueLength());
+    }
+
     @Override
     public String toString() {
         return super.toString() + "[Count = " + this.sync.getCount() + "]";
@@ -154,6 +336,27 @@ int getCount() {
             return this.getState();
         }
 
+        /**
+         * Adds the specified amount to the count unless the count is zero.
+         *
+         * @param delta the non-negative amount to add
+         * @return {@code true} if the count was incremented, {@code false} if the count is zero
+         */
+        boolean tryAdd(final int delta) {
+            while (true) {
+                final int count = this.getState();
+                if (count == 0) {
+                    return false;
+                }
+                if (count > Integer.MAX_VALUE - delta) {
+                    throw new IllegalStateException("Maximum count exceeded");
+                }
+                if (this.compareAndSetState(count, count + delta)) {
+                    return true;
+                }
+            }
+        }
+
         /**
          * Attempts to acquire the shared lock for the given argument.
          * The shared acquisition is successful only if the current state is zero.
@@ -194,4 +397,19 @@ protected boolean tryReleaseShared(final int var1) {
             return var3 == 0;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * A node of the callback stack.
+     */
+    private static final class Callback {
+        final Runnable callback;
+        final Executor executor;
+        Callback next;
+
+        Callback(final Runnable callback, final Executor executor, final Callback next) {
+            this.callback = callback;
+            this.executor = executor;
+            this.next = next;
+        }
+    }
+}
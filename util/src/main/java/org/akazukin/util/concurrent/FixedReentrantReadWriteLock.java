@@ -2,135 +2,567 @@
 
 import lombok.AccessLevel;
 import lombok.Getter;
-import lombok.Setter;
 import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import org.akazukin.annotation.marker.ThreadSafe;
+import org.akazukin.util.time.TimeHolder;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.locks.AbstractQueuedLongSynchronizer;
+
+/**
+ * A reentrant read-write lock whose shared locks can be lent to an exclusive locker.
+ * <p>
+ * Any number of threads may hold the shared lock while no other thread holds the exclusive lock.
+ * A thread holding the exclusive lock may also acquire the shared lock,
+ * and a thread holding the shared lock may acquire the exclusive lock
+ * once every shared lock held by other threads is lendable.
+ * <p>
+ * A shared lock marked as {@link ILock#setLendable(boolean) lendable} does not block exclusive lockers.
+ * While an exclusive lock is held, the lendable shared locks of other threads are lent to it:
+ * they are not counted by {@link #getLockCount()} and are restored once the exclusive lock is fully released.
+ * <p>
+ * The whole lock state is packed into the single state word of an {@link AbstractQueuedLongSynchronizer},
+ * and the holds of each thread are tracked in a thread-local holder,
+ * so acquisition and release take constant time.
+ * Each thread keeps the handles it released and hands them out again,
+ * so an uncontended acquisition allocates nothing once the thread has reached its deepest nesting.
+ * A handle must be closed by the thread that acquired it. Closing it again has no effect
+ * until the thread acquires this lock again, which may return the same handle;
+ * a handle must therefore not be used after it was closed.
+ * <p>
+ * Packing the state into one word limits the number of holds.
+ * The exclusive lock can be held reentrantly at most 4095 times.
+ * At most 16383 non-lendable and 16383 lendable shared locks can be held across all threads,
+ * including those lent to the exclusive locker.
+ * At most 4095 lendable shared locks can be lent to an exclusive locker at a time,
+ * and at most 4095 of the lent locks can be made non-lendable while they are lent.
+ * An acquisition or {@link ILock#setLendable(boolean)} that would exceed a limit throws an {@link Error},
+ * as {@link java.util.concurrent.locks.ReentrantReadWriteLock} does, and leaves the lock state unchanged.
+ * <p>
+ * Waiting lockers are granted in arrival order, except that threads already holding
+ * this lock may always reenter it.
+ * <p>
+ * Short read-only sections can skip locking entirely with an optimistic read:
+ * <pre>{@code
+ * long stamp = lock.tryOptimisticRead();
+ * int x = this.x;
+ * int y = this.y;
+ * if (!lock.validate(stamp)) {
+ *     try (ILock ignored = lock.sharedLock()) {
+ *         x = this.x;
+ *         y = this.y;
+ *     }
+ * }
+ * }</pre>
+ * An optimistic read does not write any shared memory, so it scales with the number of readers.
+ */
+@ThreadSafe
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class FixedReentrantReadWriteLock {
+    private static final int EXCLUSIVE_SHIFT = 0;
+    private static final int EXCLUSIVE_BITS = 12;
+    private static final int SHARED_SHIFT = EXCLUSIVE_SHIFT + EXCLUSIVE_BITS;
+    private static final int SHARED_BITS = 14;
+    private static final int LENDABLE_SHIFT = SHARED_SHIFT + SHARED_BITS;
+    private static final int LENDABLE_BITS = 14;
+    private static final int LENT_LENDABLE_SHIFT = LENDABLE_SHIFT + LENDABLE_BITS;
+    private static final int LENT_LENDABLE_BITS = 12;
+    private static final int LENT_SHARED_SHIFT = LENT_LENDABLE_SHIFT + LENT_LENDABLE_BITS;
+    private static final int LENT_SHARED_BITS = 12;
+
+    private static final long EXCLUSIVE_UNIT = 1L << EXCLUSIVE_SHIFT;
+    private static final long SHARED_UNIT = 1L << SHARED_SHIFT;
+    private static final long LENDABLE_UNIT = 1L << LENDABLE_SHIFT;
+    private static final long LENT_LENDABLE_UNIT = 1L << LENT_LENDABLE_SHIFT;
+    private static final long LENT_SHARED_UNIT = 1L << LENT_SHARED_SHIFT;
+
+    private static final AtomicLongFieldUpdater<FixedReentrantReadWriteLock> VERSION =
+            AtomicLongFieldUpdater.newUpdater(FixedReentrantReadWriteLock.class, "version");
+    /**
+     * A handle to a load fence; {@code VarHandle.acquireFence()} on Java 9 and later,
+     * {@code Unsafe.loadFence()} on Java 8, or {@code null} if neither is accessible.
+     */
+    @Nullable
+    private static final MethodHandle LOAD_FENCE = findLoadFence();
+
+    Sync sync = new Sync();
+    ThreadLocal<Holder> holders = ThreadLocal.withInitial(this::createHolder);
+    /**
+     * Holders by thread, used to answer {@link #getLockType(Thread)} for other threads.
+     * Weak keys let holders of terminated threads be collected.
+     */
+    Map<Thread, Holder> registry = new WeakHashMap<>();
+    /**
+     * Incremented every time the exclusive lock is newly acquired.
+     * Starts at one because a stamp of zero denotes a failed optimistic read.
+     */
+    @NonFinal
+    volatile long version = 1;
+    /**
+     * The contention statistics, or {@code null} if this lock is not instrumented.
+     */
+    @Nullable
+    LockStatistics statistics;
+
+    /**
+     * Constructs a lock without instrumentation.
+     */
+    public FixedReentrantReadWriteLock() {
+        this(false);
+    }
 
-import java.util.Collection;
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.LinkedHashSet;
-import java.util.Set;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.ReentrantLock;
+    /**
+     * Constructs a lock.
+     *
+     * @param instrumented whether to record contention statistics, available from {@link #getStatistics()}.
+     *                     Recording reads the clock on every acquisition and release.
+     */
+    public FixedReentrantReadWriteLock(final boolean instrumented) {
+        this.statistics = instrumented ? new LockStatistics() : null;
+    }
 
-public class FixedReentrantReadWriteLock {
-    private final ReentrantLock mutex = new ReentrantLock();
-    private final Condition condition = this.mutex.newCondition();
-    private final Collection<LockRequest> lockRequests = new LinkedHashSet<>();
-    private final Collection<Lock> locks = new HashSet<>();
+    @Nullable
+    private static MethodHandle findLoadFence() {
+        final MethodType type = MethodType.methodType(void.class);
+        try {
+            return MethodHandles.publicLookup()
+                    .findStatic(Class.forName("java.lang.invoke.VarHandle"), "acquireFence", type);
+        } catch (final ReflectiveOperationException | RuntimeException ignored) {
+        }
 
+        try {
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            final Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "loadFence", type)
+                    .bindTo(field.get(null));
+        } catch (final ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static int count(final long state, final int shift, final int bits) {
+        return (int) ((state >>> shift) & ((1L << bits) - 1));
+    }
+
+    private static int exclusiveCount(final long state) {
+        return count(state, EXCLUSIVE_SHIFT, EXCLUSIVE_BITS);
+    }
+
+    private static int sharedCount(final long state) {
+        return count(state, SHARED_SHIFT, SHARED_BITS);
+    }
+
+    private static int lendableCount(final long state) {
+        return count(state, LENDABLE_SHIFT, LENDABLE_BITS);
+    }
+
+    private static int lentLendableCount(final long state) {
+        return count(state, LENT_LENDABLE_SHIFT, LENT_LENDABLE_BITS);
+    }
+
+    private static int lentSharedCount(final long state) {
+        return count(state, LENT_SHARED_SHIFT, LENT_SHARED_BITS);
+    }
+
+    private static long checkedAdd(final long state, final long unit, final int count, final int bits) {
+        checkCount(count + 1, bits);
+        return state + unit;
+    }
+
+    private static void checkCount(final int count, final int bits) {
+        if (count > (1 << bits) - 1) {
+            throw new Error("Maximum lock count exceeded");
+        }
+    }
+
+    /**
+     * Checks whether the shared locks of the given holder are currently lent to another thread.
+     *
+     * @param state  the lock state
+     * @param holder the holder of the thread that owns the shared locks
+     * @return {@code true} if another thread holds the exclusive lock
+     */
+    private static boolean isLent(final long state, final Holder holder) {
+        return exclusiveCount(state) != 0 && holder.exclusive == 0;
+    }
+
+    /**
+     * Acquires the exclusive lock, blocking until it is available.
+     *
+     * @return the handle of the acquired lock
+     */
     public ILock exclusiveLock() {
-        return this.lock(false);
+        final Holder holder = this.holders.get();
+        if (this.sync.tryAcquireExclusive(holder)) {
+            return this.newLock(holder, false);
+        }
+
+        final long start = this.waitStart();
+        this.sync.acquire(1);
+        return this.newLock(holder, false, start);
     }
 
-    private Lock lock(final boolean shared) {
-        final Thread owner = Thread.currentThread();
-        final LockRequest req = new LockRequest(owner, shared);
-        this.lockRequests.add(req);
+    /**
+     * Acquires the shared lock, blocking until it is available.
+     *
+     * @return the handle of the acquired lock
+     */
+    public ILock sharedLock() {
+        final Holder holder = this.holders.get();
+        if (this.sync.tryAcquireShared(holder) >= 0) {
+            return this.newLock(holder, true);
+        }
 
-        this.mutex.lock();
-        try {
-            while (!this.canLock(req)) {
-                this.condition.await();
-            }
+        final long start = this.waitStart();
+        this.sync.acquireShared(1);
+        return this.newLock(holder, true, start);
+    }
 
-            final Lock lock = new Lock(this, req);
-            this.locks.add(lock);
-            this.lockRequests.remove(req);
+    /**
+     * Acquires the exclusive lock, blocking until it is available or the current thread is interrupted.
+     *
+     * @return the handle of the acquired lock
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public ILock exclusiveLockInterruptibly() throws InterruptedException {
+        final Holder holder = this.holders.get();
+        if (this.sync.tryAcquireExclusive(holder)) {
+            return this.newLock(holder, false);
+        }
 
-            if (!shared) {
-                final Collection<Lock> toBorrow = new HashSet<>();
-                for (final Lock existingLock : this.locks) {
-                    if (existingLock != lock && existingLock.isShared() && existingLock.isLendable()) {
-                        lock.addLend(existingLock);
-                        toBorrow.add(existingLock);
-                    }
-                }
-                this.locks.removeAll(toBorrow);
-            }
+        final long start = this.waitStart();
+        this.sync.acquireInterruptibly(1);
+        return this.newLock(holder, false, start);
+    }
 
-            return lock;
-        } catch (final InterruptedException e) {
-            throw new RuntimeException(e);
-        } finally {
-            this.mutex.unlock();
+    /**
+     * Acquires the exclusive lock only if it is available at the time of invocation.
+     * Like a blocking acquisition, this does not overtake threads already waiting for the lock
+     * unless the current thread already holds it.
+     *
+     * @return the handle of the acquired lock, or {@code null} if the lock is not available
+     */
+    @Nullable
+    public ILock tryExclusiveLock() {
+        final Holder holder = this.holders.get();
+        if (this.sync.tryAcquireExclusive(holder)) {
+            return this.newLock(holder, false);
         }
+
+        this.recordFailure(LockType.EXCLUSIVE);
+        return null;
     }
 
-    private boolean canLock(final LockRequest req) {
-        for (final LockRequest r : this.lockRequests) {
-            if (r == req) {
-                break;
-            }
-            if (this.locks.stream()
-                    .noneMatch(lock -> lock.getOwner() == r.getOwner())) {
-                return false;
-            }
+    /**
+     * Acquires the exclusive lock, blocking until it is available,
+     * the specified waiting time elapses or the current thread is interrupted.
+     *
+     * @param timeout the maximum time to wait. Must not be {@code null}.
+     * @return the handle of the acquired lock, or {@code null} if the waiting time elapsed
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    @Nullable
+    public ILock tryExclusiveLock(@NotNull final TimeHolder timeout) throws InterruptedException {
+        final Holder holder = this.holders.get();
+        if (this.sync.tryAcquireExclusive(holder)) {
+            return this.newLock(holder, false);
         }
 
-        if (req.isShared()) {
-            for (final Lock lock : this.locks) {
-                if (!lock.isShared() && lock.getOwner() != req.getOwner()) {
-                    return false;
-                }
-            }
-            return true;
-        } else {
-            final boolean hasSelfLock = this.locks.stream()
-                    .anyMatch(lock -> lock.getOwner() == req.getOwner());
-            if (hasSelfLock) {
-                return true;
-            }
-            if (!this.locks.isEmpty()) {
-                for (final Lock lock : this.locks) {
-                    if (!lock.isShared() || !lock.isLendable()) {
-                        return false;
-                    }
-                }
-            }
-            return true;
+        final long start = this.waitStart();
+        if (this.sync.tryAcquireNanos(1, timeout.toConvert(TimeUnit.NANOSECONDS))) {
+            return this.newLock(holder, false, start);
         }
+
+        this.recordFailure(LockType.EXCLUSIVE);
+        return null;
     }
 
-    public LockType getLockType() {
-        return this.getLockType(Thread.currentThread());
+    /**
+     * Acquires the shared lock, blocking until it is available or the current thread is interrupted.
+     *
+     * @return the handle of the acquired lock
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public ILock sharedLockInterruptibly() throws InterruptedException {
+        final Holder holder = this.holders.get();
+        if (this.sync.tryAcquireShared(holder) >= 0) {
+            return this.newLock(holder, true);
+        }
+
+        final long start = this.waitStart();
+        this.sync.acquireSharedInterruptibly(1);
+        return this.newLock(holder, true, start);
     }
 
-    public LockType getLockType(final Thread thread) {
-        LockType type = null;
-        for (final Lock lock : this.locks) {
-            if (lock.getOwner() == thread) {
-                if (!lock.isShared()) {
-                    return LockType.EXCLUSIVE;
-                }
-                type = LockType.SHARED;
-            }
+    /**
+     * Acquires the shared lock only if it is available at the time of invocation.
+     * Like a blocking acquisition, this does not overtake threads already waiting for the lock
+     * unless the current thread already holds it.
+     *
+     * @return the handle of the acquired lock, or {@code null} if the lock is not available
+     */
+    @Nullable
+    public ILock trySharedLock() {
+        final Holder holder = this.holders.get();
+        if (this.sync.tryAcquireShared(holder) >= 0) {
+            return this.newLock(holder, true);
         }
 
-        return type;
+        this.recordFailure(LockType.SHARED);
+        return null;
     }
 
-    public ILock sharedLock() {
-        return this.lock(true);
+    /**
+     * Acquires the shared lock, blocking until it is available,
+     * the specified waiting time elapses or the current thread is interrupted.
+     *
+     * @param timeout the maximum time to wait. Must not be {@code null}.
+     * @return the handle of the acquired lock, or {@code null} if the waiting time elapsed
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    @Nullable
+    public ILock trySharedLock(@NotNull final TimeHolder timeout) throws InterruptedException {
+        final Holder holder = this.holders.get();
+        if (this.sync.tryAcquireShared(holder) >= 0) {
+            return this.newLock(holder, true);
+        }
+
+        final long start = this.waitStart();
+        if (this.sync.tryAcquireSharedNanos(1, timeout.toConvert(TimeUnit.NANOSECONDS))) {
+            return this.newLock(holder, true, start);
+        }
+
+        this.recordFailure(LockType.SHARED);
+        return null;
+    }
+
+    /**
+     * Returns a stamp for an optimistic read, or zero if the exclusive lock is held.
+     * <p>
+     * The stamp must be checked with {@link #validate(long)} after reading the guarded state;
+     * values read in between may be inconsistent and must not be acted on before validation.
+     * Neither the lock state nor the holds of the current thread are changed.
+     *
+     * @return a non-zero stamp, or zero if the exclusive lock is held
+     */
+    public long tryOptimisticRead() {
+        final long stamp = this.version;
+        return exclusiveCount(this.sync.getLockState()) == 0 ? stamp : 0;
+    }
+
+    /**
+     * Checks whether the exclusive lock has not been acquired since the given stamp was issued.
+     *
+     * @param stamp a stamp returned by {@link #tryOptimisticRead()}
+     * @return {@code true} if the stamp is non-zero and no exclusive lock was acquired since it was issued,
+     * in which case the values read after obtaining it are consistent
+     */
+    public boolean validate(final long stamp) {
+        if (stamp == 0) {
+            return false;
+        }
+        if (LOAD_FENCE == null) {
+            return VERSION.compareAndSet(this, stamp, stamp);
+        }
+
+        try {
+            // Keep the reads of the guarded state from being reordered after the version check
+            LOAD_FENCE.invokeExact();
+        } catch (final Throwable t) {
+            throw new IllegalStateException(t);
+        }
+        return this.version == stamp;
+    }
+
+    /**
+     * Returns the type of the lock held by the current thread.
+     *
+     * @return {@link LockType#EXCLUSIVE} if the thread holds the exclusive lock,
+     * {@link LockType#SHARED} if it holds only shared locks that are not lent,
+     * or {@code null} otherwise
+     */
+    @Nullable
+    public LockType getLockType() {
+        return this.getLockType(this.holders.get());
+    }
+
+    /**
+     * Returns the type of the lock held by the specified thread.
+     * The result for threads other than the current one is a best-effort snapshot.
+     *
+     * @param thread the thread to inspect
+     * @return {@link LockType#EXCLUSIVE} if the thread holds the exclusive lock,
+     * {@link LockType#SHARED} if it holds only shared locks that are not lent,
+     * or {@code null} otherwise
+     */
+    @Nullable
+    public LockType getLockType(final Thread thread) {
+        if (thread == Thread.currentThread()) {
+            return this.getLockType();
+        }
+
+        final Holder holder;
+        synchronized (this.registry) {
+            holder = this.registry.get(thread);
+        }
+        return holder == null ? null : this.getLockType(holder);
     }
 
+    /**
+     * Returns the number of locks currently held, counting each reentrant acquisition.
+     * Shared locks lent to the exclusive locker are not counted.
+     *
+     * @return the number of held locks
+     */
     public int getLockCount() {
-        return this.locks.size();
+        final long state = this.sync.getLockState();
+        return exclusiveCount(state) + sharedCount(state) + lendableCount(state);
     }
 
+    /**
+     * Releases the specified lock. This is equivalent to {@link ILock#close()}.
+     * Handles that do not belong to this lock or are already released are ignored.
+     *
+     * @param ilock the lock to release
+     */
     public void unlock(final ILock ilock) {
-        this.mutex.lock();
-        try {
-            this.locks.remove(ilock);
-            if (ilock instanceof Lock) {
-                final Lock lock = (Lock) ilock;
-                final Lock[] lentLocks = lock.clearLends();
-                Collections.addAll(this.locks, lentLocks);
+        if (!(ilock instanceof Lock)) {
+            return;
+        }
+
+        final Lock lock = (Lock) ilock;
+        if (lock.lock != this || !lock.held) {
+            return;
+        }
+        checkOwner(lock.holder);
+
+        if (lock.shared) {
+            this.sync.releaseShared(lock.holder, lock.lendable);
+            if (lock.lendable) {
+                lock.holder.lendable--;
+            } else {
+                lock.holder.shared--;
             }
-            this.condition.signalAll();
-        } finally {
-            this.mutex.unlock();
+        } else {
+            this.sync.releaseExclusive();
+            lock.holder.exclusive--;
+        }
+        lock.held = false;
+        if (this.statistics != null) {
+            this.statistics.recordRelease(lock.shared ? LockType.SHARED : LockType.EXCLUSIVE,
+                    System.nanoTime() - lock.acquiredAt);
+        }
+        lock.holder.recycle(lock);
+        this.sync.signalWaiters();
+    }
+
+    private static void checkOwner(final Holder holder) {
+        if (holder.threadId != Thread.currentThread().getId()) {
+            throw new IllegalMonitorStateException("Lock is held by another thread");
+        }
+    }
+
+    private void setLendable(final Lock lock, final boolean lendable) {
+        if (lock.lendable == lendable) {
+            return;
+        }
+        // A released handle may be handed out again, so it must not change the hold it is reused for
+        if (!lock.held) {
+            return;
         }
+        if (!lock.shared) {
+            lock.lendable = lendable;
+            return;
+        }
+        checkOwner(lock.holder);
+
+        this.sync.moveLendable(lock.holder, lendable);
+        lock.lendable = lendable;
+        if (lendable) {
+            lock.holder.shared--;
+            lock.holder.lendable++;
+            this.sync.signalWaiters();
+        } else {
+            lock.holder.lendable--;
+            lock.holder.shared++;
+        }
+    }
+
+    @Nullable
+    private LockType getLockType(final Holder holder) {
+        if (holder.exclusive > 0) {
+            return LockType.EXCLUSIVE;
+        }
+        if (holder.shared + holder.lendable > 0 && !isLent(this.sync.getLockState(), holder)) {
+            return LockType.SHARED;
+        }
+        return null;
+    }
+
+    private Holder createHolder() {
+        final Thread thread = Thread.currentThread();
+        final Holder holder = new Holder(thread.getId());
+        synchronized (this.registry) {
+            this.registry.put(thread, holder);
+        }
+        return holder;
+    }
+
+    /**
+     * Returns a snapshot of the contention statistics of this lock.
+     *
+     * @return the statistics, or {@code null} if this lock was constructed without instrumentation
+     */
+    @Nullable
+    public LockStatistics.Snapshot getStatistics() {
+        return this.statistics == null ? null : this.statistics.snapshot(this.sync.getQueueLength());
+    }
+
+    private long waitStart() {
+        return this.statistics == null ? 0 : System.nanoTime();
+    }
+
+    private void recordFailure(final LockType type) {
+        if (this.statistics != null) {
+            this.statistics.recordFailure(type);
+        }
+    }
+
+    private Lock newLock(final Holder holder, final boolean shared, final long waitStart) {
+        return this.newLock(holder, shared, true, waitStart);
+    }
+
+    private Lock newLock(final Holder holder, final boolean shared) {
+        return this.newLock(holder, shared, false, 0);
+    }
+
+    private Lock newLock(final Holder holder, final boolean shared, final boolean contended, final long waitStart) {
+        if (shared) {
+            holder.shared++;
+        } else {
+            holder.exclusive++;
+        }
+
+        final Lock lock = holder.reuse(this, shared);
+        if (this.statistics != null) {
+            final long now = System.nanoTime();
+            this.statistics.recordAcquire(shared ? LockType.SHARED : LockType.EXCLUSIVE,
+                    contended ? now - waitStart : 0, contended);
+            lock.acquiredAt = now;
+        }
+        return lock;
     }
 
     public enum LockType {
@@ -144,61 +576,266 @@ public interface ILock extends AutoCloseable {
         void setLendable(boolean lendable);
     }
 
-    @Getter
-    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
-    private static class LockRequest {
-        Thread owner;
-        boolean shared;
+    /**
+     * The holds of one thread on one lock.
+     * Only the owning thread updates the counters.
+     */
+    static final class Holder {
+        /**
+         * The number of released handles kept for reuse, enough for the usual nesting of holds.
+         */
+        private static final int RELEASED_HANDLES = 8;
+
+        final long threadId;
+        final Lock[] released = new Lock[RELEASED_HANDLES];
+        int releasedCount;
+        int exclusive;
+        /**
+         * Non-lendable shared holds, whether lent or not.
+         */
+        int shared;
+        /**
+         * Lendable shared holds, whether lent or not.
+         */
+        int lendable;
+
+        Holder(final long threadId) {
+            this.threadId = threadId;
+        }
 
-        LockRequest(final Thread owner, final boolean shared) {
-            this.owner = owner;
-            this.shared = shared;
+        /**
+         * Returns a released handle set up for a new hold, or a new handle if none is kept.
+         */
+        Lock reuse(final FixedReentrantReadWriteLock lock, final boolean shared) {
+            if (this.releasedCount == 0) {
+                return new Lock(lock, this, shared);
+            }
+
+            final Lock handle = this.released[--this.releasedCount];
+            this.released[this.releasedCount] = null;
+            handle.shared = shared;
+            handle.held = true;
+            handle.lendable = false;
+            handle.acquiredAt = 0;
+            return handle;
+        }
+
+        void recycle(final Lock handle) {
+            if (this.releasedCount < this.released.length) {
+                this.released[this.releasedCount++] = handle;
+            }
         }
     }
 
     @FieldDefaults(level = AccessLevel.PRIVATE)
     static class Lock implements ILock {
-        private static final Lock[] EMPTY_ARR = new Lock[0];
-
         final FixedReentrantReadWriteLock lock;
-        final LockRequest request;
-        final Set<Lock> lends = new HashSet<>();
+        final Holder holder;
+        boolean shared;
+        boolean held = true;
         @Getter
-        @Setter
         boolean lendable;
+        /**
+         * The time of acquisition, only recorded when the lock is instrumented.
+         */
+        long acquiredAt;
 
-        public Lock(final FixedReentrantReadWriteLock lock, final LockRequest request) {
+        Lock(final FixedReentrantReadWriteLock lock, final Holder holder, final boolean shared) {
             this.lock = lock;
-            this.request = request;
+            this.holder = holder;
+            this.shared = shared;
         }
 
-        public synchronized void addLend(final Lock lock) {
-            this.lends.add(lock);
+        @Override
+        public void setLendable(final boolean lendable) {
+            this.lock.setLendable(this, lendable);
         }
 
-        public synchronized void setLends(final Lock lock) {
-            this.lends.clear();
-            this.lends.add(lock);
+        public boolean isShared() {
+            return this.shared;
         }
 
-        public synchronized Lock[] clearLends() {
-            final Lock[] res = this.lends.toArray(EMPTY_ARR);
-            this.lends.clear();
-            return res;
+        @Override
+        public void close() {
+            this.lock.unlock(this);
         }
+    }
 
-        public Thread getOwner() {
-            return this.request.getOwner();
+    /**
+     * The synchronizer holding the packed lock state.
+     * <p>
+     * The state word is split into the exclusive hold count, the non-lendable and lendable shared hold counts,
+     * and the lendable and non-lendable shared hold counts currently lent to the exclusive locker.
+     * Acquisition is decided on the state word and the holder of the acquiring thread;
+     * releases update the state directly and only use the queue to wake waiters.
+     */
+    final class Sync extends AbstractQueuedLongSynchronizer {
+        private static final long serialVersionUID = -3816235489176321064L;
+
+        long getLockState() {
+            return this.getState();
         }
 
-        public boolean isShared() {
-            return this.request.isShared();
+        boolean tryAcquireExclusive(final Holder holder) {
+            final boolean reentrant = holder.exclusive + holder.shared + holder.lendable > 0;
+            while (true) {
+                final long state = this.getState();
+                final int exclusive = exclusiveCount(state);
+                final long next;
+                if (exclusive != 0) {
+                    if (holder.exclusive == 0) {
+                        return false;
+                    }
+                    next = checkedAdd(state, EXCLUSIVE_UNIT, exclusive, EXCLUSIVE_BITS);
+                } else {
+                    // Non-lendable shared locks of other threads block the exclusive lock
+                    if (sharedCount(state) != holder.shared) {
+                        return false;
+                    }
+                    if (!reentrant && this.hasQueuedPredecessors()) {
+                        return false;
+                    }
+
+                    // Lend the lendable shared locks of the other threads
+                    final int lent = lendableCount(state) - holder.lendable;
+                    checkCount(lent, LENT_LENDABLE_BITS);
+                    next = state + EXCLUSIVE_UNIT
+                            - lent * LENDABLE_UNIT
+                            + lent * LENT_LENDABLE_UNIT;
+                }
+
+                if (this.compareAndSetState(state, next)) {
+                    if (exclusive == 0) {
+                        this.setExclusiveOwnerThread(Thread.currentThread());
+                        // Invalidate optimistic reads before the caller can write
+                        VERSION.incrementAndGet(FixedReentrantReadWriteLock.this);
+                        if (FixedReentrantReadWriteLock.this.statistics != null) {
+                            FixedReentrantReadWriteLock.this.statistics
+                                    .recordLend(lendableCount(state) - holder.lendable);
+                        }
+                    }
+                    return true;
+                }
+            }
+        }
+
+        int tryAcquireShared(final Holder holder) {
+            final boolean reentrant = holder.exclusive + holder.shared + holder.lendable > 0;
+            while (true) {
+                final long state = this.getState();
+                if (exclusiveCount(state) != 0) {
+                    if (holder.exclusive == 0) {
+                        return -1;
+                    }
+                } else if (!reentrant && this.hasQueuedPredecessors()) {
+                    return -1;
+                }
+
+                // Count the lent holds, which are restored to the shared count on the exclusive release
+                final long next = checkedAdd(state, SHARED_UNIT,
+                        sharedCount(state) + lentSharedCount(state), SHARED_BITS);
+                if (this.compareAndSetState(state, next)) {
+                    return 1;
+                }
+            }
+        }
+
+        void releaseExclusive() {
+            while (true) {
+                final long state = this.getState();
+                final long next;
+                if (exclusiveCount(state) == 1) {
+                    this.setExclusiveOwnerThread(null);
+                    // Restore the lent shared locks; acquisitions keep the restored counts within their fields
+                    final int lentLendable = lentLendableCount(state);
+                    final int lentShared = lentSharedCount(state);
+                    next = state - EXCLUSIVE_UNIT
+                            - lentLendable * LENT_LENDABLE_UNIT + lentLendable * LENDABLE_UNIT
+                            - lentShared * LENT_SHARED_UNIT + lentShared * SHARED_UNIT;
+                } else {
+                    next = state - EXCLUSIVE_UNIT;
+                }
+
+                if (this.compareAndSetState(state, next)) {
+                    return;
+                }
+            }
+        }
+
+        void releaseShared(final Holder holder, final boolean lendable) {
+            while (true) {
+                final long state = this.getState();
+                final long unit;
+                if (isLent(state, holder)) {
+                    unit = lendable ? LENT_LENDABLE_UNIT : LENT_SHARED_UNIT;
+                } else {
+                    unit = lendable ? LENDABLE_UNIT : SHARED_UNIT;
+                }
+
+                if (this.compareAndSetState(state, state - unit)) {
+                    return;
+                }
+            }
+        }
+
+        void moveLendable(final Holder holder, final boolean lendable) {
+            while (true) {
+                final long state = this.getState();
+                final long next;
+                // Count the holds restored to the same field on the exclusive release
+                if (lendable) {
+                    checkCount(lendableCount(state) + lentLendableCount(state) + 1, LENDABLE_BITS);
+                } else {
+                    checkCount(sharedCount(state) + lentSharedCount(state) + 1, SHARED_BITS);
+                }
+                if (isLent(state, holder)) {
+                    next = lendable
+                            ? checkedAdd(state, LENT_LENDABLE_UNIT, lentLendableCount(state), LENT_LENDABLE_BITS)
+                            - LENT_SHARED_UNIT
+                            : checkedAdd(state, LENT_SHARED_UNIT, lentSharedCount(state), LENT_SHARED_BITS)
+                            - LENT_LENDABLE_UNIT;
+                } else {
+                    next = lendable
+                            ? state + LENDABLE_UNIT - SHARED_UNIT
+                            : state + SHARED_UNIT - LENDABLE_UNIT;
+                }
+
+                if (this.compareAndSetState(state, next)) {
+                    return;
+                }
+            }
+        }
+
+        void signalWaiters() {
+            if (this.hasQueuedThreads()) {
+                this.releaseShared(0);
+            }
         }
 
         @Override
-        public void close() {
-            this.lock.unlock(this);
+        protected boolean tryAcquire(final long arg) {
+            return this.tryAcquireExclusive(FixedReentrantReadWriteLock.this.holders.get());
+        }
+
+        @Override
+        protected long tryAcquireShared(final long arg) {
+            return this.tryAcquireShared(FixedReentrantReadWriteLock.this.holders.get());
         }
 
+        /**
+         * Only used to wake queued threads after the state was updated directly.
+         *
+         * @param arg unused
+         * @return always {@code true}
+         */
+        @Override
+        protected boolean tryReleaseShared(final long arg) {
+            return true;
+        }
+
+        @Override
+        protected boolean isHeldExclusively() {
+            return this.getExclusiveOwnerThread() == Thread.currentThread();
+        }
     }
 }
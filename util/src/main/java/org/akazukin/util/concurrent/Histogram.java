@@ -0,0 +1,227 @@
+package org.akazukin.util.concurrent;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+import org.akazukin.annotation.marker.Immutable;
+import org.akazukin.annotation.marker.ThreadSafe;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent histogram of non-negative long values, such as durations in nanoseconds.
+ * <p>
+ * Values are counted in power-of-two buckets: bucket {@code 0} holds zero,
+ * and bucket {@code i} holds values in {@code [2^(i-1), 2^i - 1]}.
+ * Recording is lock-free and striped, so many threads can record concurrently without contending,
+ * at the cost of percentiles being accurate to within a factor of two.
+ * A compact histogram keeps its buckets in a single atomic array instead,
+ * which uses far less memory but lets concurrent recorders of the same bucket contend.
+ * <p>
+ * The class is thread-safe and can be used concurrently
+ * by multiple threads without the need for synchronization.
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@ThreadSafe
+public final class Histogram {
+    /**
+     * The number of buckets, enough to hold every non-negative long value.
+     */
+    public static final int BUCKETS = Long.SIZE;
+
+    /**
+     * The striped buckets, or {@code null} if this histogram is compact.
+     */
+    @Nullable
+    LongAdder[] buckets;
+    /**
+     * The buckets of a compact histogram, or {@code null} if this histogram is striped.
+     */
+    @Nullable
+    AtomicLongArray compactBuckets;
+    LongAdder sum = new LongAdder();
+    LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Constructs an empty striped histogram.
+     */
+    public Histogram() {
+        this(true);
+    }
+
+    /**
+     * Constructs an empty histogram.
+     *
+     * @param striped {@code true} to stripe every bucket for heavily concurrent recording,
+     *                {@code false} for a compact histogram suited to values mostly recorded by one thread at a time
+     */
+    public Histogram(final boolean striped) {
+        if (striped) {
+            this.buckets = new LongAdder[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                this.buckets[i] = new LongAdder();
+            }
+            this.compactBuckets = null;
+        } else {
+            this.buckets = null;
+            this.compactBuckets = new AtomicLongArray(BUCKETS);
+        }
+    }
+
+    /**
+     * Returns the index of the bucket that holds the specified value.
+     *
+     * @param value the value. Negative values are treated as zero.
+     * @return the index of the bucket, between {@code 0} and {@code BUCKETS - 1}
+     */
+    public static int bucketOf(final long value) {
+        return value <= 0 ? 0 : Long.SIZE - Long.numberOfLeadingZeros(value);
+    }
+
+    /**
+     * Returns the largest value held by the specified bucket.
+     *
+     * @param bucket the index of the bucket
+     * @return the inclusive upper bound of the bucket
+     */
+    public static long upperBoundOf(final int bucket) {
+        return bucket >= Long.SIZE - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+    }
+
+    /**
+     * Records a value.
+     *
+     * @param value the value to record. Negative values are recorded as zero.
+     */
+    public void record(final long value) {
+        final long v = Math.max(0, value);
+        if (this.buckets != null) {
+            this.buckets[bucketOf(v)].increment();
+        } else {
+            this.compactBuckets.getAndIncrement(bucketOf(v));
+        }
+        this.sum.add(v);
+        this.max.accumulate(v);
+    }
+
+    /**
+     * Takes a snapshot of the recorded values.
+     * Values recorded concurrently with this call may or may not be included.
+     *
+     * @return an immutable snapshot of the histogram
+     */
+    public Snapshot snapshot() {
+        final long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = this.buckets != null ? this.buckets[i].sum() : this.compactBuckets.get(i);
+            count += counts[i];
+        }
+        return new Snapshot(counts, count, this.sum.sum(), this.max.get());
+    }
+
+    /**
+     * Clears all recorded values.
+     * Values recorded concurrently with this call may or may not be cleared.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            if (this.buckets != null) {
+                this.buckets[i].reset();
+            } else {
+                this.compactBuckets.set(i, 0);
+            }
+        }
+        this.sum.reset();
+        this.max.reset();
+    }
+
+    /**
+     * An immutable snapshot of a {@link Histogram}.
+     */
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    @Immutable
+    @ThreadSafe
+    public static final class Snapshot {
+        long[] counts;
+        /**
+         * The number of recorded values.
+         */
+        @Getter
+        long count;
+        /**
+         * The sum of the recorded values.
+         */
+        @Getter
+        long sum;
+        /**
+         * The largest recorded value, or zero if nothing was recorded.
+         */
+        @Getter
+        long max;
+
+        Snapshot(final long[] counts, final long count, final long sum, final long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        /**
+         * Returns the number of values recorded in the specified bucket.
+         *
+         * @param bucket the index of the bucket, between {@code 0} and {@code BUCKETS - 1}
+         * @return the number of values in the bucket
+         */
+        public long getCount(final int bucket) {
+            return this.counts[bucket];
+        }
+
+        /**
+         * Returns the arithmetic mean of the recorded values.
+         *
+         * @return the mean, or {@code 0} if nothing was recorded
+         */
+        public double getMean() {
+            return this.count == 0 ? 0 : (double) this.sum / this.count;
+        }
+
+        /**
+         * Returns an upper bound of the value at the specified percentile.
+         * The result is the upper bound of the bucket containing the percentile, capped by the maximum value.
+         *
+         * @param percentile the percentile, between {@code 0} and {@code 100}
+         * @return the estimated value, or {@code 0} if nothing was recorded
+         */
+        public long getPercentile(final double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("percentile out of range: " + percentile);
+            }
+            if (this.count == 0) {
+                return 0;
+            }
+
+            final long rank = Math.max(1, (long) Math.ceil(this.count * percentile / 100));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += this.counts[i];
+                if (seen >= rank) {
+                    return Math.min(upperBoundOf(i), this.max);
+                }
+            }
+            return this.max;
+        }
+
+        @Override
+        public String toString() {
+            return "Histogram.Snapshot[count=" + this.count
+                    + ", mean=" + this.getMean()
+                    + ", p50=" + this.getPercentile(50)
+                    + ", p99=" + this.getPercentile(99)
+                    + ", max=" + this.max + "]";
+        }
+    }
+}
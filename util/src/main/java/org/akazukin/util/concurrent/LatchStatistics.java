@@ -0,0 +1,97 @@
+package org.akazukin.util.concurrent;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+import org.akazukin.annotation.marker.Immutable;
+import org.akazukin.annotation.marker.ThreadSafe;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Wait statistics of a {@link CountLatch}.
+ * <p>
+ * An instance is only created for latches constructed with instrumentation enabled;
+ * uninstrumented latches skip recording entirely.
+ *
+ * @see CountLatch#getStatistics()
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@ThreadSafe
+public final class LatchStatistics {
+    LongAdder awaits = new LongAdder();
+    LongAdder timeouts = new LongAdder();
+    LongAdder releases = new LongAdder();
+    Histogram waitTimes = new Histogram();
+
+    LatchStatistics() {
+    }
+
+    void recordAwait(final long waitNanos) {
+        this.awaits.increment();
+        this.waitTimes.record(waitNanos);
+    }
+
+    void recordTimeout(final long waitNanos) {
+        this.timeouts.increment();
+        this.waitTimes.record(waitNanos);
+    }
+
+    void recordRelease() {
+        this.releases.increment();
+    }
+
+    Snapshot snapshot(final int queueLength) {
+        return new Snapshot(this.awaits.sum(), this.timeouts.sum(), this.releases.sum(),
+                this.waitTimes.snapshot(), queueLength);
+    }
+
+    /**
+     * An immutable snapshot of the wait statistics of a {@link CountLatch}.
+     * All times are in nanoseconds.
+     */
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    @Getter
+    @Immutable
+    @ThreadSafe
+    public static final class Snapshot {
+        /**
+         * The number of waits that ended because the count reached zero.
+         */
+        long awaitCount;
+        /**
+         * The number of timed waits that elapsed before the count reached zero.
+         */
+        long timeoutCount;
+        /**
+         * The number of releases, including those made after the count reached zero.
+         */
+        long releaseCount;
+        /**
+         * The histogram of the time spent waiting, whether the wait succeeded or timed out.
+         */
+        Histogram.Snapshot waitTime;
+        /**
+         * The number of threads waiting when the snapshot was taken.
+         */
+        int queueLength;
+
+        Snapshot(final long awaitCount, final long timeoutCount, final long releaseCount,
+                 final Histogram.Snapshot waitTime, final int queueLength) {
+            this.awaitCount = awaitCount;
+            this.timeoutCount = timeoutCount;
+            this.releaseCount = releaseCount;
+            this.waitTime = waitTime;
+            this.queueLength = queueLength;
+        }
+
+        @Override
+        public String toString() {
+            return "LatchStatistics.Snapshot[awaits=" + this.awaitCount
+                    + ", timeouts=" + this.timeoutCount
+                    + ", releases=" + this.releaseCount
+                    + ", wait=" + this.waitTime
+                    + ", queueLength=" + this.queueLength + "]";
+        }
+    }
+}
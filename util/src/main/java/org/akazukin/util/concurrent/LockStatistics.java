@@ -0,0 +1,192 @@
+package org.akazukin.util.concurrent;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+import org.akazukin.annotation.marker.Immutable;
+import org.akazukin.annotation.marker.ThreadSafe;
+import org.akazukin.util.concurrent.FixedReentrantReadWriteLock.LockType;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contention statistics of a {@link FixedReentrantReadWriteLock}, recorded per {@link LockType}.
+ * <p>
+ * An instance is only created for locks constructed with instrumentation enabled;
+ * uninstrumented locks skip recording entirely.
+ * All counters are striped, so recording does not add contention to the lock itself.
+ *
+ * @see FixedReentrantReadWriteLock#getStatistics()
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@ThreadSafe
+public final class LockStatistics {
+    private static final LockType[] TYPES = LockType.values();
+
+    LongAdder[] acquisitions = adders();
+    LongAdder[] contended = adders();
+    LongAdder[] failures = adders();
+    Histogram[] waitTimes = histograms();
+    Histogram[] holdTimes = histograms();
+    LongAdder lends = new LongAdder();
+
+    LockStatistics() {
+    }
+
+    private static LongAdder[] adders() {
+        final LongAdder[] adders = new LongAdder[TYPES.length];
+        for (int i = 0; i < adders.length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    private static Histogram[] histograms() {
+        final Histogram[] histograms = new Histogram[TYPES.length];
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new Histogram();
+        }
+        return histograms;
+    }
+
+    void recordAcquire(final LockType type, final long waitNanos, final boolean contended) {
+        this.acquisitions[type.ordinal()].increment();
+        if (contended) {
+            this.contended[type.ordinal()].increment();
+        }
+        this.waitTimes[type.ordinal()].record(waitNanos);
+    }
+
+    void recordFailure(final LockType type) {
+        this.failures[type.ordinal()].increment();
+    }
+
+    void recordRelease(final LockType type, final long holdNanos) {
+        this.holdTimes[type.ordinal()].record(holdNanos);
+    }
+
+    void recordLend(final int count) {
+        this.lends.add(count);
+    }
+
+    Snapshot snapshot(final int queueLength) {
+        final long[] acquisitions = new long[TYPES.length];
+        final long[] contended = new long[TYPES.length];
+        final long[] failures = new long[TYPES.length];
+        final Histogram.Snapshot[] waitTimes = new Histogram.Snapshot[TYPES.length];
+        final Histogram.Snapshot[] holdTimes = new Histogram.Snapshot[TYPES.length];
+        for (int i = 0; i < TYPES.length; i++) {
+            acquisitions[i] = this.acquisitions[i].sum();
+            contended[i] = this.contended[i].sum();
+            failures[i] = this.failures[i].sum();
+            waitTimes[i] = this.waitTimes[i].snapshot();
+            holdTimes[i] = this.holdTimes[i].snapshot();
+        }
+        return new Snapshot(acquisitions, contended, failures, waitTimes, holdTimes, this.lends.sum(), queueLength);
+    }
+
+    /**
+     * An immutable snapshot of the contention statistics of a {@link FixedReentrantReadWriteLock}.
+     * All times are in nanoseconds.
+     */
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    @Immutable
+    @ThreadSafe
+    public static final class Snapshot {
+        long[] acquisitions;
+        long[] contended;
+        long[] failures;
+        Histogram.Snapshot[] waitTimes;
+        Histogram.Snapshot[] holdTimes;
+        /**
+         * The total number of shared locks lent to exclusive lockers.
+         */
+        @Getter
+        long lendCount;
+        /**
+         * The number of threads waiting for the lock when the snapshot was taken.
+         */
+        @Getter
+        int queueLength;
+
+        Snapshot(final long[] acquisitions, final long[] contended, final long[] failures,
+                 final Histogram.Snapshot[] waitTimes, final Histogram.Snapshot[] holdTimes,
+                 final long lendCount, final int queueLength) {
+            this.acquisitions = acquisitions;
+            this.contended = contended;
+            this.failures = failures;
+            this.waitTimes = waitTimes;
+            this.holdTimes = holdTimes;
+            this.lendCount = lendCount;
+            this.queueLength = queueLength;
+        }
+
+        /**
+         * Returns the number of successful acquisitions of the specified type.
+         *
+         * @param type the lock type
+         * @return the number of acquisitions
+         */
+        public long getAcquireCount(@NotNull final LockType type) {
+            return this.acquisitions[type.ordinal()];
+        }
+
+        /**
+         * Returns the number of acquisitions of the specified type that had to wait.
+         *
+         * @param type the lock type
+         * @return the number of contended acquisitions
+         */
+        public long getContendedCount(@NotNull final LockType type) {
+            return this.contended[type.ordinal()];
+        }
+
+        /**
+         * Returns the number of non-blocking or timed acquisitions of the specified type that failed.
+         *
+         * @param type the lock type
+         * @return the number of failed acquisitions
+         */
+        public long getFailureCount(@NotNull final LockType type) {
+            return this.failures[type.ordinal()];
+        }
+
+        /**
+         * Returns the histogram of the time spent waiting for locks of the specified type.
+         * Uncontended acquisitions are recorded as zero.
+         *
+         * @param type the lock type
+         * @return the wait time histogram
+         */
+        public Histogram.Snapshot getWaitTime(@NotNull final LockType type) {
+            return this.waitTimes[type.ordinal()];
+        }
+
+        /**
+         * Returns the histogram of the time locks of the specified type were held.
+         *
+         * @param type the lock type
+         * @return the hold time histogram
+         */
+        public Histogram.Snapshot getHoldTime(@NotNull final LockType type) {
+            return this.holdTimes[type.ordinal()];
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder("LockStatistics.Snapshot[");
+            for (final LockType type : TYPES) {
+                sb.append(type).append("={acquired=").append(this.getAcquireCount(type))
+                        .append(", contended=").append(this.getContendedCount(type))
+                        .append(", failed=").append(this.getFailureCount(type))
+                        .append(", wait=").append(this.getWaitTime(type))
+                        .append(", hold=").append(this.getHoldTime(type))
+                        .append("}, ");
+            }
+            return sb.append("lends=").append(this.lendCount)
+                    .append(", queueLength=").append(this.queueLength)
+                    .append(']').toString();
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package org.akazukin.util.concurrent;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.akazukin.annotation.marker.ThreadSafe;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.AbstractQueuedSynchronizer;
+
+/**
+ * A {@link CountLatch} variant for many threads releasing concurrently.
+ * <p>
+ * The count is spread across cells padded to separate cache lines,
+ * and each releasing thread decrements the cell chosen by its identity,
+ * moving on to the next cell only if its own cell is drained or contended.
+ * The shared synchronizer state only counts the cells that are not yet drained,
+ * so it is written once per cell rather than once per release.
+ * <p>
+ * Once the count reaches zero, the latch does not reset and all later invocations of
+ * {@link StripedCountLatch#await()} return immediately.
+ * {@link StripedCountLatch#getCount()} sums the cells and is therefore only a snapshot
+ * while releases are in progress.
+ */
+@ThreadSafe
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public final class StripedCountLatch {
+    private static final AtomicIntegerFieldUpdater<CellValue> VALUE =
+            AtomicIntegerFieldUpdater.newUpdater(CellValue.class, "value");
+
+    Cell[] cells;
+    Sync sync;
+
+    /**
+     * Constructs a StripedCountLatch with the given initial count,
+     * striped across a number of cells matching the available processors.
+     *
+     * @param count the initial count for the latch. Must be greater than or equal to zero.
+     * @throws IllegalArgumentException if the count is less than zero.
+     */
+    public StripedCountLatch(final int count) {
+        this(count, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a StripedCountLatch with the given initial count and number of cells.
+     *
+     * @param count   the initial count for the latch. Must be greater than or equal to zero.
+     * @param stripes the preferred number of cells, rounded up to a power of two
+     *                and limited so that every cell starts with a positive count.
+     * @throws IllegalArgumentException if the count is less than zero or the stripes is less than one.
+     */
+    public StripedCountLatch(final int count, final int stripes) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count < 0");
+        }
+        if (stripes < 1) {
+            throw new IllegalArgumentException("stripes < 1");
+        }
+
+        int size = 1;
+        while (size < stripes && size < 1 << 16) {
+            size <<= 1;
+        }
+        while (size > 1 && size > count) {
+            size >>= 1;
+        }
+
+        this.cells = new Cell[count == 0 ? 0 : size];
+        for (int i = 0; i < this.cells.length; i++) {
+            this.cells[i] = new Cell(count / size + (i < count % size ? 1 : 0));
+        }
+        this.sync = new Sync(this.cells.length);
+    }
+
+    private static int probe() {
+        final long id = Thread.currentThread().getId();
+        final long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ h >>> 32);
+    }
+
+    /**
+     * Causes the calling thread to wait until the latch count reaches zero,
+     * unless the thread is interrupted.
+     *
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     * @see CountLatch#await()
+     */
+    public void await() throws InterruptedException {
+        this.sync.acquireSharedInterruptibly(1);
+    }
+
+    /**
+     * Causes the calling thread to wait until the latch count reaches zero or the specified
+     * waiting time elapses, unless the thread is interrupted.
+     *
+     * @param timeout the maximum time to wait, in the given time unit
+     * @param unit    the time unit of the {@code timeout} parameter
+     * @return {@code true} if the count reached zero within the waiting time;
+     * {@code false} if the waiting time elapsed before the count reached zero
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     * @see CountLatch#await(long, TimeUnit)
+     */
+    public boolean await(final long timeout, final TimeUnit unit) throws InterruptedException {
+        return this.sync.tryAcquireSharedNanos(1, unit.toNanos(timeout));
+    }
+
+    /**
+     * Decrements the count of the latch.
+     * <p>
+     * If the count reaches zero as a result of this call, any threads
+     * waiting on the latch are released.
+     * If the count is already zero, later calls to this method have no effect.
+     */
+    public void release() {
+        final int mask = this.cells.length - 1;
+        int index = probe() & mask;
+        // Cells never grow, so a run of drained cells covering the whole array means the count is zero
+        for (int drained = 0; drained < this.cells.length; index = index + 1 & mask) {
+            final Cell cell = this.cells[index];
+            final int value = cell.value;
+            if (value == 0) {
+                drained++;
+                continue;
+            }
+            if (VALUE.compareAndSet(cell, value, value - 1)) {
+                if (value == 1) {
+                    this.sync.releaseShared(1);
+                }
+                return;
+            }
+            // Contended; try the next cell rather than spinning on this one, and start a new run
+            drained = 0;
+        }
+    }
+
+    /**
+     * Returns the current count of the latch.
+     *
+     * @return the sum of the counts of all cells
+     */
+    public long getCount() {
+        long count = 0;
+        for (final Cell cell : this.cells) {
+            count += cell.value;
+        }
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + "[Count = " + this.getCount() + "]";
+    }
+
+    /**
+     * The synchronizer whose state is the number of cells that are not yet drained.
+     */
+    private static final class Sync extends AbstractQueuedSynchronizer {
+        private static final long serialVersionUID = -6325780962584717624L;
+
+        Sync(final int cells) {
+            this.setState(cells);
+        }
+
+        @Override
+        protected int tryAcquireShared(final int arg) {
+            return this.getState() == 0 ? 1 : -1;
+        }
+
+        @Override
+        protected boolean tryReleaseShared(final int arg) {
+            while (true) {
+                final int state = this.getState();
+                if (state == 0) {
+                    return false;
+                }
+                if (this.compareAndSetState(state, state - 1)) {
+                    return state == 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Padding before the cell value. Padding is split across the class hierarchy
+     * because the JVM may reorder the fields declared by a single class.
+     */
+    @SuppressWarnings("unused")
+    private static class CellPadding {
+        long p01;
+        long p02;
+        long p03;
+        long p04;
+        long p05;
+        long p06;
+        long p07;
+    }
+
+    private static class CellValue extends CellPadding {
+        volatile int value;
+    }
+
+    /**
+     * A part of the count, padded so that neighbouring cells do not share a cache line.
+     */
+    @SuppressWarnings("unused")
+    private static final class Cell extends CellValue {
+        long p11;
+        long p12;
+        long p13;
+        long p14;
+        long p15;
+        long p16;
+        long p17;
+
+        Cell(final int value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package org.akazukin.util.time;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import org.akazukin.annotation.marker.ThreadSafe;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A coarse {@link NanoClock} that caches {@link System#nanoTime()} in a volatile field,
+ * refreshed by a background ticker thread once per resolution.
+ * <p>
+ * Reading the clock is a single volatile load, which makes it suitable for hot paths
+ * that read the time far more often than its resolution.
+ * The reading lags behind the system clock by up to one resolution, plus the scheduling latency of the ticker.
+ * <p>
+ * The clock stops advancing once it is closed.
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@ThreadSafe
+public final class CachedNanoClock implements NanoClock, Closeable {
+    private static final AtomicInteger TICKER_IDS = new AtomicInteger();
+
+    /**
+     * The interval between two refreshes, in nanoseconds.
+     */
+    @Getter
+    long resolution;
+    Thread ticker;
+    @NonFinal
+    volatile long now;
+    @NonFinal
+    volatile boolean closed;
+
+    /**
+     * Constructs a clock with the specified resolution, refreshed by a daemon thread.
+     *
+     * @param resolution the interval between two refreshes. Must be positive.
+     */
+    public CachedNanoClock(@NotNull final TimeHolder resolution) {
+        this(resolution, r -> {
+            final Thread thread = new Thread(r, "CachedNanoClock-ticker-" + TICKER_IDS.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Constructs a clock with the specified resolution.
+     *
+     * @param resolution    the interval between two refreshes. Must be positive.
+     * @param threadFactory the {@link ThreadFactory} to use for creating the ticker thread.
+     *                      Must not be {@code null}.
+     */
+    public CachedNanoClock(@NotNull final TimeHolder resolution, @NotNull final ThreadFactory threadFactory) {
+        this.resolution = resolution.toConvert(TimeUnit.NANOSECONDS);
+        if (this.resolution <= 0) {
+            throw new IllegalArgumentException("resolution must be positive: " + this.resolution);
+        }
+
+        this.now = System.nanoTime();
+        this.ticker = threadFactory.newThread(this::tick);
+        this.ticker.start();
+    }
+
+    @Override
+    public long nanoTime() {
+        return this.now;
+    }
+
+    /**
+     * Stops the ticker thread. The clock keeps its last reading afterward.
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+        LockSupport.unpark(this.ticker);
+    }
+
+    private void tick() {
+        while (!this.closed) {
+            this.now = System.nanoTime();
+            LockSupport.parkNanos(this, this.resolution);
+        }
+    }
+}
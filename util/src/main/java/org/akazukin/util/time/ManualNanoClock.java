@@ -0,0 +1,62 @@
+package org.akazukin.util.time;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.akazukin.annotation.marker.ThreadSafe;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link NanoClock} that only advances when told to, for deterministic tests and simulations.
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@ThreadSafe
+public final class ManualNanoClock implements NanoClock {
+    AtomicLong now;
+
+    /**
+     * Constructs a clock starting at zero.
+     */
+    public ManualNanoClock() {
+        this(0);
+    }
+
+    /**
+     * Constructs a clock starting at the specified time.
+     *
+     * @param start the initial time in nanoseconds
+     */
+    public ManualNanoClock(final long start) {
+        this.now = new AtomicLong(start);
+    }
+
+    @Override
+    public long nanoTime() {
+        return this.now.get();
+    }
+
+    /**
+     * Advances the clock.
+     *
+     * @param nanos the time to advance by, in nanoseconds. Must not be negative.
+     * @return the new time of the clock
+     */
+    public long advance(final long nanos) {
+        if (nanos < 0) {
+            throw new IllegalArgumentException("A clock must not go backwards: " + nanos);
+        }
+        return this.now.addAndGet(nanos);
+    }
+
+    /**
+     * Advances the clock.
+     *
+     * @param time the time to advance by. Must not be negative.
+     * @return the new time of the clock
+     */
+    public long advance(@NotNull final TimeHolder time) {
+        return this.advance(time.toConvert(TimeUnit.NANOSECONDS));
+    }
+}
@@ -0,0 +1,25 @@
+package org.akazukin.util.time;
+
+/**
+ * A source of monotonic time in nanoseconds, like {@link System#nanoTime()}.
+ * <p>
+ * Only differences between two readings of the same clock are meaningful.
+ * Implementations must be thread-safe and must never go backwards.
+ *
+ * @see CachedNanoClock
+ * @see ManualNanoClock
+ */
+@FunctionalInterface
+public interface NanoClock {
+    /**
+     * The clock that reads {@link System#nanoTime()} on every call.
+     */
+    NanoClock SYSTEM = System::nanoTime;
+
+    /**
+     * Returns the current time of the clock.
+     *
+     * @return the current time in nanoseconds, relative to an arbitrary origin
+     */
+    long nanoTime();
+}
@@ -2,27 +2,47 @@
 
 import lombok.AccessLevel;
 import lombok.experimental.FieldDefaults;
+import org.akazukin.annotation.marker.Immutable;
+import org.akazukin.annotation.marker.ThreadSafe;
 import org.akazukin.util.interfaces.Resettable;
+import org.jetbrains.annotations.NotNull;
 
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
  * A utility class that provides functionality for tracking elapsed time with support for pausing,
  * resuming, and checking the time passed in various units.
  * <p>
- * This class is thread-safe for operations involving pausing and resuming the timer.
+ * This class is thread-safe and lock-free. The start and pause times are held in a single immutable state
+ * that is replaced atomically, so one timer can be paused, resumed and read from many threads,
+ * and readers always see a consistent state.
  * It implements the {@link Resettable} interface, allowing the timer to be reset
  * to its initial state.
+ * <p>
+ * The time is read from a {@link NanoClock}, the system clock by default.
+ * Timers checked in hot loops can share a {@link CachedNanoClock} to read the time with a single volatile load.
  */
+@ThreadSafe
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public final class Timer implements Resettable {
-    /**
-     * The Time.
-     */
-    long startedTime = -1;
-    long pausedAtTime = -1;
+    private static final AtomicReferenceFieldUpdater<Timer, State> STATE =
+            AtomicReferenceFieldUpdater.newUpdater(Timer.class, State.class, "state");
+
+    final NanoClock clock;
+    volatile State state;
 
     public Timer() {
+        this(NanoClock.SYSTEM);
+    }
+
+    /**
+     * Constructs a timer that reads the time from the specified clock, started at its current time.
+     *
+     * @param clock the clock. Must not be {@code null}.
+     */
+    public Timer(@NotNull final NanoClock clock) {
+        this.clock = clock;
         this.reset();
     }
 
@@ -30,13 +50,12 @@ public Timer() {
      * Resets the timer to its initial state.
      * <p>
      * This method updates the internal state of the timer,
-     * setting the start time to the current system time in nanoseconds,
+     * setting the start time to the current time of the clock in nanoseconds,
      * and marking the paused time as inactive.
      */
     @Override
     public void reset() {
-        this.startedTime = System.nanoTime();
-        this.pausedAtTime = -1;
+        this.state = new State(this.clock.nanoTime(), false, 0);
     }
 
     /**
@@ -49,7 +68,17 @@ public void reset() {
      * otherwise {@code false}.
      */
     public boolean hasPassedTime(final TimeHolder holder) {
-        return this.getLeftTime(holder).toConvert(TimeUnit.NANOSECONDS) <= 0;
+        return this.hasPassedNanos(holder.toConvert(TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Checks if the specified time has passed, without allocating.
+     *
+     * @param nanos the time to check, in nanoseconds.
+     * @return {@code true} if at least the specified time has passed, otherwise {@code false}.
+     */
+    public boolean hasPassedNanos(final long nanos) {
+        return this.passedNanos() >= nanos;
     }
 
     /**
@@ -62,12 +91,17 @@ public boolean hasPassedTime(final TimeHolder holder) {
      * The resulting time is calculated in nanoseconds.
      */
     public TimeHolder getLeftTime(final TimeHolder holder) {
-        final long passedNs = this.getPassedTime().toConvert(TimeUnit.NANOSECONDS);
-        final long reqNs = holder.toConvert(TimeUnit.NANOSECONDS);
+        return new TimeHolder(this.leftNanos(holder.toConvert(TimeUnit.NANOSECONDS)), TimeUnit.NANOSECONDS);
+    }
 
-        final TimeHolder res = new TimeHolder();
-        res.addTime(reqNs - passedNs, TimeUnit.NANOSECONDS);
-        return res;
+    /**
+     * Calculates the remaining time until the specified time has passed, without allocating.
+     *
+     * @param nanos the total time to compare against, in nanoseconds.
+     * @return the remaining time in nanoseconds, negative if the time has already passed.
+     */
+    public long leftNanos(final long nanos) {
+        return nanos - this.passedNanos();
     }
 
     /**
@@ -78,24 +112,34 @@ public TimeHolder getLeftTime(final TimeHolder holder) {
      * @return the elapsed time encapsulated within a {@link TimeHolder}.
      */
     public TimeHolder getPassedTime() {
-        final long passedNs = System.nanoTime() - this.startedTime -
-                (this.pausedAtTime != -1 ? System.nanoTime() - this.pausedAtTime : 0);
+        return new TimeHolder(this.passedNanos(), TimeUnit.NANOSECONDS);
+    }
 
-        final TimeHolder holder = new TimeHolder();
-        holder.addTime(passedNs, TimeUnit.NANOSECONDS);
-        return holder;
+    /**
+     * Calculates the elapsed time since the {@link Timer} was started or last reset,
+     * subtracting any paused duration, without allocating.
+     *
+     * @return the elapsed time in nanoseconds.
+     */
+    public long passedNanos() {
+        final State state = this.state;
+        return (state.paused ? state.pausedAt : this.clock.nanoTime()) - state.startedTime;
     }
 
     /**
      * Pauses the timer.
      * If the timer is already paused, calling this method has no effect.
      * <p>
-     * This method ensures thread safety by synchronizing access.
+     * Concurrent calls to this method and {@link #resume()} are resolved without locking.
      */
-    public synchronized void pause() {
-        if (this.pausedAtTime == -1) {
-            this.pausedAtTime = System.nanoTime();
-        }
+    public void pause() {
+        State state;
+        do {
+            state = this.state;
+            if (state.paused) {
+                return;
+            }
+        } while (!STATE.compareAndSet(this, state, new State(state.startedTime, true, this.clock.nanoTime())));
     }
 
     /**
@@ -104,13 +148,15 @@ public synchronized void pause() {
      * This method adjusts the timer's internal state to exclude the paused duration
      * from the total elapsed time. If the timer is not paused, this method returns immediately.
      */
-    public synchronized void resume() {
-        if (this.pausedAtTime == -1) {
-            return;
-        }
-
-        this.startedTime += System.nanoTime() - this.pausedAtTime;
-        this.pausedAtTime = -1;
+    public void resume() {
+        State state;
+        do {
+            state = this.state;
+            if (!state.paused) {
+                return;
+            }
+        } while (!STATE.compareAndSet(this, state,
+                new State(state.startedTime + this.clock.nanoTime() - state.pausedAt, false, 0)));
     }
 
     /**
@@ -119,6 +165,29 @@ public synchronized void resume() {
      * @return true if the timer is paused, otherwise false
      */
     public boolean isPaused() {
-        return this.pausedAtTime != -1;
+        return this.state.paused;
+    }
+
+    /**
+     * A snapshot of the timer, replaced as a whole whenever the timer is reset, paused or resumed.
+     */
+    @Immutable
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    private static final class State {
+        /**
+         * The time of the clock the timer counts from, shifted forward by the time spent paused.
+         */
+        long startedTime;
+        boolean paused;
+        /**
+         * The time of the clock at which the timer was paused, meaningful only while {@link #paused} is set.
+         */
+        long pausedAt;
+
+        State(final long startedTime, final boolean paused, final long pausedAt) {
+            this.startedTime = startedTime;
+            this.paused = paused;
+            this.pausedAt = pausedAt;
+        }
     }
 }
@@ -1,16 +1,25 @@
 package org.akazukin.util.time.scheduler;
 
 import lombok.AccessLevel;
+import lombok.Getter;
 import lombok.Setter;
 import lombok.experimental.FieldDefaults;
 import org.akazukin.annotation.marker.ThreadSafe;
-import org.akazukin.util.object.Pair;
+import org.akazukin.util.time.NanoClock;
 import org.akazukin.util.time.TimeHolder;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 /**
@@ -21,22 +30,93 @@
  * to handle exceptions during task execution via a configurable consumer.
  * The Scheduler also supports graceful shutdown to manage lifecycle effectively.
  * <p>
+ * The call site of every scheduling call is recorded according to the {@link StackCapturePolicy},
+ * and is attached as the root cause of exceptions thrown by the task.
+ * <p>
+ * Tasks are registered in a lock-striped map keyed by the primitive id,
+ * so scheduling and cancelling tasks with different ids from many threads rarely contend.
+ * <p>
+ * Looping tasks are scheduled as a chain of one-time tasks, each planning the next run once the previous one has ended,
+ * so every subclass applies the {@link MissedTickPolicy} in the same way and runs of a task never overlap.
+ * Subclasses therefore only implement one-time delays.
+ * <p>
+ * Once {@link PriorityLanes} are set, fired tasks are handed to the lane of their {@link TaskPriority}
+ * instead of running on the threads of the scheduler, which then only keep time.
+ * Tasks scheduled without a priority use {@link TaskPriority#NORMAL}.
+ * <p>
+ * Execution metrics are opt-in through {@link #setMetricsEnabled(boolean)};
+ * while disabled, running a task records nothing.
+ * <p>
+ * Tasks scheduled with a group tag join the group of the tag, which {@link #cancelGroup(String)} cancels
+ * in constant time by advancing its generation. The tasks of a cancelled group are no longer scheduled,
+ * but are only unregistered, and their handles cancelled, once they come due.
+ * <p>
+ * Runs are timed and chained loops are planned with the {@link NanoClock} of the scheduler,
+ * while the delays themselves are kept by the timer of each implementation.
+ * <p>
  * The class is thread-safe and can be used concurrently
  * by multiple threads without the need for synchronization.
  */
 @FieldDefaults(level = AccessLevel.PROTECTED)
 @ThreadSafe
 public abstract class AScheduler<T> implements IScheduler {
-    private static final String EXCE_TRACE = "Scheduler stack trace. The stack trace is called from controller thread.";
-
-    final Map<Long, Pair<Object, T>> tasks = new HashMap<>();
+    final TaskRegistry<T> tasks = new TaskRegistry<>();
+    /**
+     * The clock runs are timed and chained loops are planned with.
+     */
+    @NotNull
+    @Getter
+    final NanoClock clock;
+    /**
+     * The groups by their tag. A group is removed once it is cancelled.
+     */
+    final ConcurrentMap<String, TaskRegistry.Group> groups = new ConcurrentHashMap<>();
     @Nullable
     @Setter
     Consumer<Throwable> throwableConsumer;
+    /**
+     * How much of the scheduling call site is recorded for each task.
+     */
+    @NotNull
+    @Getter
+    volatile StackCapturePolicy stackCapturePolicy = StackCapturePolicy.ALWAYS;
+    /**
+     * The execution metrics, or {@code null} if metrics are disabled.
+     */
+    @Nullable
+    volatile SchedulerMetrics metrics;
+    /**
+     * The lanes fired tasks are dispatched to, or {@code null} to run them on the threads of the scheduler.
+     */
+    @Nullable
+    @Getter
+    volatile PriorityLanes lanes;
 
-    private static void processExce(final Throwable t, final Throwable cause) {
+    /**
+     * Constructs a scheduler that reads the time from the system clock.
+     */
+    protected AScheduler() {
+        this(NanoClock.SYSTEM);
+    }
+
+    /**
+     * Constructs a scheduler that reads the time from the specified clock.
+     *
+     * @param clock the clock. Must not be {@code null}.
+     */
+    protected AScheduler(@NotNull final NanoClock clock) {
+        this.clock = clock;
+    }
+
+    private static void processExce(final Throwable t, @Nullable final Throwable cause) {
+        if (cause == null) {
+            return;
+        }
         Throwable t_ = t;
         while (true) {
+            if (t_ == cause) {
+                return;
+            }
             if (t_.getCause() == null) {
                 t_.initCause(cause);
                 break;
@@ -45,23 +125,89 @@ private static void processExce(final Throwable t, final Throwable cause) {
         }
     }
 
-    protected boolean isScheduledInternal(final long id, final Object obj) {
-        return this.tasks.containsKey(id) && this.tasks.get(id).getKey() == obj;
+    /**
+     * Sets how much of the scheduling call site is recorded for each task.
+     * The recorded call site is attached as the root cause of exceptions thrown by the task.
+     * Tasks already scheduled keep what was recorded for them.
+     *
+     * @param stackCapturePolicy the policy. Defaults to {@link StackCapturePolicy#ALWAYS}.
+     */
+    public void setStackCapturePolicy(@NotNull final StackCapturePolicy stackCapturePolicy) {
+        if (stackCapturePolicy == null) {
+            throw new NullPointerException("stackCapturePolicy");
+        }
+        this.stackCapturePolicy = stackCapturePolicy;
+    }
+
+    /**
+     * Enables or disables the execution metrics.
+     * Only tasks scheduled while metrics are enabled are recorded,
+     * and disabling metrics discards everything recorded so far.
+     *
+     * @param enabled {@code true} to enable the metrics
+     */
+    public synchronized void setMetricsEnabled(final boolean enabled) {
+        if (!enabled) {
+            this.metrics = null;
+        } else if (this.metrics == null) {
+            this.metrics = new SchedulerMetrics();
+        }
+    }
+
+    public boolean isMetricsEnabled() {
+        return this.metrics != null;
+    }
+
+    /**
+     * Returns a snapshot of the execution metrics aggregated over all tasks.
+     *
+     * @return the snapshot, or {@code null} if metrics are disabled
+     */
+    @Nullable
+    public SchedulerMetrics.Snapshot getMetrics() {
+        final SchedulerMetrics metrics = this.metrics;
+        return metrics == null ? null : metrics.snapshot(this.tasks.size());
+    }
+
+    /**
+     * Returns a snapshot of the execution metrics of a registered task.
+     * The metrics of a one-time task are dropped once it has run.
+     *
+     * @param id the task id
+     * @return the snapshot, or {@code null} if no task is registered with the id
+     * or the task was scheduled while metrics were disabled
+     */
+    @Nullable
+    public SchedulerMetrics.Snapshot getMetrics(final long id) {
+        final TaskRegistry.Entry<T> entry = this.tasks.get(id);
+        return entry == null || entry.metrics == null ? null : entry.metrics.snapshot();
+    }
+
+    /**
+     * Sets the lanes that fired tasks are dispatched to by their priority.
+     * Only tasks scheduled after this call are affected.
+     * The scheduler does not close the lanes.
+     *
+     * @param lanes the lanes, or {@code null} to run fired tasks on the threads of the scheduler
+     */
+    public void setLanes(@Nullable final PriorityLanes lanes) {
+        this.lanes = lanes;
     }
 
     @Override
     public boolean isScheduled(final long id) {
-        return this.tasks.containsKey(id);
+        final TaskRegistry.Entry<T> entry = this.tasks.get(id);
+        return entry != null && !entry.isStale();
     }
 
     /**
      * Cancels all currently scheduled tasks in the scheduler.
      */
     @Override
-    public synchronized void cancelAllTasks() {
-        this.tasks.values()
-                .forEach(p -> this.cancelInternal(p.getValue()));
-        this.tasks.clear();
+    public void cancelAllTasks() {
+        for (final TaskRegistry.Entry<T> entry : this.tasks.clear()) {
+            this.cancel(entry);
+        }
     }
 
     @Override
@@ -71,54 +217,153 @@ public boolean scheduleTask(final long id, @NotNull final Runnable task, final T
 
     @Override
     public boolean scheduleTask(final long id, @NotNull final Runnable task, final TimeHolder delay, final boolean override) {
-        final IllegalStateException detailExce = new IllegalStateException(EXCE_TRACE);
-        final Object obj = new Object();
-        final Runnable timerTask = () -> {
-            try {
-                task.run();
-            } catch (final Throwable t) {
-                processExce(t, detailExce);
-                this.consumeThrowable(t);
+        return this.scheduleTask(id, task, delay, TaskPriority.NORMAL, override);
+    }
+
+    @Override
+    public boolean scheduleTask(final long id, @NotNull final Runnable task, final TimeHolder delay,
+                                @NotNull final TaskPriority priority, final boolean override) {
+        final Throwable detailExce = this.stackCapturePolicy.capture();
+        try {
+            final TaskRegistry.Segment<T> segment = this.tasks.segment(id);
+            final TaskRegistry.Entry<T> entry;
+            synchronized (segment) {
+                entry = this.scheduleInSegment(segment, id, task, delay, priority, null, override, detailExce);
             }
-            synchronized (this) {
-                if (this.isScheduledInternal(id, obj)) {
-                    this.tasks.remove(id);
-                }
+            return this.cancelReplaced(entry);
+        } catch (final Throwable t) {
+            this.consumeThrowable(t);
+            throw t;
+        }
+    }
+
+    @Override
+    public boolean scheduleTask(final long id, @NotNull final Runnable task, final TimeHolder delay,
+                                @NotNull final String group, final boolean override) {
+        final Throwable detailExce = this.stackCapturePolicy.capture();
+        try {
+            final TaskRegistry.Segment<T> segment = this.tasks.segment(id);
+            final TaskRegistry.Entry<T> entry;
+            synchronized (segment) {
+                entry = this.scheduleInSegment(segment, id, task, delay, TaskPriority.NORMAL, group, override,
+                        detailExce);
             }
-        };
+            return this.cancelReplaced(entry);
+        } catch (final Throwable t) {
+            this.consumeThrowable(t);
+            throw t;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Only the generation of the group is advanced, so the cost does not depend on the number of its tasks.
+     * The tasks are unregistered, and their handles cancelled, once they come due.
+     */
+    @Override
+    public boolean cancelGroup(@NotNull final String group) {
+        final TaskRegistry.Group removed = this.groups.remove(group);
+        if (removed == null) {
+            return false;
+        }
+        removed.generation.incrementAndGet();
+        return true;
+    }
+
+    @Override
+    public int scheduleTasks(final long[] ids, final Runnable[] tasks, final TimeHolder delay, final boolean override) {
+        checkBatch(ids, tasks);
+        final Throwable detailExce = this.stackCapturePolicy.capture();
+        final int[] bounds = new int[this.tasks.segmentCount() + 1];
+        final int[] order = this.tasks.groupBySegment(ids, bounds);
 
+        final List<TaskRegistry.Entry<T>> added = new ArrayList<>(ids.length);
         try {
-            synchronized (this) {
-                if (override) {
-                    final Pair<Object, T> e = this.tasks.remove(id);
-                    if (e != null) {
-                        this.cancelInternal(e.getValue());
-                    }
-                } else {
-                    if (this.tasks.containsKey(id)) {
-                        return false;
+            for (int s = 0; s < bounds.length - 1; s++) {
+                if (bounds[s] == bounds[s + 1]) {
+                    continue;
+                }
+                final TaskRegistry.Segment<T> segment = this.tasks.segmentAt(s);
+                synchronized (segment) {
+                    for (int k = bounds[s]; k < bounds[s + 1]; k++) {
+                        final int i = order[k];
+                        final TaskRegistry.Entry<T> entry = this.scheduleInSegment(segment, ids[i], tasks[i], delay,
+                                TaskPriority.NORMAL, null, override, detailExce);
+                        if (entry != null) {
+                            added.add(entry);
+                        }
                     }
                 }
-
-                this.tasks.put(id, this.createPairScheduleInternal(obj, timerTask, delay));
             }
         } catch (final Throwable t) {
             this.consumeThrowable(t);
             throw t;
+        } finally {
+            for (final TaskRegistry.Entry<T> entry : added) {
+                this.cancelReplaced(entry);
+            }
         }
-        return true;
+        return added.size();
+    }
+
+    @Nullable
+    private TaskRegistry.Entry<T> scheduleInSegment(final TaskRegistry.Segment<T> segment, final long id,
+                                                    final Runnable task, final TimeHolder delay,
+                                                    final TaskPriority priority, @Nullable final String group,
+                                                    final boolean override, @Nullable final Throwable detailExce) {
+        final TaskRegistry.Entry<T> entry = new TaskRegistry.Entry<>(id);
+        if (!this.prepareSlot(segment, entry, override)) {
+            return null;
+        }
+
+        entry.metrics = this.newTaskMetrics(delay);
+        if (group != null) {
+            this.joinGroup(entry, group);
+        }
+        this.publish(segment, entry, new OneShot(entry, task, detailExce, this.lanes, priority), delay);
+        return entry;
     }
 
     @Override
     public void cancelTask(final long id) {
-        final Pair<Object, T> task;
-        synchronized (this) {
-            task = this.tasks.remove(id);
+        final TaskRegistry.Entry<T> entry = this.tasks.remove(id);
+        if (entry != null) {
+            this.cancel(entry);
         }
-        if (task == null) {
+        if (entry == null || entry.isStale()) {
             throw new IllegalArgumentException("Task not found: " + id);
         }
-        this.cancelInternal(task.getValue());
+    }
+
+    @Override
+    public int cancelTasks(final long[] ids) {
+        final int[] bounds = new int[this.tasks.segmentCount() + 1];
+        final int[] order = this.tasks.groupBySegment(ids, bounds);
+        final List<TaskRegistry.Entry<T>> removed = new ArrayList<>(ids.length);
+        for (int s = 0; s < bounds.length - 1; s++) {
+            if (bounds[s] == bounds[s + 1]) {
+                continue;
+            }
+            final TaskRegistry.Segment<T> segment = this.tasks.segmentAt(s);
+            synchronized (segment) {
+                for (int k = bounds[s]; k < bounds[s + 1]; k++) {
+                    final TaskRegistry.Entry<T> entry = segment.remove(ids[order[k]]);
+                    if (entry != null) {
+                        removed.add(entry);
+                    }
+                }
+            }
+        }
+
+        int cancelled = 0;
+        for (final TaskRegistry.Entry<T> entry : removed) {
+            this.cancel(entry);
+            if (!entry.isStale()) {
+                cancelled++;
+            }
+        }
+        return cancelled;
     }
 
     @Override
@@ -128,67 +373,559 @@ public boolean scheduleLoopingTask(final long id, @NotNull final Runnable task,
 
     @Override
     public boolean scheduleLoopingTask(final long id, @NotNull final Runnable task, final TimeHolder delay, final TimeHolder interval, final boolean override) {
-        final Object obj = new Object();
-        final IllegalStateException detailExce = new IllegalStateException(EXCE_TRACE);
-        final Runnable timerTask = () -> {
-            try {
-                task.run();
-            } catch (final Throwable t) {
-                processExce(t, detailExce);
-                this.consumeThrowable(t);
+        return this.scheduleLoopingTask(id, task, delay, interval, MissedTickPolicy.FIXED_RATE, TaskPriority.NORMAL, override);
+    }
+
+    @Override
+    public boolean scheduleLoopingTask(final long id, @NotNull final Runnable task, final TimeHolder delay,
+                                       final TimeHolder interval, @NotNull final MissedTickPolicy policy,
+                                       final boolean override) {
+        return this.scheduleLoopingTask(id, task, delay, interval, policy, TaskPriority.NORMAL, override);
+    }
+
+    @Override
+    public boolean scheduleLoopingTask(final long id, @NotNull final Runnable task, final TimeHolder delay,
+                                       final TimeHolder interval, @NotNull final MissedTickPolicy policy,
+                                       @NotNull final TaskPriority priority, final boolean override) {
+        final Throwable detailExce = this.stackCapturePolicy.capture();
+        try {
+            final long intervalNanos = checkInterval(interval);
+            final TaskRegistry.Segment<T> segment = this.tasks.segment(id);
+            final TaskRegistry.Entry<T> entry;
+            synchronized (segment) {
+                entry = this.scheduleLoopInSegment(segment, id, task, delay, intervalNanos, policy, priority, null,
+                        override, detailExce);
+            }
+            return this.cancelReplaced(entry);
+        } catch (final Throwable t) {
+            this.consumeThrowable(t);
+            throw t;
+        }
+    }
+
+    @Override
+    public boolean scheduleLoopingTask(final long id, @NotNull final Runnable task, final TimeHolder delay,
+                                       final TimeHolder interval, @NotNull final String group, final boolean override) {
+        final Throwable detailExce = this.stackCapturePolicy.capture();
+        try {
+            final long intervalNanos = checkInterval(interval);
+            final TaskRegistry.Segment<T> segment = this.tasks.segment(id);
+            final TaskRegistry.Entry<T> entry;
+            synchronized (segment) {
+                entry = this.scheduleLoopInSegment(segment, id, task, delay, intervalNanos,
+                        MissedTickPolicy.FIXED_RATE, TaskPriority.NORMAL, group, override, detailExce);
             }
-        };
+            return this.cancelReplaced(entry);
+        } catch (final Throwable t) {
+            this.consumeThrowable(t);
+            throw t;
+        }
+    }
+
+    @Override
+    public int scheduleLoopingTasks(final long[] ids, final Runnable[] tasks, final TimeHolder delay,
+                                    final TimeHolder interval, final boolean override) {
+        checkBatch(ids, tasks);
+        final Throwable detailExce = this.stackCapturePolicy.capture();
+        final int[] bounds = new int[this.tasks.segmentCount() + 1];
+        final int[] order = this.tasks.groupBySegment(ids, bounds);
 
+        final List<TaskRegistry.Entry<T>> added = new ArrayList<>(ids.length);
         try {
-            synchronized (this) {
-                if (override) {
-                    final Pair<Object, T> e = this.tasks.remove(id);
-                    if (e != null) {
-                        this.cancelInternal(e.getValue());
-                    }
-                } else {
-                    if (this.tasks.containsKey(id)) {
-                        return false;
+            final long intervalNanos = checkInterval(interval);
+            for (int s = 0; s < bounds.length - 1; s++) {
+                if (bounds[s] == bounds[s + 1]) {
+                    continue;
+                }
+                final TaskRegistry.Segment<T> segment = this.tasks.segmentAt(s);
+                synchronized (segment) {
+                    for (int k = bounds[s]; k < bounds[s + 1]; k++) {
+                        final int i = order[k];
+                        final TaskRegistry.Entry<T> entry = this.scheduleLoopInSegment(segment, ids[i], tasks[i],
+                                delay, intervalNanos, MissedTickPolicy.FIXED_RATE, TaskPriority.NORMAL, null,
+                                override, detailExce);
+                        if (entry != null) {
+                            added.add(entry);
+                        }
                     }
                 }
+            }
+        } catch (final Throwable t) {
+            this.consumeThrowable(t);
+            throw t;
+        } finally {
+            for (final TaskRegistry.Entry<T> entry : added) {
+                this.cancelReplaced(entry);
+            }
+        }
+        return added.size();
+    }
+
+    @Nullable
+    private TaskRegistry.Entry<T> scheduleLoopInSegment(final TaskRegistry.Segment<T> segment, final long id,
+                                                        final Runnable task, final TimeHolder delay,
+                                                        final long intervalNanos, final MissedTickPolicy policy,
+                                                        final TaskPriority priority, @Nullable final String group,
+                                                        final boolean override,
+                                                        @Nullable final Throwable detailExce) {
+        final TaskRegistry.Entry<T> entry = new TaskRegistry.Entry<>(id);
+        if (!this.prepareSlot(segment, entry, override)) {
+            return null;
+        }
+
+        if (group != null) {
+            this.joinGroup(entry, group);
+        }
+        // Each run plans the next one itself, so runs never overlap or pile up in the lanes
+        entry.metrics = this.newTaskMetrics(delay);
+        final PlannedLoop loop = new PlannedLoop(entry, task, detailExce, policy, intervalNanos,
+                this.clock.nanoTime() + delay.toConvert(TimeUnit.NANOSECONDS), this.lanes, priority, null, null);
+        this.publish(segment, entry, loop, delay);
+        return entry;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The task is scheduled as a chain of one-time tasks, each computing the next fire time from the expression,
+     * so it is not woken between its fire times. Fired runs are dispatched to the lanes, if any,
+     * with {@link TaskPriority#NORMAL}.
+     */
+    @Override
+    public boolean scheduleCronTask(final long id, @NotNull final Runnable task, @NotNull final CronExpression cron,
+                                    @NotNull final ZoneId zone, final boolean override) {
+        final Throwable detailExce = this.stackCapturePolicy.capture();
+        try {
+            final long now = System.currentTimeMillis();
+            final long fireAt = nextCronFire(cron, zone, now);
+            if (fireAt < 0) {
+                throw new IllegalArgumentException("Cron expression never fires: " + cron);
+            }
+
+            final TaskRegistry.Segment<T> segment = this.tasks.segment(id);
+            final TaskRegistry.Entry<T> entry = new TaskRegistry.Entry<>(id);
+            synchronized (segment) {
+                if (!this.prepareSlot(segment, entry, override)) {
+                    return false;
+                }
 
-                this.tasks.put(id, this.createPairScheduleLoopInternal(obj, timerTask, delay, interval));
+                final TimeHolder delay = new TimeHolder(fireAt - now, TimeUnit.MILLISECONDS);
+                entry.metrics = this.newTaskMetrics(delay);
+                final PlannedLoop loop = new PlannedLoop(entry, task, detailExce, null, 0,
+                        this.clock.nanoTime() + delay.toConvert(TimeUnit.NANOSECONDS), this.lanes, TaskPriority.NORMAL,
+                        cron, zone);
+                loop.fireAt = fireAt;
+                this.publish(segment, entry, loop, delay);
             }
+            return this.cancelReplaced(entry);
         } catch (final Throwable t) {
             this.consumeThrowable(t);
             throw t;
         }
+    }
+
+    /**
+     * Returns the next fire time of a cron expression strictly after the specified time.
+     *
+     * @return the fire time in milliseconds since the epoch, or {@code -1} if the expression never fires
+     */
+    private static long nextCronFire(final CronExpression cron, final ZoneId zone, final long after) {
+        final ZonedDateTime next = cron.nextFireAfter(Instant.ofEpochMilli(after).atZone(zone));
+        return next == null ? -1 : next.toInstant().toEpochMilli();
+    }
+
+    /**
+     * Makes the task join the group of the specified tag, creating the group if needed.
+     */
+    private void joinGroup(final TaskRegistry.Entry<T> entry, final String tag) {
+        while (true) {
+            final TaskRegistry.Group group = this.groups.computeIfAbsent(tag, TaskRegistry.Group::new);
+            entry.group = group;
+            entry.generation = group.generation.get();
+            // A group is removed before its generation advances, so a group still registered after reading
+            // the generation is either current or cancelled after the task joined it
+            if (this.groups.get(tag) == group) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Hands a fired task to its lane. If the lanes reject it, the task is unregistered.
+     */
+    private void dispatch(final PriorityLanes lanes, final TaskPriority priority, final Runnable run,
+                          final TaskRegistry.Entry<T> entry) {
+        try {
+            lanes.execute(priority, run);
+        } catch (final RejectedExecutionException e) {
+            this.tasks.remove(entry);
+            this.consumeThrowable(e);
+        }
+    }
+
+    /**
+     * Schedules the next run of a chained looping task, unless it was cancelled or replaced in the meantime.
+     */
+    private void reschedule(final PlannedLoop loop) {
+        final TaskRegistry.Segment<T> segment = this.tasks.segment(loop.entry.id);
+        synchronized (segment) {
+            if (segment.get(loop.entry.id) != loop.entry) {
+                return;
+            }
+
+            try {
+                loop.entry.handle = this.scheduleInternal(loop,
+                        new TimeHolder(Math.max(0, loop.planned - this.clock.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (final Throwable t) {
+                segment.remove(loop.entry);
+                this.consumeThrowable(t);
+            }
+        }
+    }
+
+    @Nullable
+    private SchedulerMetrics.TaskMetrics newTaskMetrics(final TimeHolder delay) {
+        final SchedulerMetrics metrics = this.metrics;
+        if (metrics == null) {
+            return null;
+        }
+        return metrics.newTask(this.clock.nanoTime() + delay.toConvert(TimeUnit.NANOSECONDS));
+    }
+
+    private void runTask(final Runnable task, @Nullable final Throwable detailExce,
+                         @Nullable final SchedulerMetrics.TaskMetrics metrics) {
+        final long start = metrics == null ? 0 : this.clock.nanoTime();
+        boolean failed = false;
+        try {
+            task.run();
+        } catch (final Throwable t) {
+            failed = true;
+            processExce(t, detailExce);
+            this.consumeThrowable(t);
+        }
+        if (metrics != null) {
+            metrics.recordRun(start, this.clock.nanoTime(), failed);
+        }
+    }
+
+    private static void checkBatch(final long[] ids, final Runnable[] tasks) {
+        if (ids.length != tasks.length) {
+            throw new IllegalArgumentException("ids and tasks differ in length: " + ids.length + " != " + tasks.length);
+        }
+    }
+
+    private static long checkInterval(final TimeHolder interval) {
+        final long nanos = interval.toConvert(TimeUnit.NANOSECONDS);
+        if (nanos <= 0) {
+            throw new IllegalArgumentException("interval must be positive: " + nanos + "ns");
+        }
+        return nanos;
+    }
+
+    /**
+     * Frees the id for a new task, unregistering the existing task if overriding is allowed
+     * or the group of the existing task was cancelled.
+     * The unregistered task is remembered by the new entry, and its handle is cancelled by
+     * {@link #cancelReplaced(TaskRegistry.Entry)} once the monitor is released.
+     * Must be called while holding the monitor of the segment.
+     *
+     * @return {@code false} if the id is taken and overriding is not allowed
+     */
+    private boolean prepareSlot(final TaskRegistry.Segment<T> segment, final TaskRegistry.Entry<T> entry,
+                                final boolean override) {
+        final TaskRegistry.Entry<T> existing = segment.get(entry.id);
+        if (existing == null) {
+            return true;
+        }
+        if (!override && !existing.isStale()) {
+            return false;
+        }
+
+        segment.remove(existing);
+        entry.replaced = existing;
+        return true;
+    }
+
+    /**
+     * Hands a new task to the backend and registers its entry. Must be called while holding the monitor of the segment.
+     * If the backend rejects the task, the task it was to replace is registered again.
+     */
+    private void publish(final TaskRegistry.Segment<T> segment, final TaskRegistry.Entry<T> entry,
+                         final Runnable task, final TimeHolder delay) {
+        try {
+            entry.handle = this.scheduleInternal(task, delay);
+        } catch (final Throwable t) {
+            if (entry.replaced != null) {
+                segment.add(entry.replaced);
+                entry.replaced = null;
+            }
+            throw t;
+        }
+        segment.add(entry);
+    }
+
+    /**
+     * Cancels the handle of the task replaced by a new entry. Must be called without holding the monitor of the segment.
+     *
+     * @param entry the new entry, or {@code null} if the task was not scheduled
+     * @return whether the task was scheduled
+     */
+    private boolean cancelReplaced(@Nullable final TaskRegistry.Entry<T> entry) {
+        if (entry == null) {
+            return false;
+        }
+        final TaskRegistry.Entry<T> replaced = entry.replaced;
+        if (replaced != null) {
+            entry.replaced = null;
+            this.cancel(replaced);
+        }
         return true;
     }
 
+    /**
+     * Cancels an unregistered task. The entry is marked first,
+     * so a run that has already fired and waits in a lane does not start.
+     */
+    private void cancel(final TaskRegistry.Entry<T> entry) {
+        entry.cancelled = true;
+        this.cancelInternal(entry.handle);
+    }
+
     protected void consumeThrowable(final Throwable t) {
         if (this.throwableConsumer != null) {
             this.throwableConsumer.accept(t);
         }
     }
 
+    /**
+     * Unregisters a fired task that the executor running it rejected, and reports the rejection.
+     * Backends that hand fired tasks to an executor call this instead of dropping the task silently.
+     *
+     * @param task the task passed to {@link #scheduleInternal(Runnable, TimeHolder)}
+     * @param e    the rejection
+     */
+    @SuppressWarnings("unchecked")
+    protected void rejectFired(@NotNull final Runnable task, @NotNull final RejectedExecutionException e) {
+        if (task instanceof FiredTask) {
+            this.tasks.remove((TaskRegistry.Entry<T>) ((FiredTask<?>) task).entry);
+        }
+        this.consumeThrowable(e);
+    }
+
 
     @Override
-    public synchronized long[] getAllScheduledTasks() {
-        return this.tasks.keySet().stream()
-                .mapToLong(id -> id)
-                .filter(this::isScheduled)
-                .toArray();
+    public long[] getAllScheduledTasks() {
+        final long[] ids = this.tasks.ids();
+        int size = 0;
+        for (final long id : ids) {
+            if (this.isScheduled(id)) {
+                ids[size++] = id;
+            }
+        }
+        return size == ids.length ? ids : Arrays.copyOf(ids, size);
     }
 
-    @NotNull
-    private Pair<Object, T> createPairScheduleLoopInternal(final Object obj, final Runnable task, final TimeHolder delay, final TimeHolder interval) {
-        return new Pair<>(obj, this.scheduleLoopInternal(task, delay, interval));
+    /**
+     * A task handed to the backend, which knows the registration it belongs to.
+     *
+     * @param <T> the type of the scheduler-specific task handle
+     */
+    private abstract static class FiredTask<T> implements Runnable {
+        final TaskRegistry.Entry<T> entry;
+
+        FiredTask(final TaskRegistry.Entry<T> entry) {
+            this.entry = entry;
+        }
     }
 
-    protected abstract T scheduleLoopInternal(Runnable task, TimeHolder delay, TimeHolder interval);
+    /**
+     * A one-time task. It runs on the thread of the backend, or in its lane if the scheduler has lanes.
+     */
+    private final class OneShot extends FiredTask<T> {
+        private final Runnable task;
+        @Nullable
+        private final Throwable detailExce;
+        @Nullable
+        private final PriorityLanes lanes;
+        private final TaskPriority priority;
 
-    @NotNull
-    private Pair<Object, T> createPairScheduleInternal(final Object obj, final Runnable task, final TimeHolder delay) {
-        return new Pair<>(obj, this.scheduleInternal(task, delay));
+        private OneShot(final TaskRegistry.Entry<T> entry, final Runnable task, @Nullable final Throwable detailExce,
+                        @Nullable final PriorityLanes lanes, final TaskPriority priority) {
+            super(entry);
+            this.task = task;
+            this.detailExce = detailExce;
+            this.lanes = lanes;
+            this.priority = priority;
+        }
+
+        @Override
+        public void run() {
+            if (this.lanes == null) {
+                this.execute();
+            } else {
+                AScheduler.this.dispatch(this.lanes, this.priority, this::execute, this.entry);
+            }
+        }
+
+        private void execute() {
+            if (!this.entry.cancelled && !this.entry.isStale()) {
+                AScheduler.this.runTask(this.task, this.detailExce, this.entry.metrics);
+            }
+            AScheduler.this.tasks.remove(this.entry);
+        }
+    }
+
+    /**
+     * A looping task scheduled as a chain of one-time tasks,
+     * where each run plans the next one according to its {@link MissedTickPolicy} or its {@link CronExpression}.
+     * Each run happens-before the next, so the planned time needs no synchronization.
+     * Fired runs are dispatched to the lanes, if any, and the next run is only scheduled once the previous one ended.
+     */
+    private final class PlannedLoop extends FiredTask<T> {
+        private final Runnable task;
+        @Nullable
+        private final Throwable detailExce;
+        /**
+         * The missed-tick policy, or {@code null} if the loop follows a cron expression.
+         */
+        @Nullable
+        private final MissedTickPolicy policy;
+        private final long interval;
+        @Nullable
+        private final PriorityLanes lanes;
+        private final TaskPriority priority;
+        @Nullable
+        private final CronExpression cron;
+        @Nullable
+        private final ZoneId zone;
+        /**
+         * The time of the clock at which the current run is planned.
+         */
+        private long planned;
+        /**
+         * The wall-clock time in milliseconds since the epoch at which the current run of a cron loop is planned.
+         */
+        private long fireAt;
+        /**
+         * Whether the previous fire of a {@link MissedTickPolicy#SKIP_TO_NEXT} loop was dropped.
+         */
+        private boolean skipped;
+
+        private PlannedLoop(final TaskRegistry.Entry<T> entry, final Runnable task,
+                            @Nullable final Throwable detailExce, @Nullable final MissedTickPolicy policy,
+                            final long interval, final long planned,
+                            @Nullable final PriorityLanes lanes, final TaskPriority priority,
+                            @Nullable final CronExpression cron, @Nullable final ZoneId zone) {
+            super(entry);
+            this.task = task;
+            this.detailExce = detailExce;
+            this.policy = policy;
+            this.interval = interval;
+            this.planned = planned;
+            this.lanes = lanes;
+            this.priority = priority;
+            this.cron = cron;
+            this.zone = zone;
+        }
+
+        /**
+         * Fires the current run, called by the scheduler.
+         */
+        @Override
+        public void run() {
+            if (this.entry.cancelled) {
+                return;
+            }
+            if (this.entry.isStale()) {
+                AScheduler.this.tasks.remove(this.entry);
+                return;
+            }
+            if (this.lanes == null) {
+                this.execute();
+            } else {
+                AScheduler.this.dispatch(this.lanes, this.priority, this::execute, this.entry);
+            }
+        }
+
+        private void execute() {
+            // Checked again, as a run dispatched to a lane may have waited there past a cancellation
+            if (this.entry.cancelled) {
+                return;
+            }
+            if (this.entry.isStale()) {
+                AScheduler.this.tasks.remove(this.entry);
+                return;
+            }
+            final long start = AScheduler.this.clock.nanoTime();
+            if (this.cron != null) {
+                AScheduler.this.runTask(this.task, this.detailExce, this.entry.metrics);
+                // A run fired slightly early by a coarse timer must not match its own fire time again
+                final long now = System.currentTimeMillis();
+                final long fireAt = nextCronFire(this.cron, this.zone, Math.max(now, this.fireAt));
+                if (fireAt < 0) {
+                    AScheduler.this.tasks.remove(this.entry);
+                    return;
+                }
+                this.fireAt = fireAt;
+                this.planned = AScheduler.this.clock.nanoTime() + TimeUnit.MILLISECONDS.toNanos(fireAt - now);
+            } else if (this.policy == MissedTickPolicy.SKIP_TO_NEXT && !this.skipped
+                    && start - this.planned > this.interval) {
+                // Stalled past the next tick; drop this one. The fire planned by the skip always runs,
+                // as a backend whose resolution is coarser than the interval fires every tick that late.
+                this.skipped = true;
+                this.planned = this.nextTickAfter(start);
+            } else {
+                this.skipped = false;
+                AScheduler.this.runTask(this.task, this.detailExce, this.entry.metrics);
+                final long end = AScheduler.this.clock.nanoTime();
+                switch (this.policy) {
+                    case FIXED_RATE:
+                        this.planned += this.interval;
+                        break;
+                    case FIXED_DELAY:
+                        this.planned = end + this.interval;
+                        break;
+                    case SKIP_TO_NEXT:
+                        this.planned = this.nextTickAfter(end);
+                        break;
+                    default:
+                        // Ticks missed during the run collapse into a single run on the latest of them
+                        this.planned = end - this.planned < this.interval
+                                ? this.planned + this.interval
+                                : this.planned + (end - this.planned) / this.interval * this.interval;
+                        break;
+                }
+            }
+
+            if (this.entry.metrics != null) {
+                this.entry.metrics.plan(this.planned);
+            }
+            AScheduler.this.reschedule(this);
+        }
+
+        private long nextTickAfter(final long time) {
+            return this.planned + ((time - this.planned) / this.interval + 1) * this.interval;
+        }
     }
 
+    /**
+     * Hands a one-time task to the backend.
+     * <p>
+     * This is called while holding the monitor of the registry segment of the task,
+     * so that the handle is set before the task is registered and a concurrent cancellation always finds it.
+     * Implementations must therefore only enqueue the task, without blocking or running it on the calling thread.
+     *
+     * @param task  the task
+     * @param delay the delay before the task runs
+     * @return the handle of the task
+     */
     protected abstract T scheduleInternal(Runnable task, TimeHolder delay);
 
+    /**
+     * Cancels a task handed to the backend, interrupting it if it is running and the backend supports it.
+     * This is never called while holding a monitor of the registry.
+     *
+     * @param task the handle of the task
+     */
     protected abstract void cancelInternal(@NotNull T task);
 }
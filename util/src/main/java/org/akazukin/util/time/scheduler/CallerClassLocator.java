@@ -0,0 +1,46 @@
+package org.akazukin.util.time.scheduler;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Finds the class that called into a scheduler.
+ * <p>
+ * This implementation reads the class context of a security manager, which is cheaper than filling a stack trace.
+ * The multi-release jar replaces it with a {@code StackWalker} based implementation on Java 9 and later.
+ */
+final class CallerClassLocator {
+    private static final ClassContext CONTEXT = new ClassContext();
+
+    private CallerClassLocator() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Returns the innermost class on the current stack that is neither a scheduler nor part of the capture machinery.
+     *
+     * @return the calling class, or {@code null} if it cannot be determined
+     */
+    @Nullable
+    static Class<?> find() {
+        for (final Class<?> c : CONTEXT.getClassContext()) {
+            if (!isInternal(c)) {
+                return c;
+            }
+        }
+        return null;
+    }
+
+    static boolean isInternal(final Class<?> c) {
+        return IScheduler.class.isAssignableFrom(c)
+                || c == StackCapturePolicy.class
+                || c == CallerClassLocator.class
+                || c == ClassContext.class;
+    }
+
+    private static final class ClassContext extends SecurityManager {
+        @Override
+        protected Class<?>[] getClassContext() {
+            return super.getClassContext();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package org.akazukin.util.time.scheduler;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.akazukin.annotation.marker.ThreadSafe;
+import org.akazukin.util.time.TimeHolder;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * Collapses the triggers of a fixed window into a single batch.
+ * <p>
+ * The first trigger opens a window and schedules the batch at its end.
+ * Triggers within the window are only counted, so only the trigger opening a window allocates,
+ * and the batch receives the number of triggers it covers.
+ * Unlike a {@link Debouncer}, triggers do not extend the window,
+ * so a steady stream of triggers results in one batch per window.
+ * <p>
+ * Every trigger is counted by exactly one batch that starts after it.
+ * At most 2<sup>32</sup> - 1 triggers can be pending at a time.
+ * Batches happen on the threads of the scheduler and use its throwable consumer.
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@ThreadSafe
+public final class Coalescer {
+    private static final int WINDOW_SHIFT = 32;
+    private static final long WINDOW_UNIT = 1L << WINDOW_SHIFT;
+    private static final long COUNT_MASK = WINDOW_UNIT - 1;
+
+    IScheduler scheduler;
+    long id;
+    LongConsumer batch;
+    long window;
+    /**
+     * The number of windows opened or closed in the upper half, which is odd while a window is open,
+     * and the number of pending triggers in the lower half.
+     * A scheduled batch belongs to the window that scheduled it and does nothing once the window is closed.
+     * Keeping both in one word lets a window be closed and its triggers taken or discarded in one step.
+     */
+    AtomicLong state = new AtomicLong();
+
+    /**
+     * Constructs a coalescer that runs a task once per window of triggers.
+     *
+     * @param scheduler the scheduler that runs the task. Must not be {@code null}.
+     * @param id        the id batches are scheduled with. It must not be used by other tasks of the scheduler.
+     * @param task      the task to run. Must not be {@code null}.
+     * @param window    the time from the first trigger of a window to its batch.
+     */
+    public Coalescer(@NotNull final IScheduler scheduler, final long id, @NotNull final Runnable task,
+                     @NotNull final TimeHolder window) {
+        this(scheduler, id, count -> task.run(), window);
+    }
+
+    /**
+     * Constructs a coalescer.
+     *
+     * @param scheduler the scheduler that runs the batches. Must not be {@code null}.
+     * @param id        the id batches are scheduled with. It must not be used by other tasks of the scheduler.
+     * @param batch     the batch, accepting the number of triggers it covers. Must not be {@code null}.
+     * @param window    the time from the first trigger of a window to its batch.
+     */
+    public Coalescer(@NotNull final IScheduler scheduler, final long id, @NotNull final LongConsumer batch,
+                     @NotNull final TimeHolder window) {
+        this.scheduler = scheduler;
+        this.id = id;
+        this.batch = batch;
+        this.window = window.toConvert(TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records an event, opening a window if none is open.
+     */
+    public void trigger() {
+        long state = this.state.incrementAndGet();
+        while (!isOpen(state)) {
+            if (this.state.compareAndSet(state, state + WINDOW_UNIT)) {
+                this.schedule(window(state) + 1);
+                return;
+            }
+            state = this.state.get();
+        }
+    }
+
+    /**
+     * Returns the number of triggers waiting for their batch.
+     *
+     * @return the number of pending triggers
+     */
+    public long getPendingCount() {
+        return this.state.get() & COUNT_MASK;
+    }
+
+    /**
+     * Discards the open window and its triggers, if any. A batch already in progress is not interrupted.
+     * <p>
+     * The batch of the discarded window stays with the scheduler and does nothing when it comes due,
+     * unless the next window replaces it first.
+     */
+    public void cancel() {
+        long state;
+        do {
+            state = this.state.get();
+            // Triggers pending without an open window are about to open the next one
+            if (!isOpen(state)) {
+                return;
+            }
+        } while (!this.state.compareAndSet(state, closed(state)));
+    }
+
+    private static boolean isOpen(final long state) {
+        return (window(state) & 1) != 0;
+    }
+
+    private static long window(final long state) {
+        return state >>> WINDOW_SHIFT;
+    }
+
+    /**
+     * Returns the state with its window closed and no pending triggers.
+     */
+    private static long closed(final long state) {
+        return (window(state) + 1) << WINDOW_SHIFT;
+    }
+
+    private void fire(final long open) {
+        // Close the window and take its triggers at once, so that a later trigger opens the next window
+        long state;
+        do {
+            state = this.state.get();
+            if (window(state) != open) {
+                return;
+            }
+        } while (!this.state.compareAndSet(state, closed(state)));
+
+        final long count = state & COUNT_MASK;
+        if (count > 0) {
+            this.batch.accept(count);
+        }
+    }
+
+    /**
+     * Schedules the batch of the specified window.
+     * <p>
+     * All batches share the id, so the batch of a window that has since been cancelled may replace the batch of a newer one.
+     * Whoever schedules therefore checks the state afterward and schedules the batch of the current window if it differs,
+     * which leaves the last scheduled batch belonging to the current window.
+     */
+    private void schedule(final long open) {
+        long current = open;
+        while (true) {
+            final long scheduled = current;
+            try {
+                this.scheduler.scheduleTask(this.id, () -> this.fire(scheduled),
+                        new TimeHolder(this.window, TimeUnit.NANOSECONDS), true);
+            } catch (final RuntimeException | Error e) {
+                this.abandon(scheduled);
+                throw e;
+            }
+
+            final long state = this.state.get();
+            current = window(state);
+            if (current == scheduled || !isOpen(state)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Closes the specified window without a batch, keeping its triggers for the next one.
+     */
+    private void abandon(final long open) {
+        long state;
+        do {
+            state = this.state.get();
+            if (window(state) != open) {
+                return;
+            }
+        } while (!this.state.compareAndSet(state, state + WINDOW_UNIT));
+    }
+}
@@ -0,0 +1,259 @@
+package org.akazukin.util.time.scheduler;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+import org.akazukin.annotation.marker.Immutable;
+import org.akazukin.annotation.marker.ThreadSafe;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A parsed cron expression that computes its next fire time directly.
+ * <p>
+ * An expression has five fields, {@code minute hour day-of-month month day-of-week},
+ * or six fields with a leading {@code second} field.
+ * Each field is {@code *} (or {@code ?}), a value, a range {@code a-b}, any of those followed by a step {@code /n},
+ * or a comma-separated list of them. Months and days of the week may also be given by their
+ * three-letter English names, and both {@code 0} and {@code 7} denote Sunday.
+ * If both the day-of-month and the day-of-week are restricted, a day matches if either matches.
+ * <p>
+ * Every field is held as a bit set, so the next fire time is found by jumping to the next set bit of each field
+ * rather than by testing every second or minute.
+ * Parsed expressions are cached by their text.
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Immutable
+@ThreadSafe
+public final class CronExpression {
+    private static final int MAX_CACHED = 1 << 10;
+    private static final Map<String, CronExpression> CACHE = new ConcurrentHashMap<>();
+    private static final String[] MONTHS =
+            {"JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP", "OCT", "NOV", "DEC"};
+    private static final String[] DAYS = {"SUN", "MON", "TUE", "WED", "THU", "FRI", "SAT"};
+    /**
+     * The number of years searched for a fire time before concluding that the expression never fires,
+     * covering the leap year cycle.
+     */
+    private static final int MAX_YEARS = 8;
+
+    /**
+     * The original text of the expression.
+     */
+    @Getter
+    String expression;
+    long seconds;
+    long minutes;
+    long hours;
+    long daysOfMonth;
+    long months;
+    long daysOfWeek;
+    boolean dayOfMonthRestricted;
+    boolean dayOfWeekRestricted;
+
+    private CronExpression(final String expression) {
+        this.expression = expression;
+        final String[] fields = expression.trim().split("\\s+");
+        if (fields.length != 5 && fields.length != 6) {
+            throw new IllegalArgumentException("Cron expression must have 5 or 6 fields: " + expression);
+        }
+
+        final int offset = fields.length - 5;
+        this.seconds = offset == 0 ? 1L : parseField(fields[0], 0, 59, null);
+        this.minutes = parseField(fields[offset], 0, 59, null);
+        this.hours = parseField(fields[offset + 1], 0, 23, null);
+        this.daysOfMonth = parseField(fields[offset + 2], 1, 31, null);
+        this.months = parseField(fields[offset + 3], 1, 12, MONTHS);
+
+        long daysOfWeek = parseField(fields[offset + 4], 0, 7, DAYS);
+        if ((daysOfWeek & 1L << 7) != 0) {
+            daysOfWeek = daysOfWeek & ~(1L << 7) | 1L;
+        }
+        this.daysOfWeek = daysOfWeek;
+        this.dayOfMonthRestricted = !isWildcard(fields[offset + 2]);
+        this.dayOfWeekRestricted = !isWildcard(fields[offset + 4]);
+    }
+
+    /**
+     * Parses a cron expression, or returns the cached instance parsed from the same text.
+     *
+     * @param expression the cron expression. Must not be {@code null}.
+     * @return the parsed expression
+     * @throws IllegalArgumentException if the expression is malformed
+     */
+    public static CronExpression parse(@NotNull final String expression) {
+        final CronExpression cached = CACHE.get(expression);
+        if (cached != null) {
+            return cached;
+        }
+
+        final CronExpression parsed = new CronExpression(expression);
+        if (CACHE.size() < MAX_CACHED) {
+            CACHE.putIfAbsent(expression, parsed);
+        }
+        return parsed;
+    }
+
+    private static boolean isWildcard(final String field) {
+        return "*".equals(field) || "?".equals(field);
+    }
+
+    private static long parseField(final String field, final int min, final int max, @Nullable final String[] names) {
+        long bits = 0;
+        for (final String part : field.split(",")) {
+            final int slash = part.indexOf('/');
+            final String range = slash < 0 ? part : part.substring(0, slash);
+            final int step = slash < 0 ? 1 : parseNumber(part.substring(slash + 1), field);
+            if (step <= 0) {
+                throw new IllegalArgumentException("Step must be positive: " + field);
+            }
+
+            final int from;
+            final int to;
+            if (isWildcard(range)) {
+                from = min;
+                to = max;
+            } else {
+                final int dash = range.indexOf('-');
+                from = parseValue(dash < 0 ? range : range.substring(0, dash), min, names, field);
+                // A single value with a step, such as 5/15, runs to the end of the field
+                to = dash >= 0 ? parseValue(range.substring(dash + 1), min, names, field) : slash >= 0 ? max : from;
+            }
+            if (from < min || to > max || from > to) {
+                throw new IllegalArgumentException("Value out of range " + min + "-" + max + ": " + field);
+            }
+
+            for (int i = from; i <= to; i += step) {
+                bits |= 1L << i;
+            }
+        }
+        return bits;
+    }
+
+    private static int parseValue(final String value, final int min, @Nullable final String[] names, final String field) {
+        if (names != null) {
+            final String upper = value.toUpperCase(Locale.ROOT);
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(upper)) {
+                    return i + min;
+                }
+            }
+        }
+        return parseNumber(value, field);
+    }
+
+    private static int parseNumber(final String value, final String field) {
+        try {
+            return Integer.parseInt(value);
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cron field: " + field, e);
+        }
+    }
+
+    /**
+     * Returns the next set bit at or after the specified index.
+     *
+     * @return the index of the bit, or {@code -1} if there is none
+     */
+    private static int next(final long bits, final int from) {
+        final long remaining = from >= Long.SIZE ? 0 : bits & -1L << from;
+        return remaining == 0 ? -1 : Long.numberOfTrailingZeros(remaining);
+    }
+
+    /**
+     * Returns the first fire time strictly after the specified time.
+     *
+     * @param after the time to search from. Must not be {@code null}.
+     * @return the next fire time in the zone of {@code after},
+     * or {@code null} if the expression never fires, such as on February 30th
+     */
+    @Nullable
+    public ZonedDateTime nextFireAfter(@NotNull final ZonedDateTime after) {
+        ZonedDateTime time = after.truncatedTo(ChronoUnit.SECONDS).plusSeconds(1);
+        final int lastYear = time.getYear() + MAX_YEARS;
+        while (time.getYear() <= lastYear) {
+            final int month = next(this.months, time.getMonthValue());
+            if (month != time.getMonthValue()) {
+                time = month < 0
+                        ? time.plusYears(1).withMonth(1).withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS)
+                        : time.withDayOfMonth(1).withMonth(month).truncatedTo(ChronoUnit.DAYS);
+                continue;
+            }
+            if (!this.matchesDay(time)) {
+                time = time.plusDays(1).truncatedTo(ChronoUnit.DAYS);
+                continue;
+            }
+
+            final int hour = next(this.hours, time.getHour());
+            if (hour != time.getHour()) {
+                time = hour < 0
+                        ? time.plusDays(1).truncatedTo(ChronoUnit.DAYS)
+                        : time.withHour(hour).truncatedTo(ChronoUnit.HOURS);
+                continue;
+            }
+            final int minute = next(this.minutes, time.getMinute());
+            if (minute != time.getMinute()) {
+                time = minute < 0
+                        ? time.truncatedTo(ChronoUnit.HOURS).plusHours(1)
+                        : time.withMinute(minute).truncatedTo(ChronoUnit.MINUTES);
+                continue;
+            }
+            final int second = next(this.seconds, time.getSecond());
+            if (second != time.getSecond()) {
+                time = second < 0
+                        ? time.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1)
+                        : time.withSecond(second);
+                continue;
+            }
+            return time;
+        }
+        return null;
+    }
+
+    private boolean matchesDay(final ZonedDateTime time) {
+        final boolean dayOfMonth = (this.daysOfMonth & 1L << time.getDayOfMonth()) != 0;
+        final boolean dayOfWeek = (this.daysOfWeek & 1L << time.getDayOfWeek().getValue() % 7) != 0;
+        if (this.dayOfMonthRestricted && this.dayOfWeekRestricted) {
+            return dayOfMonth || dayOfWeek;
+        }
+        return dayOfMonth && dayOfWeek;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CronExpression)) {
+            return false;
+        }
+        final CronExpression that = (CronExpression) o;
+        return this.seconds == that.seconds && this.minutes == that.minutes && this.hours == that.hours
+                && this.daysOfMonth == that.daysOfMonth && this.months == that.months
+                && this.daysOfWeek == that.daysOfWeek
+                && this.dayOfMonthRestricted == that.dayOfMonthRestricted
+                && this.dayOfWeekRestricted == that.dayOfWeekRestricted;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Long.hashCode(this.seconds);
+        result = 31 * result + Long.hashCode(this.minutes);
+        result = 31 * result + Long.hashCode(this.hours);
+        result = 31 * result + Long.hashCode(this.daysOfMonth);
+        result = 31 * result + Long.hashCode(this.months);
+        result = 31 * result + Long.hashCode(this.daysOfWeek);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return this.expression;
+    }
+}
@@ -0,0 +1,190 @@
+package org.akazukin.util.time.scheduler;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import org.akazukin.annotation.marker.ThreadSafe;
+import org.akazukin.util.time.NanoClock;
+import org.akazukin.util.time.TimeHolder;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs a task once a burst of triggers has gone quiet for a delay.
+ * <p>
+ * The first trigger of a burst schedules a single run on the scheduler; later triggers only record their time.
+ * When the run comes due before the burst has gone quiet, it is scheduled again for the remaining time,
+ * so a burst of any size costs one scheduled task per delay instead of one per trigger,
+ * and only the first trigger of a burst allocates.
+ * <p>
+ * A maximum delay bounds how long a run can be postponed by a burst that never goes quiet.
+ * Every trigger is followed by a run that starts after it.
+ * Runs happen on the threads of the scheduler and use its throwable consumer.
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@ThreadSafe
+public final class Debouncer {
+    IScheduler scheduler;
+    long id;
+    Runnable task;
+    long delay;
+    /**
+     * The maximum delay in nanoseconds, or {@code -1} if a burst may postpone the run indefinitely.
+     */
+    long maxDelay;
+    NanoClock clock;
+    /**
+     * The number of times the debouncer was armed or disarmed; odd while a run is pending.
+     * A scheduled run belongs to the state that armed it and does nothing once the state has moved on.
+     */
+    AtomicLong state = new AtomicLong();
+    @NonFinal
+    volatile long firstTrigger;
+    @NonFinal
+    volatile long lastTrigger;
+
+    /**
+     * Constructs a debouncer without a maximum delay.
+     *
+     * @param scheduler the scheduler that runs the task. Must not be {@code null}.
+     * @param id        the id the run is scheduled with. It must not be used by other tasks of the scheduler.
+     * @param task      the task to run. Must not be {@code null}.
+     * @param delay     the quiet period after the last trigger before the task runs.
+     */
+    public Debouncer(@NotNull final IScheduler scheduler, final long id, @NotNull final Runnable task,
+                     @NotNull final TimeHolder delay) {
+        this(scheduler, id, task, delay, null);
+    }
+
+    /**
+     * Constructs a debouncer.
+     *
+     * @param scheduler the scheduler that runs the task. Must not be {@code null}.
+     * @param id        the id the run is scheduled with. It must not be used by other tasks of the scheduler.
+     * @param task      the task to run. Must not be {@code null}.
+     * @param delay     the quiet period after the last trigger before the task runs.
+     * @param maxDelay  the maximum time between the first trigger of a burst and the run,
+     *                  or {@code null} to wait for the burst to go quiet however long it lasts.
+     */
+    public Debouncer(@NotNull final IScheduler scheduler, final long id, @NotNull final Runnable task,
+                     @NotNull final TimeHolder delay, @Nullable final TimeHolder maxDelay) {
+        this(scheduler, id, task, delay, maxDelay, NanoClock.SYSTEM);
+    }
+
+    /**
+     * Constructs a debouncer that reads the time of triggers from the specified clock,
+     * such as a {@link org.akazukin.util.time.CachedNanoClock} for triggers in hot paths.
+     *
+     * @param scheduler the scheduler that runs the task. Must not be {@code null}.
+     * @param id        the id the run is scheduled with. It must not be used by other tasks of the scheduler.
+     * @param task      the task to run. Must not be {@code null}.
+     * @param delay     the quiet period after the last trigger before the task runs.
+     * @param maxDelay  the maximum time between the first trigger of a burst and the run,
+     *                  or {@code null} to wait for the burst to go quiet however long it lasts.
+     * @param clock     the clock. Must not be {@code null}.
+     */
+    public Debouncer(@NotNull final IScheduler scheduler, final long id, @NotNull final Runnable task,
+                     @NotNull final TimeHolder delay, @Nullable final TimeHolder maxDelay,
+                     @NotNull final NanoClock clock) {
+        this.scheduler = scheduler;
+        this.id = id;
+        this.task = task;
+        this.delay = delay.toConvert(TimeUnit.NANOSECONDS);
+        this.maxDelay = maxDelay == null ? -1 : maxDelay.toConvert(TimeUnit.NANOSECONDS);
+        this.clock = clock;
+    }
+
+    /**
+     * Records an event, postponing the run until the events have gone quiet for the delay.
+     */
+    public void trigger() {
+        final long now = this.clock.nanoTime();
+        this.lastTrigger = now;
+        final long state = this.state.get();
+        if ((state & 1) == 0 && this.state.compareAndSet(state, state + 1)) {
+            this.firstTrigger = now;
+            this.schedule(state + 1, this.delay);
+        }
+    }
+
+    /**
+     * Returns whether a run is pending.
+     *
+     * @return {@code true} if the debouncer was triggered and has not run since
+     */
+    public boolean isPending() {
+        return (this.state.get() & 1) != 0;
+    }
+
+    /**
+     * Discards the pending run, if any. A run already in progress is not interrupted.
+     * <p>
+     * The discarded run stays with the scheduler and does nothing when it comes due,
+     * unless the next burst replaces it first.
+     */
+    public void cancel() {
+        long state;
+        do {
+            state = this.state.get();
+            if ((state & 1) == 0) {
+                return;
+            }
+        } while (!this.state.compareAndSet(state, state + 1));
+    }
+
+    private void fire(final long armed) {
+        if (this.state.get() != armed) {
+            return;
+        }
+
+        final long remaining = this.remaining();
+        if (remaining > 0) {
+            this.schedule(armed, remaining);
+            return;
+        }
+
+        // Disarm before running, so that a trigger during the run schedules another one
+        if (this.state.compareAndSet(armed, armed + 1)) {
+            this.task.run();
+        }
+    }
+
+    private long remaining() {
+        long due = this.lastTrigger + this.delay;
+        if (this.maxDelay >= 0 && due - (this.firstTrigger + this.maxDelay) > 0) {
+            due = this.firstTrigger + this.maxDelay;
+        }
+        return due - this.clock.nanoTime();
+    }
+
+    /**
+     * Schedules the run of the specified state.
+     * <p>
+     * All runs share the id, so the run of a state that has since been cancelled may replace the run of a newer one.
+     * Whoever schedules therefore checks the state afterward and schedules the run of the current state if it differs,
+     * which leaves the last scheduled run belonging to the current state.
+     */
+    private void schedule(final long armed, final long delay) {
+        long current = armed;
+        long currentDelay = delay;
+        while (true) {
+            final long state = current;
+            try {
+                this.scheduler.scheduleTask(this.id, () -> this.fire(state),
+                        new TimeHolder(currentDelay, TimeUnit.NANOSECONDS), true);
+            } catch (final RuntimeException | Error e) {
+                this.state.compareAndSet(state, state + 1);
+                throw e;
+            }
+
+            current = this.state.get();
+            if (current == state || (current & 1) == 0) {
+                return;
+            }
+            currentDelay = Math.max(0, this.remaining());
+        }
+    }
+}
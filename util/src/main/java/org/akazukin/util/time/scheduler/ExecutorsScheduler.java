@@ -4,6 +4,7 @@
 import lombok.SneakyThrows;
 import lombok.experimental.FieldDefaults;
 import org.akazukin.annotation.marker.ThreadSafe;
+import org.akazukin.util.time.NanoClock;
 import org.akazukin.util.time.TimeHolder;
 import org.jetbrains.annotations.NotNull;
 
@@ -66,27 +67,32 @@ public ExecutorsScheduler(final ThreadFactory threadFactory) {
      *                      Must not be {@code null}.
      */
     public ExecutorsScheduler(final int poolSize, @NotNull final ThreadFactory threadFactory) {
-        this.pool = (ScheduledThreadPoolExecutor) Executors.newScheduledThreadPool(poolSize, threadFactory);
+        this(poolSize, threadFactory, NanoClock.SYSTEM);
     }
 
-    @Override
-    public synchronized boolean isScheduled(final long id) {
-        return super.isScheduled(id)
-                && !this.tasks.get(id).getValue().isDone();
+    /**
+     * Constructs a {@code Scheduler} instance that times runs and plans looping tasks with the specified clock.
+     * The delays themselves are kept by the thread pool, which always follows the system clock.
+     *
+     * @param poolSize      the number of threads to keep scheduled in the thread pool.
+     *                      Must be a positive integer.
+     * @param threadFactory the {@link ThreadFactory} to use for creating new threads in the thread pool.
+     *                      Must not be {@code null}.
+     * @param clock         the clock that runs are measured with. Must not be {@code null}.
+     */
+    public ExecutorsScheduler(final int poolSize, @NotNull final ThreadFactory threadFactory,
+                              @NotNull final NanoClock clock) {
+        super(clock);
+        this.pool = (ScheduledThreadPoolExecutor) Executors.newScheduledThreadPool(poolSize, threadFactory);
     }
 
+    /**
+     * Cancels all currently scheduled tasks and removes them from the work queue of the pool.
+     */
     @Override
-    public synchronized void cancelAllTasks() {
+    public void cancelAllTasks() {
+        super.cancelAllTasks();
         this.pool.purge();
-        this.tasks.clear();
-    }
-
-    @Override
-    protected ScheduledFuture<?> scheduleLoopInternal(final Runnable task, final TimeHolder delay, final TimeHolder interval) {
-        return this.pool.scheduleAtFixedRate(task,
-                delay.toConvert(TimeUnit.NANOSECONDS),
-                interval.toConvert(TimeUnit.NANOSECONDS),
-                TimeUnit.NANOSECONDS);
     }
 
     @Override
@@ -0,0 +1,172 @@
+package org.akazukin.util.time.scheduler;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.akazukin.annotation.marker.ThreadSafe;
+import org.akazukin.util.time.TimeHolder;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ForkJoinScheduler is an implementation of the {@link IScheduler} interface
+ * that keeps time on a single timer thread and runs fired tasks in a {@link ForkJoinPool}.
+ * <p>
+ * The timer thread only hands due tasks to the pool and never runs them itself.
+ * The pool is work-stealing and bounded to its parallelism, by default the number of available processors,
+ * so CPU-bound tasks use all cores without oversubscribing threads.
+ * Tasks that block should use {@link ForkJoinPool#managedBlock} or run on another scheduler.
+ * <p>
+ * Cancelling a task interrupts its running thread.
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@ThreadSafe
+public final class ForkJoinScheduler extends AScheduler<ForkJoinScheduler.PoolTask> {
+    private static final int SHUTDOWN_TIMEOUT = 10;
+    private static final AtomicInteger TIMER_IDS = new AtomicInteger();
+
+    ScheduledThreadPoolExecutor timer;
+    ForkJoinPool pool;
+    boolean ownsPool;
+
+    /**
+     * Constructs a scheduler with a new pool whose parallelism is the number of available processors.
+     * The pool runs tasks in FIFO order and is shut down when the scheduler is closed.
+     */
+    public ForkJoinScheduler() {
+        this(new ForkJoinPool(Runtime.getRuntime().availableProcessors(),
+                ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true), true);
+    }
+
+    /**
+     * Constructs a scheduler that runs tasks in the specified pool, such as {@link ForkJoinPool#commonPool()}.
+     * The pool is not shut down when the scheduler is closed.
+     *
+     * @param pool the pool to run fired tasks in. Must not be {@code null}.
+     */
+    public ForkJoinScheduler(@NotNull final ForkJoinPool pool) {
+        this(pool, false);
+    }
+
+    private ForkJoinScheduler(final ForkJoinPool pool, final boolean ownsPool) {
+        this.pool = pool;
+        this.ownsPool = ownsPool;
+        this.timer = new ScheduledThreadPoolExecutor(1, r -> {
+            final Thread thread = new Thread(r, "ForkJoinScheduler-timer-" + TIMER_IDS.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    @Override
+    protected PoolTask scheduleInternal(final Runnable task, final TimeHolder delay) {
+        final PoolTask poolTask = new PoolTask(task);
+        poolTask.timer = this.timer.schedule(() -> this.fire(poolTask),
+                delay.toConvert(TimeUnit.NANOSECONDS),
+                TimeUnit.NANOSECONDS);
+        return poolTask;
+    }
+
+    @Override
+    protected void cancelInternal(@NotNull final PoolTask task) {
+        task.cancel();
+    }
+
+    /**
+     * Terminates the scheduler by canceling all scheduled tasks and stopping the timer thread.
+     * Tasks already running in the pool are interrupted by the cancellation,
+     * and the pool is shut down if it was created by the scheduler.
+     * Once this method is called, the scheduler is no longer operational, and no further tasks can be scheduled.
+     */
+    @Override
+    public void close() {
+        this.cancelAllTasks();
+        this.timer.shutdown();
+        if (this.ownsPool) {
+            this.pool.shutdown();
+        }
+
+        try {
+            if (!this.timer.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+                this.timer.shutdownNow();
+            }
+            if (this.ownsPool && !this.pool.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+                this.pool.shutdownNow();
+            }
+        } catch (final InterruptedException e) {
+            this.timer.shutdownNow();
+            if (this.ownsPool) {
+                this.pool.shutdownNow();
+            }
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Hands a run to the pool. Only called by the timer thread.
+     */
+    private void fire(final PoolTask task) {
+        if (task.cancelled) {
+            return;
+        }
+
+        try {
+            this.pool.execute(task::run);
+        } catch (final RejectedExecutionException e) {
+            this.rejectFired(task.task, e);
+        }
+    }
+
+    /**
+     * A scheduled task, fired by the timer thread and run in the pool.
+     */
+    static final class PoolTask {
+        private final Runnable task;
+        private volatile Future<?> timer;
+        /**
+         * The thread executing the task. Guarded by the monitor of the task,
+         * so that a cancellation never interrupts a worker that already moved on to another task.
+         */
+        private Thread runner;
+        private volatile boolean cancelled;
+
+        private PoolTask(final Runnable task) {
+            this.task = task;
+        }
+
+        private void run() {
+            synchronized (this) {
+                this.runner = Thread.currentThread();
+            }
+            try {
+                if (!this.cancelled) {
+                    this.task.run();
+                }
+            } finally {
+                synchronized (this) {
+                    this.runner = null;
+                }
+                // Do not leak the interrupt of a cancellation into the next task of the worker
+                if (this.cancelled) {
+                    Thread.interrupted();
+                }
+            }
+        }
+
+        private void cancel() {
+            this.cancelled = true;
+            this.timer.cancel(false);
+            synchronized (this) {
+                if (this.runner != null) {
+                    this.runner.interrupt();
+                }
+            }
+        }
+    }
+}
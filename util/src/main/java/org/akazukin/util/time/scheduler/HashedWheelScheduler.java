@@ -0,0 +1,443 @@
+package org.akazukin.util.time.scheduler;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import org.akazukin.annotation.marker.ThreadSafe;
+import org.akazukin.util.time.NanoClock;
+import org.akazukin.util.time.TimeHolder;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * HashedWheelScheduler is an implementation of the {@link IScheduler} interface
+ * that uses a hashed timing wheel to schedule tasks.
+ * <p>
+ * Tasks are hashed into one of a fixed number of buckets by their deadline,
+ * so scheduling and cancellation take constant time regardless of how many tasks are pending.
+ * A single worker thread advances the wheel once per tick and fires the tasks of the current bucket;
+ * delays longer than one revolution of the wheel are tracked by a per-task round counter.
+ * <p>
+ * The trade-off is precision: a task fires on the first tick at or after its deadline,
+ * so it may be late by up to one tick duration.
+ * Fired tasks run on the worker thread unless an {@link Executor} is supplied.
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@ThreadSafe
+public final class HashedWheelScheduler extends AScheduler<HashedWheelScheduler.WheelTimeout> {
+    private static final TimeHolder DEFAULT_TICK_DURATION = new TimeHolder(10, TimeUnit.MILLISECONDS);
+    private static final int DEFAULT_TICKS_PER_WHEEL = 512;
+    private static final int MAX_TICKS_PER_WHEEL = 1 << 30;
+
+    private static final int WORKER_RUNNING = 0;
+    private static final int WORKER_SHUTDOWN = 1;
+    private static final AtomicIntegerFieldUpdater<HashedWheelScheduler> WORKER_STATE =
+            AtomicIntegerFieldUpdater.newUpdater(HashedWheelScheduler.class, "workerState");
+
+    long tickNanos;
+    int mask;
+    Bucket[] wheel;
+    @Nullable
+    Executor executor;
+    AtomicReference<WheelTimeout> pendingTimeouts = new AtomicReference<>();
+    AtomicReference<WheelTimeout> cancelledTimeouts = new AtomicReference<>();
+    long startTime;
+    Thread worker;
+    @NonFinal
+    volatile int workerState;
+
+    /**
+     * Constructs a default {@code HashedWheelScheduler} instance
+     * with a tick duration of 10 milliseconds and 512 buckets.
+     * Fired tasks run on the worker thread.
+     */
+    public HashedWheelScheduler() {
+        this(DEFAULT_TICK_DURATION);
+    }
+
+    /**
+     * Constructs a {@code HashedWheelScheduler} instance with the specified tick duration and 512 buckets.
+     * Fired tasks run on the worker thread.
+     *
+     * @param tickDuration the resolution of the wheel. Tasks fire on the first tick at or after their deadline.
+     *                     Must be at least one nanosecond.
+     */
+    public HashedWheelScheduler(@NotNull final TimeHolder tickDuration) {
+        this(tickDuration, DEFAULT_TICKS_PER_WHEEL);
+    }
+
+    /**
+     * Constructs a {@code HashedWheelScheduler} instance with the specified tick duration and number of buckets.
+     * Fired tasks run on the worker thread.
+     *
+     * @param tickDuration  the resolution of the wheel. Tasks fire on the first tick at or after their deadline.
+     *                      Must be at least one nanosecond.
+     * @param ticksPerWheel the number of buckets in the wheel, rounded up to a power of two.
+     *                      Must be a positive integer.
+     */
+    public HashedWheelScheduler(@NotNull final TimeHolder tickDuration, final int ticksPerWheel) {
+        this(tickDuration, ticksPerWheel, Executors.defaultThreadFactory());
+    }
+
+    /**
+     * Constructs a {@code HashedWheelScheduler} instance with the specified tick duration, number of buckets
+     * and a custom thread factory for the worker thread.
+     * Fired tasks run on the worker thread.
+     *
+     * @param tickDuration  the resolution of the wheel. Tasks fire on the first tick at or after their deadline.
+     *                      Must be at least one nanosecond.
+     * @param ticksPerWheel the number of buckets in the wheel, rounded up to a power of two.
+     *                      Must be a positive integer.
+     * @param threadFactory the {@link ThreadFactory} to use for creating the worker thread.
+     *                      Must not be {@code null}.
+     */
+    public HashedWheelScheduler(@NotNull final TimeHolder tickDuration, final int ticksPerWheel,
+                                @NotNull final ThreadFactory threadFactory) {
+        this(tickDuration, ticksPerWheel, threadFactory, null);
+    }
+
+    /**
+     * Constructs a {@code HashedWheelScheduler} instance with the specified tick duration, number of buckets,
+     * a custom thread factory for the worker thread and an executor for the fired tasks.
+     *
+     * @param tickDuration  the resolution of the wheel. Tasks fire on the first tick at or after their deadline.
+     *                      Must be at least one nanosecond.
+     * @param ticksPerWheel the number of buckets in the wheel, rounded up to a power of two.
+     *                      Must be a positive integer.
+     * @param threadFactory the {@link ThreadFactory} to use for creating the worker thread.
+     *                      Must not be {@code null}.
+     * @param executor      the {@link Executor} to run fired tasks on. It may be {@code null},
+     *                      in which case fired tasks run on the worker thread and should not block.
+     */
+    public HashedWheelScheduler(@NotNull final TimeHolder tickDuration, final int ticksPerWheel,
+                                @NotNull final ThreadFactory threadFactory, @Nullable final Executor executor) {
+        this(tickDuration, ticksPerWheel, threadFactory, executor, NanoClock.SYSTEM);
+    }
+
+    /**
+     * Constructs a {@code HashedWheelScheduler} instance that advances the wheel by the specified clock.
+     * The worker thread still sleeps for one tick duration at a time,
+     * so a {@link org.akazukin.util.time.ManualNanoClock} is polled once per tick.
+     *
+     * @param tickDuration  the resolution of the wheel. Tasks fire on the first tick at or after their deadline.
+     *                      Must be at least one nanosecond.
+     * @param ticksPerWheel the number of buckets in the wheel, rounded up to a power of two.
+     *                      Must be a positive integer.
+     * @param threadFactory the {@link ThreadFactory} to use for creating the worker thread.
+     *                      Must not be {@code null}.
+     * @param executor      the {@link Executor} to run fired tasks on. It may be {@code null},
+     *                      in which case fired tasks run on the worker thread and should not block.
+     * @param clock         the clock that deadlines are measured with. Must not be {@code null}.
+     */
+    public HashedWheelScheduler(@NotNull final TimeHolder tickDuration, final int ticksPerWheel,
+                                @NotNull final ThreadFactory threadFactory, @Nullable final Executor executor,
+                                @NotNull final NanoClock clock) {
+        super(clock);
+        final long tickNanos = tickDuration.toConvert(TimeUnit.NANOSECONDS);
+        if (tickNanos <= 0) {
+            throw new IllegalArgumentException("tickDuration must be at least 1 nanosecond: " + tickNanos);
+        }
+        if (ticksPerWheel <= 0 || ticksPerWheel > MAX_TICKS_PER_WHEEL) {
+            throw new IllegalArgumentException("ticksPerWheel out of range: " + ticksPerWheel);
+        }
+
+        final int size = ticksPerWheel == 1 ? 1 : Integer.highestOneBit(ticksPerWheel - 1) << 1;
+        if (tickNanos >= Long.MAX_VALUE / size) {
+            throw new IllegalArgumentException("tickDuration is too long for " + size + " buckets: " + tickNanos);
+        }
+
+        this.tickNanos = tickNanos;
+        this.mask = size - 1;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            this.wheel[i] = new Bucket();
+        }
+        this.executor = executor;
+
+        this.startTime = this.clock.nanoTime();
+        this.worker = threadFactory.newThread(this::runWorker);
+        this.worker.start();
+    }
+
+    private static void push(final AtomicReference<WheelTimeout> stack,
+                             final WheelTimeout timeout, final boolean cancelled) {
+        WheelTimeout head;
+        do {
+            head = stack.get();
+            if (cancelled) {
+                timeout.nextCancelled = head;
+            } else {
+                timeout.nextPending = head;
+            }
+        } while (!stack.compareAndSet(head, timeout));
+    }
+
+    @Override
+    protected WheelTimeout scheduleInternal(final Runnable task, final TimeHolder delay) {
+        if (this.workerState == WORKER_SHUTDOWN) {
+            throw new IllegalStateException("Scheduler already closed");
+        }
+
+        final long delayNanos = Math.max(0, delay.toConvert(TimeUnit.NANOSECONDS));
+        final long elapsed = this.clock.nanoTime() - this.startTime;
+        // Guard against overflow for extremely long delays
+        final long deadline = delayNanos > Long.MAX_VALUE - elapsed ? Long.MAX_VALUE : elapsed + delayNanos;
+
+        final WheelTimeout timeout = new WheelTimeout(task, deadline);
+        push(this.pendingTimeouts, timeout, false);
+        return timeout;
+    }
+
+    @Override
+    protected void cancelInternal(@NotNull final WheelTimeout task) {
+        if (task.cancel()) {
+            push(this.cancelledTimeouts, task, true);
+        }
+    }
+
+    /**
+     * Terminates the scheduler by canceling all scheduled tasks and stopping the worker thread.
+     * This method should be called to gracefully shut down the scheduler instance when it is no longer necessary.
+     * Once this method is called, the scheduler is no longer operational, and no further tasks can be scheduled.
+     */
+    @Override
+    public void close() {
+        if (!WORKER_STATE.compareAndSet(this, WORKER_RUNNING, WORKER_SHUTDOWN)) {
+            return;
+        }
+
+        this.cancelAllTasks();
+        LockSupport.unpark(this.worker);
+        if (Thread.currentThread() == this.worker) {
+            return;
+        }
+
+        boolean interrupted = false;
+        while (this.worker.isAlive()) {
+            try {
+                this.worker.join();
+            } catch (final InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runWorker() {
+        long tick = 0;
+        while (this.workerState == WORKER_RUNNING) {
+            if (!this.waitForNextTick(tick)) {
+                break;
+            }
+
+            this.processCancelledTimeouts();
+            this.transferTimeoutsToBuckets(tick);
+            this.wheel[(int) (tick & this.mask)].expireTimeouts(this);
+            tick++;
+        }
+
+        for (final Bucket bucket : this.wheel) {
+            bucket.clear();
+        }
+        this.pendingTimeouts.set(null);
+        this.cancelledTimeouts.set(null);
+    }
+
+    /**
+     * Sleeps until the end of the given tick.
+     *
+     * @param tick the tick that is currently processed
+     * @return {@code true} if the tick has elapsed,
+     * or {@code false} if the scheduler was closed while waiting
+     */
+    private boolean waitForNextTick(final long tick) {
+        final long deadline = this.tickNanos * (tick + 1);
+        while (true) {
+            final long sleepNanos = deadline - (this.clock.nanoTime() - this.startTime);
+            if (sleepNanos <= 0) {
+                return true;
+            }
+            if (this.workerState != WORKER_RUNNING) {
+                return false;
+            }
+            LockSupport.parkNanos(this, sleepNanos);
+        }
+    }
+
+    private void processCancelledTimeouts() {
+        WheelTimeout timeout = this.cancelledTimeouts.getAndSet(null);
+        while (timeout != null) {
+            final WheelTimeout next = timeout.nextCancelled;
+            timeout.nextCancelled = null;
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+            timeout = next;
+        }
+    }
+
+    private void transferTimeoutsToBuckets(final long tick) {
+        WheelTimeout timeout = this.pendingTimeouts.getAndSet(null);
+        while (timeout != null) {
+            final WheelTimeout next = timeout.nextPending;
+            timeout.nextPending = null;
+            if (!timeout.isCancelled()) {
+                this.addToBucket(timeout, tick);
+            }
+            timeout = next;
+        }
+    }
+
+    private void addToBucket(final WheelTimeout timeout, final long tick) {
+        final long calculated = timeout.deadline / this.tickNanos;
+        timeout.remainingRounds = (calculated - tick) / this.wheel.length;
+
+        // Deadlines in the past are fired on the current tick
+        final long ticks = Math.max(calculated, tick);
+        this.wheel[(int) (ticks & this.mask)].add(timeout);
+    }
+
+    private void fire(final WheelTimeout timeout) {
+        if (!timeout.expire()) {
+            return;
+        }
+
+        if (this.executor == null) {
+            timeout.task.run();
+            return;
+        }
+
+        try {
+            this.executor.execute(timeout.task);
+        } catch (final RejectedExecutionException e) {
+            this.rejectFired(timeout.task, e);
+        }
+    }
+
+    /**
+     * A scheduled task handle living in a {@link Bucket} of the wheel.
+     * <p>
+     * The bucket links are only touched by the worker thread,
+     * while the state is updated atomically so that tasks can be cancelled from any thread.
+     */
+    static final class WheelTimeout {
+        private static final int ST_INIT = 0;
+        private static final int ST_CANCELLED = 1;
+        private static final int ST_EXPIRED = 2;
+        private static final AtomicIntegerFieldUpdater<WheelTimeout> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(WheelTimeout.class, "state");
+
+        final Runnable task;
+        final long deadline;
+        long remainingRounds;
+        volatile int state;
+
+        WheelTimeout nextPending;
+        WheelTimeout nextCancelled;
+        WheelTimeout prev;
+        WheelTimeout next;
+        Bucket bucket;
+
+        WheelTimeout(final Runnable task, final long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        boolean cancel() {
+            return STATE.compareAndSet(this, ST_INIT, ST_CANCELLED);
+        }
+
+        boolean expire() {
+            return STATE.compareAndSet(this, ST_INIT, ST_EXPIRED);
+        }
+
+        boolean isCancelled() {
+            return this.state == ST_CANCELLED;
+        }
+    }
+
+    /**
+     * A doubly linked list of {@link WheelTimeout}s hashed into the same slot of the wheel.
+     * Only accessed by the worker thread.
+     */
+    static final class Bucket {
+        WheelTimeout head;
+        WheelTimeout tail;
+
+        void add(final WheelTimeout timeout) {
+            timeout.bucket = this;
+            if (this.head == null) {
+                this.head = this.tail = timeout;
+            } else {
+                this.tail.next = timeout;
+                timeout.prev = this.tail;
+                this.tail = timeout;
+            }
+        }
+
+        void expireTimeouts(final HashedWheelScheduler scheduler) {
+            WheelTimeout timeout = this.head;
+            while (timeout != null) {
+                final WheelTimeout next = timeout.next;
+                if (timeout.isCancelled()) {
+                    this.remove(timeout);
+                } else if (timeout.remainingRounds <= 0) {
+                    this.remove(timeout);
+                    scheduler.fire(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        void remove(final WheelTimeout timeout) {
+            final WheelTimeout next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+            if (next != null) {
+                next.prev = timeout.prev;
+            }
+
+            if (timeout == this.head) {
+                if (timeout == this.tail) {
+                    this.tail = null;
+                    this.head = null;
+                } else {
+                    this.head = next;
+                }
+            } else if (timeout == this.tail) {
+                this.tail = timeout.prev;
+            }
+
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        void clear() {
+            WheelTimeout timeout = this.head;
+            while (timeout != null) {
+                final WheelTimeout next = timeout.next;
+                timeout.prev = null;
+                timeout.next = null;
+                timeout.bucket = null;
+                timeout = next;
+            }
+            this.head = null;
+            this.tail = null;
+        }
+    }
+}
@@ -5,6 +5,7 @@
 import org.jetbrains.annotations.Nullable;
 
 import java.io.Closeable;
+import java.time.ZoneId;
 import java.util.function.Consumer;
 
 public interface IScheduler extends Closeable {
@@ -58,6 +59,60 @@ public interface IScheduler extends Closeable {
      */
     boolean scheduleTask(long id, @NotNull Runnable task, TimeHolder delay, boolean override);
 
+    /**
+     * Schedules a one-time task with the specified priority.
+     * When several tasks become due together, schedulers that support priorities run the higher-priority ones first.
+     * The default implementation ignores the priority.
+     *
+     * @param id       the unique identifier for the task. If a task with the same id already exists
+     *                 and {@code override} is {@code false}, the method will return {@code false}.
+     *                 If {@code override} is {@code true}, the existing task will be canceled and replaced.
+     * @param task     the {@link Runnable} task to be executed. Must not be {@code null}.
+     * @param delay    the delay in times before the task is executed.
+     * @param priority the priority of the task. Must not be {@code null}.
+     * @param override indicates whether an existing task with the same id should be overridden.
+     * @return {@code true} if the task was successfully scheduled, or if an existing task was overridden.
+     * Returns {@code false} if a task with the same id exists and {@code override} is {@code false}.
+     */
+    default boolean scheduleTask(final long id, @NotNull final Runnable task, final TimeHolder delay,
+                                 @NotNull final TaskPriority priority, final boolean override) {
+        return this.scheduleTask(id, task, delay, override);
+    }
+
+    /**
+     * Schedules a one-time task as a member of the group with the specified tag,
+     * so that it can be cancelled together with the other tasks of the group by {@link #cancelGroup(String)}.
+     * The default implementation does not support groups.
+     *
+     * @param id       the unique identifier for the task. If a task with the same id already exists
+     *                 and {@code override} is {@code false}, the method will return {@code false}.
+     *                 If {@code override} is {@code true}, the existing task will be canceled and replaced.
+     * @param task     the {@link Runnable} task to be executed. Must not be {@code null}.
+     * @param delay    the delay in times before the task is executed.
+     * @param group    the tag of the group. Must not be {@code null}.
+     * @param override indicates whether an existing task with the same id should be overridden.
+     * @return {@code true} if the task was successfully scheduled, or if an existing task was overridden.
+     * Returns {@code false} if a task with the same id exists and {@code override} is {@code false}.
+     * @throws UnsupportedOperationException if the scheduler does not support groups
+     */
+    default boolean scheduleTask(final long id, @NotNull final Runnable task, final TimeHolder delay,
+                                 @NotNull final String group, final boolean override) {
+        throw new UnsupportedOperationException("Task groups are not supported by " + this.getClass().getName());
+    }
+
+    /**
+     * Cancels all tasks of the group with the specified tag.
+     * Tasks scheduled with the tag afterward form a new group.
+     * The default implementation does not support groups.
+     *
+     * @param group the tag of the group. Must not be {@code null}.
+     * @return {@code true} if the group existed and was cancelled, {@code false} otherwise.
+     * @throws UnsupportedOperationException if the scheduler does not support groups
+     */
+    default boolean cancelGroup(@NotNull final String group) {
+        throw new UnsupportedOperationException("Task groups are not supported by " + this.getClass().getName());
+    }
+
     /**
      * Cancels a scheduled task with the specified unique identifier.
      * If the task is not found, an {@link IllegalArgumentException} is thrown.
@@ -71,6 +126,7 @@ public interface IScheduler extends Closeable {
     /**
      * Schedules a recurring task to be executed at a fixed interval after an initial delay.
      * The task will continue execution at the specified interval unless explicitly canceled.
+     * Missed ticks are handled according to {@link MissedTickPolicy#FIXED_RATE}.
      * If a task with the same identifier already exists,
      * the method may override it based on internal logic.
      *
@@ -89,6 +145,7 @@ public interface IScheduler extends Closeable {
     /**
      * Schedules a recurring task to be executed at a fixed interval after an initial delay.
      * If a task with the specified id already exists, the behavior depends on the value of the {@code override} parameter.
+     * Missed ticks are handled according to {@link MissedTickPolicy#FIXED_RATE}.
      *
      * @param id       the unique identifier for the task.
      *                 If a task with the same id already exists
@@ -103,6 +160,255 @@ public interface IScheduler extends Closeable {
      */
     boolean scheduleLoopingTask(long id, @NotNull Runnable task, TimeHolder delay, TimeHolder interval, boolean override);
 
+    /**
+     * Schedules a recurring task as a member of the group with the specified tag,
+     * so that it can be cancelled together with the other tasks of the group by {@link #cancelGroup(String)}.
+     * Missed ticks are handled according to {@link MissedTickPolicy#FIXED_RATE}.
+     * The default implementation does not support groups.
+     *
+     * @param id       the unique identifier for the task.
+     *                 If a task with the same id already exists
+     *                 and {@code override} is {@code false}, the method will return {@code false}.
+     *                 If {@code override} is {@code true}, the existing task will be canceled and replaced.
+     * @param task     the {@link Runnable} task to be executed. Must not be {@code null}.
+     * @param delay    the delay in times before the task is first executed.
+     * @param interval the interval in times between successive executions of the task.
+     * @param group    the tag of the group. Must not be {@code null}.
+     * @param override indicates whether an existing task with the same id should be overridden.
+     * @return {@code true} if the task was successfully scheduled, or if an existing task was overridden.
+     * Returns {@code false} if a task with the same id exists and {@code override} is {@code false}.
+     * @throws UnsupportedOperationException if the scheduler does not support groups
+     */
+    default boolean scheduleLoopingTask(final long id, @NotNull final Runnable task, final TimeHolder delay,
+                                        final TimeHolder interval, @NotNull final String group,
+                                        final boolean override) {
+        throw new UnsupportedOperationException("Task groups are not supported by " + this.getClass().getName());
+    }
+
+    /**
+     * Schedules a recurring task with the specified missed-tick policy,
+     * overriding an existing task with the same id.
+     *
+     * @param id       the unique identifier for the task.
+     * @param task     the {@link Runnable} task to be executed. Must not be {@code null}.
+     * @param delay    the delay in times before the task is first executed.
+     * @param interval the interval in times between successive executions of the task.
+     * @param policy   how ticks missed by a slow run or a stalled scheduler are caught up. Must not be {@code null}.
+     * @return {@code true} if the task was successfully scheduled.
+     * @see #scheduleLoopingTask(long, Runnable, TimeHolder, TimeHolder, MissedTickPolicy, boolean)
+     */
+    default boolean scheduleLoopingTask(final long id, @NotNull final Runnable task, final TimeHolder delay,
+                                        final TimeHolder interval, @NotNull final MissedTickPolicy policy) {
+        return this.scheduleLoopingTask(id, task, delay, interval, policy, true);
+    }
+
+    /**
+     * Schedules a recurring task with the specified missed-tick policy.
+     * The default implementation only supports {@link MissedTickPolicy#FIXED_RATE}.
+     *
+     * @param id       the unique identifier for the task.
+     *                 If a task with the same id already exists
+     *                 and {@code override} is {@code false}, the method will return {@code false}.
+     *                 If {@code override} is {@code true}, the existing task will be canceled and replaced.
+     * @param task     the {@link Runnable} task to be executed. Must not be {@code null}.
+     * @param delay    the delay in times before the task is first executed.
+     * @param interval the interval in times between successive executions of the task.
+     *                 Must be positive.
+     * @param policy   how ticks missed by a slow run or a stalled scheduler are caught up. Must not be {@code null}.
+     * @param override indicates whether an existing task with the same id should be overridden.
+     * @return {@code true} if the task was successfully scheduled, or if an existing task was overridden.
+     * Returns {@code false} if a task with the same id exists and {@code override} is {@code false}.
+     * @throws UnsupportedOperationException if the scheduler does not support the policy
+     */
+    default boolean scheduleLoopingTask(final long id, @NotNull final Runnable task, final TimeHolder delay,
+                                        final TimeHolder interval, @NotNull final MissedTickPolicy policy,
+                                        final boolean override) {
+        if (policy != MissedTickPolicy.FIXED_RATE) {
+            throw new UnsupportedOperationException("Unsupported missed-tick policy: " + policy);
+        }
+        return this.scheduleLoopingTask(id, task, delay, interval, override);
+    }
+
+    /**
+     * Schedules a recurring task with the specified missed-tick policy and priority.
+     * When several tasks become due together, schedulers that support priorities run the higher-priority ones first.
+     * The default implementation ignores the priority.
+     *
+     * @param id       the unique identifier for the task.
+     *                 If a task with the same id already exists
+     *                 and {@code override} is {@code false}, the method will return {@code false}.
+     *                 If {@code override} is {@code true}, the existing task will be canceled and replaced.
+     * @param task     the {@link Runnable} task to be executed. Must not be {@code null}.
+     * @param delay    the delay in times before the task is first executed.
+     * @param interval the interval in times between successive executions of the task.
+     *                 Must be positive.
+     * @param policy   how ticks missed by a slow run or a stalled scheduler are caught up. Must not be {@code null}.
+     * @param priority the priority of the task. Must not be {@code null}.
+     * @param override indicates whether an existing task with the same id should be overridden.
+     * @return {@code true} if the task was successfully scheduled, or if an existing task was overridden.
+     * Returns {@code false} if a task with the same id exists and {@code override} is {@code false}.
+     * @throws UnsupportedOperationException if the scheduler does not support the policy
+     */
+    default boolean scheduleLoopingTask(final long id, @NotNull final Runnable task, final TimeHolder delay,
+                                        final TimeHolder interval, @NotNull final MissedTickPolicy policy,
+                                        @NotNull final TaskPriority priority, final boolean override) {
+        return this.scheduleLoopingTask(id, task, delay, interval, policy, override);
+    }
+
+    /**
+     * Schedules a task to be executed at the times matched by a cron expression in the default time zone,
+     * overriding an existing task with the same id.
+     *
+     * @param id   the unique identifier for the task.
+     * @param task the {@link Runnable} task to be executed. Must not be {@code null}.
+     * @param cron the cron expression, as accepted by {@link CronExpression#parse(String)}. Must not be {@code null}.
+     * @return {@code true} if the task was successfully scheduled.
+     * @throws IllegalArgumentException if the expression is malformed or never fires
+     * @see #scheduleCronTask(long, Runnable, CronExpression, ZoneId, boolean)
+     */
+    default boolean scheduleCronTask(final long id, @NotNull final Runnable task, @NotNull final String cron) {
+        return this.scheduleCronTask(id, task, CronExpression.parse(cron), ZoneId.systemDefault(), true);
+    }
+
+    /**
+     * Schedules a task to be executed at the times matched by a cron expression.
+     * The task is only woken at its next fire time, which is computed from the expression after every run.
+     * Fire times that pass while the task is running are skipped.
+     * The default implementation does not support cron expressions.
+     *
+     * @param id       the unique identifier for the task.
+     *                 If a task with the same id already exists
+     *                 and {@code override} is {@code false}, the method will return {@code false}.
+     *                 If {@code override} is {@code true}, the existing task will be canceled and replaced.
+     * @param task     the {@link Runnable} task to be executed. Must not be {@code null}.
+     * @param cron     the cron expression. Must not be {@code null}.
+     * @param zone     the time zone the expression is evaluated in. Must not be {@code null}.
+     * @param override indicates whether an existing task with the same id should be overridden.
+     * @return {@code true} if the task was successfully scheduled, or if an existing task was overridden.
+     * Returns {@code false} if a task with the same id exists and {@code override} is {@code false}.
+     * @throws IllegalArgumentException      if the expression never fires
+     * @throws UnsupportedOperationException if the scheduler does not support cron expressions
+     */
+    default boolean scheduleCronTask(final long id, @NotNull final Runnable task, @NotNull final CronExpression cron,
+                                     @NotNull final ZoneId zone, final boolean override) {
+        throw new UnsupportedOperationException("Cron expressions are not supported by " + this.getClass().getName());
+    }
+
+    /**
+     * Schedules a batch of one-time tasks to be executed after the same delay,
+     * overriding existing tasks with the same ids.
+     *
+     * @param ids   the unique identifiers of the tasks.
+     * @param tasks the {@link Runnable} tasks to be executed, in the order of {@code ids}. Must not contain {@code null}.
+     * @param delay the delay in times before the tasks are executed.
+     * @return the number of tasks scheduled.
+     * @throws IllegalArgumentException if {@code ids} and {@code tasks} differ in length.
+     * @see #scheduleTask(long, Runnable, TimeHolder)
+     */
+    default int scheduleTasks(@NotNull final long[] ids, @NotNull final Runnable[] tasks, final TimeHolder delay) {
+        return this.scheduleTasks(ids, tasks, delay, true);
+    }
+
+    /**
+     * Schedules a batch of one-time tasks to be executed after the same delay.
+     * Implementations may process the batch more efficiently than scheduling each task individually.
+     * If an id appears more than once, the tasks are processed in array order.
+     *
+     * @param ids      the unique identifiers of the tasks.
+     * @param tasks    the {@link Runnable} tasks to be executed, in the order of {@code ids}.
+     *                 Must not contain {@code null}.
+     * @param delay    the delay in times before the tasks are executed.
+     * @param override indicates whether existing tasks with the same ids should be overridden.
+     * @return the number of tasks scheduled.
+     * Tasks whose id already exists are not counted if {@code override} is {@code false}.
+     * @throws IllegalArgumentException if {@code ids} and {@code tasks} differ in length.
+     * @see #scheduleTask(long, Runnable, TimeHolder, boolean)
+     */
+    default int scheduleTasks(@NotNull final long[] ids, @NotNull final Runnable[] tasks, final TimeHolder delay,
+                              final boolean override) {
+        if (ids.length != tasks.length) {
+            throw new IllegalArgumentException("ids and tasks differ in length: " + ids.length + " != " + tasks.length);
+        }
+
+        int scheduled = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (this.scheduleTask(ids[i], tasks[i], delay, override)) {
+                scheduled++;
+            }
+        }
+        return scheduled;
+    }
+
+    /**
+     * Schedules a batch of recurring tasks with the same initial delay and interval,
+     * overriding existing tasks with the same ids.
+     *
+     * @param ids      the unique identifiers of the tasks.
+     * @param tasks    the {@link Runnable} tasks to be executed, in the order of {@code ids}.
+     *                 Must not contain {@code null}.
+     * @param delay    the delay in times before the tasks are first executed.
+     * @param interval the interval in times between successive executions of the tasks.
+     * @return the number of tasks scheduled.
+     * @throws IllegalArgumentException if {@code ids} and {@code tasks} differ in length.
+     * @see #scheduleLoopingTask(long, Runnable, TimeHolder, TimeHolder)
+     */
+    default int scheduleLoopingTasks(@NotNull final long[] ids, @NotNull final Runnable[] tasks,
+                                     final TimeHolder delay, final TimeHolder interval) {
+        return this.scheduleLoopingTasks(ids, tasks, delay, interval, true);
+    }
+
+    /**
+     * Schedules a batch of recurring tasks with the same initial delay and interval.
+     * Implementations may process the batch more efficiently than scheduling each task individually.
+     *
+     * @param ids      the unique identifiers of the tasks.
+     * @param tasks    the {@link Runnable} tasks to be executed, in the order of {@code ids}.
+     *                 Must not contain {@code null}.
+     * @param delay    the delay in times before the tasks are first executed.
+     * @param interval the interval in times between successive executions of the tasks.
+     * @param override indicates whether existing tasks with the same ids should be overridden.
+     * @return the number of tasks scheduled.
+     * Tasks whose id already exists are not counted if {@code override} is {@code false}.
+     * @throws IllegalArgumentException if {@code ids} and {@code tasks} differ in length.
+     * @see #scheduleLoopingTask(long, Runnable, TimeHolder, TimeHolder, boolean)
+     */
+    default int scheduleLoopingTasks(@NotNull final long[] ids, @NotNull final Runnable[] tasks,
+                                     final TimeHolder delay, final TimeHolder interval, final boolean override) {
+        if (ids.length != tasks.length) {
+            throw new IllegalArgumentException("ids and tasks differ in length: " + ids.length + " != " + tasks.length);
+        }
+
+        int scheduled = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (this.scheduleLoopingTask(ids[i], tasks[i], delay, interval, override)) {
+                scheduled++;
+            }
+        }
+        return scheduled;
+    }
+
+    /**
+     * Cancels a batch of scheduled tasks.
+     * Unlike {@link #cancelTask(long)}, ids that are not scheduled are ignored.
+     *
+     * @param ids the unique identifiers of the tasks to be canceled.
+     * @return the number of tasks canceled.
+     */
+    default int cancelTasks(@NotNull final long[] ids) {
+        int cancelled = 0;
+        for (final long id : ids) {
+            if (this.isScheduled(id)) {
+                try {
+                    this.cancelTask(id);
+                    cancelled++;
+                } catch (final IllegalArgumentException ignored) {
+                    // Completed between the check and the cancellation
+                }
+            }
+        }
+        return cancelled;
+    }
+
     /**
      * Cancels all currently scheduled tasks in the scheduler.
      * Closes the scheduler and releases any resources it holds.
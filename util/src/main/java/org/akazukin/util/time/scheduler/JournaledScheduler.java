@@ -0,0 +1,443 @@
+package org.akazukin.util.time.scheduler;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import org.akazukin.annotation.marker.ThreadSafe;
+import org.akazukin.util.time.TimeHolder;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.ZoneId;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * JournaledScheduler is an {@link IScheduler} decorator that makes one-time tasks survive a restart.
+ * <p>
+ * A durable task is identified by a payload key instead of a {@link Runnable}.
+ * Its id, fire time and key are appended to a memory-mapped journal file before the task is handed to the delegate,
+ * and the task is dropped from the journal once it has run or was cancelled.
+ * On startup, {@link #recover()} reads the journal in one sequential pass
+ * and schedules every pending task again, resolving the keys to tasks with the resolver.
+ * Tasks whose fire time passed while the application was down run immediately.
+ * <p>
+ * The journal is compacted on a background thread once superseded records dominate it.
+ * Tasks scheduled with a {@link Runnable} and looping tasks are passed to the delegate without being journaled;
+ * scheduling one of them with the id of a durable task drops the durable task from the journal.
+ * <p>
+ * Calls for the same id are serialized, so the journal always holds the record of the task the delegate runs.
+ * <p>
+ * Fire times are journaled in wall-clock time, so changes of the system clock shift recovered tasks.
+ * Compaction failures are reported to the throwable consumer, and the journal stays uncompacted.
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@ThreadSafe
+public final class JournaledScheduler implements IScheduler {
+    private static final int ID_LOCKS = 64;
+
+    IScheduler delegate;
+    TaskJournal journal;
+    Function<String, Runnable> resolver;
+    ExecutorService compactor;
+    AtomicBoolean compacting = new AtomicBoolean();
+    /**
+     * The monitors that serialize writing the journal and scheduling on the delegate, striped by id.
+     */
+    Object[] idLocks = new Object[ID_LOCKS];
+    @Nullable
+    @NonFinal
+    volatile Consumer<Throwable> throwableConsumer;
+
+    /**
+     * Constructs a journaled scheduler and opens, or creates, its journal.
+     * Pending tasks of the journal are not scheduled until {@link #recover()} is called.
+     *
+     * @param delegate the scheduler that runs the tasks. It is closed together with this scheduler.
+     * @param journal  the path of the journal file.
+     * @param resolver the function that resolves payload keys to tasks. It may return {@code null}
+     *                 for keys that are no longer known, whose tasks are then dropped on recovery.
+     * @throws IOException if the journal cannot be opened
+     */
+    public JournaledScheduler(@NotNull final IScheduler delegate, @NotNull final Path journal,
+                              @NotNull final Function<String, Runnable> resolver) throws IOException {
+        this.delegate = delegate;
+        this.journal = new TaskJournal(journal);
+        this.resolver = resolver;
+        for (int i = 0; i < ID_LOCKS; i++) {
+            this.idLocks[i] = new Object();
+        }
+        this.compactor = Executors.newSingleThreadExecutor(r -> {
+            final Thread thread = new Thread(r, "JournaledScheduler-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Schedules every pending task of the journal on the delegate.
+     * Tasks whose key cannot be resolved anymore are dropped from the journal.
+     *
+     * @return the number of tasks scheduled
+     * @throws UncheckedIOException if the journal cannot be written
+     */
+    public int recover() {
+        int recovered = 0;
+        for (final TaskJournal.Record record : this.journal.records()) {
+            final Runnable task = this.resolver.apply(record.key);
+            if (task == null) {
+                this.complete(record);
+                continue;
+            }
+
+            synchronized (this.lockOf(record.id)) {
+                // Skip records superseded since the snapshot was taken
+                if (this.journal.get(record.id) != record) {
+                    continue;
+                }
+                final long delay = Math.max(0, record.fireAt - System.currentTimeMillis());
+                if (this.delegate.scheduleTask(record.id, this.wrap(record, task),
+                        new TimeHolder(delay, TimeUnit.MILLISECONDS), true)) {
+                    recovered++;
+                }
+            }
+        }
+        this.compactIfNeeded();
+        return recovered;
+    }
+
+    /**
+     * Schedules a durable one-time task, overriding an existing task with the same id.
+     *
+     * @param id    the unique identifier for the task.
+     * @param key   the payload key, resolved to the task by the resolver. Must not be {@code null}.
+     * @param delay the delay in times before the task is executed.
+     * @return {@code true} if the task was successfully scheduled.
+     * @see #scheduleTask(long, String, TimeHolder, boolean)
+     */
+    public boolean scheduleTask(final long id, @NotNull final String key, final TimeHolder delay) {
+        return this.scheduleTask(id, key, delay, true);
+    }
+
+    /**
+     * Schedules a durable one-time task.
+     * The task is journaled before it is scheduled, so it is never lost once this method returned {@code true}.
+     *
+     * @param id       the unique identifier for the task. If a task with the same id already exists
+     *                 and {@code override} is {@code false}, the method will return {@code false}.
+     *                 If {@code override} is {@code true}, the existing task will be canceled and replaced.
+     * @param key      the payload key, resolved to the task by the resolver.
+     *                 Must not be {@code null} and must be at most 65535 bytes in UTF-8.
+     * @param delay    the delay in times before the task is executed.
+     * @param override indicates whether an existing task with the same id should be overridden.
+     * @return {@code true} if the task was successfully scheduled, or if an existing task was overridden.
+     * Returns {@code false} if a task with the same id exists and {@code override} is {@code false}.
+     * @throws IllegalArgumentException if the resolver does not know the key or the key is too long
+     * @throws UncheckedIOException     if the journal cannot be written
+     */
+    public boolean scheduleTask(final long id, @NotNull final String key, final TimeHolder delay, final boolean override) {
+        final Runnable task = this.resolver.apply(key);
+        if (task == null) {
+            throw new IllegalArgumentException("Unknown payload key: " + key);
+        }
+
+        final long delayMillis = delay.toConvert(TimeUnit.MILLISECONDS);
+        final TaskJournal.Record record = new TaskJournal.Record(id,
+                System.currentTimeMillis() + delayMillis, key, TaskJournal.encodeKey(key));
+        final boolean scheduled;
+        synchronized (this.lockOf(id)) {
+            final TaskJournal.Record previous;
+            try {
+                previous = this.journal.schedule(record);
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            try {
+                scheduled = this.delegate.scheduleTask(id, this.wrap(record, task), delay, override);
+            } catch (final RuntimeException | Error e) {
+                this.revert(record, previous);
+                throw e;
+            }
+            if (!scheduled) {
+                this.revert(record, previous);
+            }
+        }
+        this.compactIfNeeded();
+        return scheduled;
+    }
+
+    /**
+     * Returns whether the specified task is journaled, that is, scheduled as a durable task and not yet run.
+     *
+     * @param id the task id
+     * @return {@code true} if the task is journaled
+     */
+    public boolean isJournaled(final long id) {
+        return this.journal.get(id) != null;
+    }
+
+    /**
+     * Flushes the journal to the disk.
+     * Without flushing, journaled tasks survive a crash of the process but not necessarily of the operating system.
+     */
+    public void flush() {
+        this.journal.force();
+    }
+
+    @Override
+    public void setThrowableConsumer(@Nullable final Consumer<Throwable> throwableConsumer) {
+        this.throwableConsumer = throwableConsumer;
+        this.delegate.setThrowableConsumer(throwableConsumer);
+    }
+
+    @Override
+    public boolean isScheduled(final long id) {
+        return this.delegate.isScheduled(id);
+    }
+
+    /**
+     * Cancels all currently scheduled tasks and clears the journal.
+     * Calls for any id wait until both are done, so no task is scheduled between them and left unjournaled.
+     */
+    @Override
+    public void cancelAllTasks() {
+        this.lockAllIds(0, () -> {
+            this.delegate.cancelAllTasks();
+            try {
+                this.journal.clear();
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @Override
+    public boolean scheduleTask(final long id, @NotNull final Runnable task, final TimeHolder delay) {
+        return this.scheduleTask(id, task, delay, true);
+    }
+
+    @Override
+    public boolean scheduleTask(final long id, @NotNull final Runnable task, final TimeHolder delay, final boolean override) {
+        synchronized (this.lockOf(id)) {
+            return this.dropOnSuccess(id, this.delegate.scheduleTask(id, task, delay, override));
+        }
+    }
+
+    @Override
+    public boolean scheduleTask(final long id, @NotNull final Runnable task, final TimeHolder delay,
+                                @NotNull final TaskPriority priority, final boolean override) {
+        synchronized (this.lockOf(id)) {
+            return this.dropOnSuccess(id, this.delegate.scheduleTask(id, task, delay, priority, override));
+        }
+    }
+
+    @Override
+    public boolean scheduleTask(final long id, @NotNull final Runnable task, final TimeHolder delay,
+                                @NotNull final String group, final boolean override) {
+        synchronized (this.lockOf(id)) {
+            return this.dropOnSuccess(id, this.delegate.scheduleTask(id, task, delay, group, override));
+        }
+    }
+
+    @Override
+    public boolean cancelGroup(@NotNull final String group) {
+        return this.delegate.cancelGroup(group);
+    }
+
+    @Override
+    public void cancelTask(final long id) {
+        synchronized (this.lockOf(id)) {
+            this.delegate.cancelTask(id);
+            this.drop(id);
+        }
+    }
+
+    @Override
+    public boolean scheduleLoopingTask(final long id, @NotNull final Runnable task, final TimeHolder delay, final TimeHolder interval) {
+        return this.scheduleLoopingTask(id, task, delay, interval, true);
+    }
+
+    @Override
+    public boolean scheduleLoopingTask(final long id, @NotNull final Runnable task, final TimeHolder delay,
+                                       final TimeHolder interval, final boolean override) {
+        synchronized (this.lockOf(id)) {
+            return this.dropOnSuccess(id, this.delegate.scheduleLoopingTask(id, task, delay, interval, override));
+        }
+    }
+
+    @Override
+    public boolean scheduleLoopingTask(final long id, @NotNull final Runnable task, final TimeHolder delay,
+                                       final TimeHolder interval, @NotNull final String group,
+                                       final boolean override) {
+        synchronized (this.lockOf(id)) {
+            return this.dropOnSuccess(id,
+                    this.delegate.scheduleLoopingTask(id, task, delay, interval, group, override));
+        }
+    }
+
+    @Override
+    public boolean scheduleLoopingTask(final long id, @NotNull final Runnable task, final TimeHolder delay,
+                                       final TimeHolder interval, @NotNull final MissedTickPolicy policy,
+                                       final boolean override) {
+        synchronized (this.lockOf(id)) {
+            return this.dropOnSuccess(id,
+                    this.delegate.scheduleLoopingTask(id, task, delay, interval, policy, override));
+        }
+    }
+
+    @Override
+    public boolean scheduleLoopingTask(final long id, @NotNull final Runnable task, final TimeHolder delay,
+                                       final TimeHolder interval, @NotNull final MissedTickPolicy policy,
+                                       @NotNull final TaskPriority priority, final boolean override) {
+        synchronized (this.lockOf(id)) {
+            return this.dropOnSuccess(id,
+                    this.delegate.scheduleLoopingTask(id, task, delay, interval, policy, priority, override));
+        }
+    }
+
+    @Override
+    public boolean scheduleCronTask(final long id, @NotNull final Runnable task, @NotNull final CronExpression cron,
+                                    @NotNull final ZoneId zone, final boolean override) {
+        synchronized (this.lockOf(id)) {
+            return this.dropOnSuccess(id, this.delegate.scheduleCronTask(id, task, cron, zone, override));
+        }
+    }
+
+    @Override
+    public int cancelTasks(@NotNull final long[] ids) {
+        final int cancelled = this.delegate.cancelTasks(ids);
+        for (final long id : ids) {
+            synchronized (this.lockOf(id)) {
+                // A task scheduled again after the batch was cancelled keeps its record
+                if (!this.delegate.isScheduled(id)) {
+                    this.drop(id);
+                }
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * Closes the delegate and the journal.
+     * Pending durable tasks stay in the journal, to be recovered on the next startup.
+     */
+    @Override
+    public void close() {
+        this.compactor.shutdown();
+        try {
+            this.compactor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Tasks still running while the delegate shuts down drop themselves from the journal
+        try {
+            this.delegate.close();
+        } finally {
+            try {
+                this.journal.close();
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public long[] getAllScheduledTasks() {
+        return this.delegate.getAllScheduledTasks();
+    }
+
+    private Object lockOf(final long id) {
+        return this.idLocks[TaskRegistry.hash(id) & ID_LOCKS - 1];
+    }
+
+    /**
+     * Runs the action holding every id lock, taken in index order.
+     */
+    private void lockAllIds(final int from, final Runnable action) {
+        if (from == ID_LOCKS) {
+            action.run();
+            return;
+        }
+        synchronized (this.idLocks[from]) {
+            this.lockAllIds(from + 1, action);
+        }
+    }
+
+    private Runnable wrap(final TaskJournal.Record record, final Runnable task) {
+        return () -> {
+            try {
+                task.run();
+            } finally {
+                this.complete(record);
+            }
+        };
+    }
+
+    private void complete(final TaskJournal.Record record) {
+        try {
+            this.journal.complete(record);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Restores the journal after the delegate rejected a durable task.
+     */
+    private void revert(final TaskJournal.Record record, @Nullable final TaskJournal.Record previous) {
+        try {
+            if (previous != null) {
+                this.journal.schedule(previous);
+            } else {
+                this.journal.complete(record);
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private boolean dropOnSuccess(final long id, final boolean scheduled) {
+        if (scheduled) {
+            this.drop(id);
+        }
+        return scheduled;
+    }
+
+    private void drop(final long id) {
+        try {
+            if (this.journal.cancel(id)) {
+                this.compactIfNeeded();
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (!this.journal.shouldCompact() || !this.compacting.compareAndSet(false, true)) {
+            return;
+        }
+
+        this.compactor.execute(() -> {
+            try {
+                this.journal.compact();
+            } catch (final IOException e) {
+                final Consumer<Throwable> consumer = this.throwableConsumer;
+                if (consumer != null) {
+                    consumer.accept(e);
+                }
+            } finally {
+                this.compacting.set(false);
+            }
+        });
+    }
+}
@@ -0,0 +1,36 @@
+package org.akazukin.util.time.scheduler;
+
+/**
+ * Determines how a looping task catches up with ticks it missed,
+ * because a run took longer than the interval or the scheduler was stalled, for example by a GC pause.
+ * <p>
+ * Ticks are planned on a grid starting at the initial delay and spaced by the interval.
+ * A run is never started while the previous run of the same task is executing.
+ *
+ * @see IScheduler#scheduleLoopingTask(long, Runnable, org.akazukin.util.time.TimeHolder,
+ * org.akazukin.util.time.TimeHolder, MissedTickPolicy, boolean)
+ */
+public enum MissedTickPolicy {
+    /**
+     * Every missed tick is run, back to back, until the task has caught up with the grid.
+     * This is the default and matches {@link java.util.concurrent.ScheduledExecutorService#scheduleAtFixedRate}.
+     */
+    FIXED_RATE,
+    /**
+     * There is no grid; every run is planned one interval after the previous run ended.
+     * This matches {@link java.util.concurrent.ScheduledExecutorService#scheduleWithFixedDelay}.
+     */
+    FIXED_DELAY,
+    /**
+     * Ticks that are late by more than a full interval are dropped,
+     * so the task resumes with the next tick of the grid that is not yet overdue.
+     * That tick runs however late it fires,
+     * so a task on a timer whose resolution is coarser than the interval still runs.
+     */
+    SKIP_TO_NEXT,
+    /**
+     * All ticks missed since the previous run are collapsed into a single run that starts immediately,
+     * after which the task resumes on the grid.
+     */
+    COALESCE
+}
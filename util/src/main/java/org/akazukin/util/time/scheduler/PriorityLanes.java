@@ -0,0 +1,263 @@
+package org.akazukin.util.time.scheduler;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import org.akazukin.annotation.marker.ThreadSafe;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A set of worker lanes, one per {@link TaskPriority}, that run the tasks fired by schedulers.
+ * <p>
+ * Every lane has its own budget of workers. A worker takes the highest-priority task queued
+ * at its own priority or above, so tasks that become due together run in priority order,
+ * and a higher-priority task can use the idle workers of lower lanes.
+ * A worker never takes a task below its own priority,
+ * so lower-priority work can occupy at most the workers of its own lane and cannot starve higher lanes.
+ * <p>
+ * Workers only terminate once the lanes are closed. The interrupt status a task leaves behind is cleared
+ * before the next task, and a worker whose task throws an {@link Error} is replaced before the error propagates.
+ * <p>
+ * The lanes are not owned by the schedulers that dispatch to them
+ * and must be closed separately once no scheduler uses them anymore.
+ *
+ * @see AScheduler#setLanes(PriorityLanes)
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@ThreadSafe
+public final class PriorityLanes implements Closeable {
+    private static final TaskPriority[] PRIORITIES = TaskPriority.values();
+
+    ThreadFactory threadFactory;
+    ReentrantLock lock = new ReentrantLock();
+    /**
+     * The queued tasks of each priority. Guarded by {@link #lock}.
+     */
+    ArrayDeque<Runnable>[] queues;
+    /**
+     * The idle workers of each lane. Guarded by {@link #lock}.
+     */
+    ArrayDeque<Worker>[] idle;
+    @NonFinal
+    boolean closed;
+
+    /**
+     * Constructs lanes with the specified number of workers per priority,
+     * created by the default thread factory.
+     *
+     * @param highWorkers   the number of workers of the {@link TaskPriority#HIGH} lane.
+     * @param normalWorkers the number of workers of the {@link TaskPriority#NORMAL} lane.
+     * @param lowWorkers    the number of workers of the {@link TaskPriority#LOW} lane.
+     * @throws IllegalArgumentException if a number is negative or all numbers are zero
+     */
+    public PriorityLanes(final int highWorkers, final int normalWorkers, final int lowWorkers) {
+        this(highWorkers, normalWorkers, lowWorkers, Executors.defaultThreadFactory());
+    }
+
+    /**
+     * Constructs lanes with the specified number of workers per priority.
+     * A task is only run by the workers of its own lane or of lower lanes,
+     * so {@link TaskPriority#LOW} tasks are never run unless that lane has workers.
+     *
+     * @param highWorkers   the number of workers of the {@link TaskPriority#HIGH} lane.
+     * @param normalWorkers the number of workers of the {@link TaskPriority#NORMAL} lane.
+     * @param lowWorkers    the number of workers of the {@link TaskPriority#LOW} lane.
+     * @param threadFactory the {@link ThreadFactory} to use for creating the workers. Must not be {@code null}.
+     * @throws IllegalArgumentException if a number is negative or all numbers are zero
+     */
+    @SuppressWarnings("unchecked")
+    public PriorityLanes(final int highWorkers, final int normalWorkers, final int lowWorkers,
+                         @NotNull final ThreadFactory threadFactory) {
+        final int[] budgets = {highWorkers, normalWorkers, lowWorkers};
+        int total = 0;
+        for (final int budget : budgets) {
+            if (budget < 0) {
+                throw new IllegalArgumentException("worker count must not be negative: " + budget);
+            }
+            total += budget;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("at least one worker is required");
+        }
+
+        this.queues = new ArrayDeque[PRIORITIES.length];
+        this.idle = new ArrayDeque[PRIORITIES.length];
+        for (int i = 0; i < PRIORITIES.length; i++) {
+            this.queues[i] = new ArrayDeque<>();
+            this.idle[i] = new ArrayDeque<>();
+        }
+
+        this.threadFactory = threadFactory;
+        for (int lane = 0; lane < budgets.length; lane++) {
+            for (int i = 0; i < budgets[lane]; i++) {
+                this.startWorker(lane);
+            }
+        }
+    }
+
+    private void startWorker(final int lane) {
+        this.threadFactory.newThread(new Worker(lane, this.lock.newCondition())).start();
+    }
+
+    /**
+     * Queues a task to run in the lane of the specified priority.
+     *
+     * @param priority the priority of the task. Must not be {@code null}.
+     * @param task     the task to run. Must not be {@code null}.
+     * @throws RejectedExecutionException if the lanes are closed
+     */
+    public void execute(@NotNull final TaskPriority priority, @NotNull final Runnable task) {
+        this.lock.lock();
+        try {
+            if (this.closed) {
+                throw new RejectedExecutionException("Lanes already closed");
+            }
+
+            this.queues[priority.ordinal()].add(task);
+            // Prefer the lane of the task itself, so that lower lanes stay free for their own work
+            for (int lane = priority.ordinal(); lane < PRIORITIES.length; lane++) {
+                final Worker worker = this.idle[lane].poll();
+                if (worker != null) {
+                    worker.signalled = true;
+                    worker.wakeup.signal();
+                    return;
+                }
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of tasks of the specified priority waiting for a worker.
+     *
+     * @param priority the priority
+     * @return the number of queued tasks
+     */
+    public int getQueuedCount(@NotNull final TaskPriority priority) {
+        this.lock.lock();
+        try {
+            return this.queues[priority.ordinal()].size();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the lanes. Queued tasks are still run, but no further tasks are accepted,
+     * and the workers terminate once nothing they may take is queued.
+     */
+    @Override
+    public void close() {
+        this.lock.lock();
+        try {
+            this.closed = true;
+            for (final ArrayDeque<Worker> workers : this.idle) {
+                for (Worker worker; (worker = workers.poll()) != null; ) {
+                    worker.signalled = true;
+                    worker.wakeup.signal();
+                }
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Takes the highest-priority task the specified lane may run, waiting while there is none.
+     *
+     * @return the task, or {@code null} if the lanes are closed and no task is left
+     */
+    @Nullable
+    private Runnable take(final Worker worker) {
+        this.lock.lock();
+        try {
+            while (true) {
+                for (int priority = 0; priority <= worker.lane; priority++) {
+                    final Runnable task = this.queues[priority].poll();
+                    if (task != null) {
+                        return task;
+                    }
+                }
+                if (this.closed) {
+                    return null;
+                }
+
+                this.idle[worker.lane].push(worker);
+                worker.signalled = false;
+                while (!worker.signalled) {
+                    try {
+                        worker.wakeup.await();
+                    } catch (final InterruptedException ignored) {
+                        // Only closing the lanes terminates a worker
+                    }
+                }
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * A worker of a lane, running tasks of the priority of the lane or above.
+     */
+    private final class Worker implements Runnable {
+        private final int lane;
+        private final Condition wakeup;
+        /**
+         * Whether the worker was removed from the idle workers and woken. Guarded by {@link #lock}.
+         */
+        private boolean signalled;
+
+        private Worker(final int lane, final Condition wakeup) {
+            this.lane = lane;
+            this.wakeup = wakeup;
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                final Runnable task = PriorityLanes.this.take(this);
+                if (task == null) {
+                    return;
+                }
+
+                try {
+                    task.run();
+                } catch (final RuntimeException ignored) {
+                    // Schedulers handle the failures of their tasks; keep the worker alive
+                } catch (final Error e) {
+                    this.replace();
+                    throw e;
+                } finally {
+                    // Do not let an interrupt of this task leak into the next one
+                    Thread.interrupted();
+                }
+            }
+        }
+
+        /**
+         * Starts a worker in place of this one, which terminates.
+         * The worker is started under the lock, so that closing the lanes cannot slip in after the check.
+         */
+        private void replace() {
+            PriorityLanes.this.lock.lock();
+            try {
+                if (!PriorityLanes.this.closed) {
+                    PriorityLanes.this.startWorker(this.lane);
+                }
+            } finally {
+                PriorityLanes.this.lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package org.akazukin.util.time.scheduler;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import org.akazukin.annotation.marker.Immutable;
+import org.akazukin.annotation.marker.ThreadSafe;
+import org.akazukin.util.concurrent.Histogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Execution metrics of an {@link AScheduler}.
+ * <p>
+ * An instance is only created once metrics are enabled on the scheduler;
+ * tasks scheduled while metrics are disabled skip recording entirely.
+ * Recording is lock-free, so it adds no locks to the task execution path.
+ * <p>
+ * Besides the aggregate metrics, every task scheduled while metrics are enabled keeps its own
+ * compact metrics for as long as it stays registered in the scheduler.
+ *
+ * @see AScheduler#getMetrics()
+ * @see AScheduler#getMetrics(long)
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@ThreadSafe
+public final class SchedulerMetrics {
+    Histogram lateness = new Histogram();
+    Histogram runTimes = new Histogram();
+    LongAdder throwables = new LongAdder();
+
+    SchedulerMetrics() {
+    }
+
+    /**
+     * Creates the metrics of a task.
+     *
+     * @param firstFire the time of the scheduler clock at which the task is planned to run first
+     * @return the metrics of the task
+     */
+    TaskMetrics newTask(final long firstFire) {
+        return new TaskMetrics(this, firstFire);
+    }
+
+    Snapshot snapshot(final int pendingCount) {
+        return new Snapshot(this.lateness.snapshot(), this.runTimes.snapshot(), this.throwables.sum(), pendingCount);
+    }
+
+    /**
+     * The metrics of a single task, also recorded into the aggregate metrics of the scheduler.
+     * Its histograms are compact, as runs of the same task never overlap.
+     */
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    @ThreadSafe
+    static final class TaskMetrics {
+        SchedulerMetrics parent;
+        Histogram lateness = new Histogram(false);
+        Histogram runTimes = new Histogram(false);
+        LongAdder throwables = new LongAdder();
+        /**
+         * The time of the scheduler clock at which the next run is planned.
+         */
+        @NonFinal
+        volatile long nextFire;
+
+        TaskMetrics(final SchedulerMetrics parent, final long firstFire) {
+            this.parent = parent;
+            this.nextFire = firstFire;
+        }
+
+        /**
+         * Records a run of the task.
+         *
+         * @param start  the time of the scheduler clock at which the run started
+         * @param end    the time of the scheduler clock at which the run ended
+         * @param failed whether the run threw
+         */
+        void recordRun(final long start, final long end, final boolean failed) {
+            final long planned = this.nextFire;
+            this.lateness.record(start - planned);
+            this.runTimes.record(end - start);
+            this.parent.lateness.record(start - planned);
+            this.parent.runTimes.record(end - start);
+            if (failed) {
+                this.throwables.increment();
+                this.parent.throwables.increment();
+            }
+        }
+
+        /**
+         * Sets the planned time of the next run, called by looping tasks once they have planned it.
+         *
+         * @param fire the time of the scheduler clock at which the next run is planned
+         */
+        void plan(final long fire) {
+            this.nextFire = fire;
+        }
+
+        Snapshot snapshot() {
+            return new Snapshot(this.lateness.snapshot(), this.runTimes.snapshot(), this.throwables.sum(), 1);
+        }
+    }
+
+    /**
+     * An immutable snapshot of the execution metrics of a scheduler or of one of its tasks.
+     * All times are in nanoseconds.
+     */
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    @Getter
+    @Immutable
+    @ThreadSafe
+    public static final class Snapshot {
+        /**
+         * The histogram of how late the runs started compared to their planned time.
+         * Runs that started early are recorded as zero.
+         */
+        Histogram.Snapshot lateness;
+        /**
+         * The histogram of the time spent running the tasks, including runs that threw.
+         */
+        Histogram.Snapshot runTime;
+        /**
+         * The number of runs that threw.
+         */
+        long throwableCount;
+        /**
+         * The number of tasks registered when the snapshot was taken.
+         * For the snapshot of a single task, this is always {@code 1}.
+         */
+        int pendingCount;
+
+        Snapshot(final Histogram.Snapshot lateness, final Histogram.Snapshot runTime,
+                 final long throwableCount, final int pendingCount) {
+            this.lateness = lateness;
+            this.runTime = runTime;
+            this.throwableCount = throwableCount;
+            this.pendingCount = pendingCount;
+        }
+
+        /**
+         * Returns the number of runs recorded.
+         *
+         * @return the number of runs
+         */
+        public long getRunCount() {
+            return this.runTime.getCount();
+        }
+
+        @Override
+        public String toString() {
+            return "SchedulerMetrics.Snapshot[runs=" + this.getRunCount()
+                    + ", throwables=" + this.throwableCount
+                    + ", pending=" + this.pendingCount
+                    + ", lateness=" + this.lateness
+                    + ", runTime=" + this.runTime + "]";
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package org.akazukin.util.time.scheduler;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.akazukin.annotation.marker.Immutable;
+import org.akazukin.annotation.marker.ThreadSafe;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Determines how much of the scheduling call site an {@link AScheduler} records.
+ * <p>
+ * When a task throws, the recorded call site is attached as the root cause of the thrown exception,
+ * which tells where the failing task was scheduled from.
+ * Recording the full stack trace is the most useful but costs a stack walk and an allocation per scheduled task,
+ * so production deployments can sample it, reduce it to the calling class, or disable it.
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Immutable
+@ThreadSafe
+public final class StackCapturePolicy {
+    /**
+     * Records nothing.
+     */
+    public static final StackCapturePolicy NONE = new StackCapturePolicy(Mode.NONE, 0);
+    /**
+     * Records the full stack trace of every scheduling call. This is the default.
+     */
+    public static final StackCapturePolicy ALWAYS = new StackCapturePolicy(Mode.ALWAYS, 1);
+    /**
+     * Records only the class that called the scheduler, without filling a stack trace.
+     * The class is looked up with {@code StackWalker} on Java 9 and later.
+     */
+    public static final StackCapturePolicy CALLER_CLASS = new StackCapturePolicy(Mode.CALLER_CLASS, 0);
+
+    private static final String TRACE_MESSAGE = "Scheduler stack trace. The stack trace is called from controller thread.";
+
+    Mode mode;
+    int every;
+
+    private StackCapturePolicy(final Mode mode, final int every) {
+        this.mode = mode;
+        this.every = every;
+    }
+
+    /**
+     * Returns a policy that records the full stack trace of one in every {@code every} scheduling calls on average.
+     * Calls are sampled at random so that sampling does not add a shared counter to the scheduling path.
+     *
+     * @param every the sampling interval. Must be positive; {@code 1} is equivalent to {@link #ALWAYS}.
+     * @return the sampling policy
+     * @throws IllegalArgumentException if {@code every} is not positive
+     */
+    public static StackCapturePolicy sampled(final int every) {
+        if (every <= 0) {
+            throw new IllegalArgumentException("every must be positive: " + every);
+        }
+        return every == 1 ? ALWAYS : new StackCapturePolicy(Mode.SAMPLED, every);
+    }
+
+    /**
+     * Records the call site of the current scheduling call according to this policy.
+     *
+     * @return the recorded call site, or {@code null} if nothing is recorded for this call
+     */
+    @Nullable
+    Throwable capture() {
+        switch (this.mode) {
+            case ALWAYS:
+                return new IllegalStateException(TRACE_MESSAGE);
+            case SAMPLED:
+                return ThreadLocalRandom.current().nextInt(this.every) == 0
+                        ? new IllegalStateException(TRACE_MESSAGE) : null;
+            case CALLER_CLASS:
+                final Class<?> caller = CallerClassLocator.find();
+                return new CallerTrace(caller == null ? "unknown" : caller.getName());
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.mode == Mode.SAMPLED
+                ? "StackCapturePolicy[SAMPLED, every=" + this.every + "]"
+                : "StackCapturePolicy[" + this.mode + "]";
+    }
+
+    private enum Mode {
+        NONE, SAMPLED, ALWAYS, CALLER_CLASS
+    }
+
+    /**
+     * The call site recorded by {@link #CALLER_CLASS}, which skips filling its stack trace.
+     */
+    private static final class CallerTrace extends IllegalStateException {
+        private static final long serialVersionUID = 4270719385417925112L;
+
+        CallerTrace(final String caller) {
+            super("Task scheduled from " + caller);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,500 @@
+package org.akazukin.util.time.scheduler;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.akazukin.annotation.marker.ThreadSafe;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An append-only, memory-mapped log of durable one-time tasks.
+ * <p>
+ * The log is a sequence of records, each starting with a type byte.
+ * A schedule record holds the task id, the fire time in epoch milliseconds and the payload key;
+ * a cancel record holds the task id and drops any earlier schedule record of the id.
+ * The type byte is written after the rest of the record, and the unused part of the file is zero-filled,
+ * so a record torn by a crash reads as the end of the log.
+ * <p>
+ * Records are written to the mapped file and reach the disk whenever the operating system flushes it,
+ * or when {@link #force()} is called; a crash of the process alone loses nothing.
+ * <p>
+ * The live records are also kept in memory, so that compaction can rewrite the log
+ * with only the live records once superseded records dominate it.
+ * Compaction writes the new log without holding the monitor, so appends only wait for the final swap.
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@ThreadSafe
+final class TaskJournal implements Closeable {
+    static final int MAX_KEY_LENGTH = 0xFFFF;
+
+    private static final byte END = 0;
+    private static final byte SCHEDULE = 1;
+    private static final byte CANCEL = 2;
+    private static final int SCHEDULE_HEADER = 1 + Long.BYTES + Long.BYTES + Short.BYTES;
+    private static final int CANCEL_SIZE = 1 + Long.BYTES;
+    private static final int INITIAL_SIZE = 1 << 20;
+    private static final long COMPACT_THRESHOLD = 1 << 20;
+    /**
+     * A handle that unmaps a mapped buffer; {@code Unsafe.invokeCleaner(ByteBuffer)} on Java 9 and later,
+     * the cleaner of the buffer on Java 8, or {@code null} if neither is accessible.
+     */
+    @Nullable
+    private static final MethodHandle UNMAP = findUnmap();
+
+    final Path path;
+    /**
+     * The live schedule records by id. Guarded by {@code this}.
+     */
+    final Map<Long, Record> live = new HashMap<>();
+    FileChannel channel;
+    MappedByteBuffer buffer;
+    /**
+     * The number of records in the log that are not live. Guarded by {@code this}.
+     */
+    long dead;
+    /**
+     * The position of the log below which compaction is not retried after it failed. Guarded by {@code this}.
+     */
+    long retryPosition;
+    /**
+     * The ids appended while a compaction writes its snapshot, or {@code null} if none is running.
+     * Guarded by {@code this}.
+     */
+    @Nullable
+    Set<Long> touched;
+    /**
+     * Held for the whole compaction, so that only one runs at a time. Acquired before {@code this}.
+     */
+    final Object compactLock = new Object();
+
+    /**
+     * Opens the log at the specified path, creating it if it does not exist,
+     * and reads the live records in one sequential pass.
+     *
+     * @param path the path of the log
+     * @throws IOException if the log cannot be opened or mapped
+     */
+    TaskJournal(final Path path) throws IOException {
+        this.path = path;
+        this.channel = open(path);
+        this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                Math.max(INITIAL_SIZE, this.channel.size()));
+        this.read();
+    }
+
+    @Nullable
+    private static MethodHandle findUnmap() {
+        final MethodType type = MethodType.methodType(void.class, ByteBuffer.class);
+        try {
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            final Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", type)
+                    .bindTo(field.get(null));
+        } catch (final ReflectiveOperationException | RuntimeException ignored) {
+        }
+
+        try {
+            final Class<?> directBuffer = Class.forName("sun.nio.ch.DirectBuffer");
+            final Class<?> cleaner = Class.forName("sun.misc.Cleaner");
+            return MethodHandles.filterReturnValue(
+                    MethodHandles.lookup().findVirtual(directBuffer, "cleaner", MethodType.methodType(cleaner)),
+                    MethodHandles.lookup().findVirtual(cleaner, "clean", MethodType.methodType(void.class))
+            ).asType(type);
+        } catch (final ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Unmaps a buffer that is not accessed anymore, so that its file can be replaced on Windows.
+     *
+     * @return {@code true} if the buffer was unmapped, {@code false} if it is still mapped
+     */
+    private static boolean unmap(final MappedByteBuffer buffer) {
+        if (UNMAP == null) {
+            return false;
+        }
+        try {
+            UNMAP.invokeExact((ByteBuffer) buffer);
+            return true;
+        } catch (final Throwable e) {
+            return false;
+        }
+    }
+
+    private static FileChannel open(final Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    static byte[] encodeKey(final String key) {
+        final byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("key longer than " + MAX_KEY_LENGTH + " bytes: " + bytes.length);
+        }
+        return bytes;
+    }
+
+    private void read() {
+        final MappedByteBuffer buffer = this.buffer;
+        buffer.position(0);
+        while (buffer.remaining() >= CANCEL_SIZE) {
+            final int start = buffer.position();
+            final byte type = buffer.get();
+            final long id = buffer.getLong();
+            if (type == CANCEL) {
+                if (this.live.remove(id) != null) {
+                    this.dead++;
+                }
+                this.dead++;
+                continue;
+            }
+            if (type != SCHEDULE || buffer.remaining() < SCHEDULE_HEADER - CANCEL_SIZE) {
+                buffer.position(start);
+                break;
+            }
+
+            final long fireAt = buffer.getLong();
+            final int length = buffer.getShort() & 0xFFFF;
+            if (buffer.remaining() < length) {
+                buffer.position(start);
+                break;
+            }
+            final byte[] key = new byte[length];
+            buffer.get(key);
+            if (this.live.put(id, new Record(id, fireAt, new String(key, StandardCharsets.UTF_8), key)) != null) {
+                this.dead++;
+            }
+        }
+    }
+
+    /**
+     * Returns the live records.
+     *
+     * @return a copy of the live records, in no particular order
+     */
+    synchronized List<Record> records() {
+        return new ArrayList<>(this.live.values());
+    }
+
+    @Nullable
+    synchronized Record get(final long id) {
+        return this.live.get(id);
+    }
+
+    /**
+     * Appends a schedule record, superseding the live record of the same id.
+     *
+     * @param record the record
+     * @return the superseded record, or {@code null} if there was none
+     * @throws IOException if the log cannot be grown
+     */
+    @Nullable
+    synchronized Record schedule(final Record record) throws IOException {
+        this.ensureCapacity(SCHEDULE_HEADER + record.keyBytes.length);
+        this.writeSchedule(this.buffer, record);
+
+        final Record previous = this.live.put(record.id, record);
+        if (previous != null) {
+            this.dead++;
+        }
+        if (this.touched != null) {
+            this.touched.add(record.id);
+        }
+        return previous;
+    }
+
+    /**
+     * Drops the live record of the specified id, if it is the specified record.
+     *
+     * @param record the record to drop
+     * @return {@code true} if the record was live and is now cancelled
+     * @throws IOException if the log cannot be grown
+     */
+    synchronized boolean complete(final Record record) throws IOException {
+        if (this.live.get(record.id) != record) {
+            return false;
+        }
+        this.appendCancel(record.id);
+        return true;
+    }
+
+    /**
+     * Drops the live record of the specified id, if any.
+     *
+     * @param id the task id
+     * @return {@code true} if a record was live and is now cancelled
+     * @throws IOException if the log cannot be grown
+     */
+    synchronized boolean cancel(final long id) throws IOException {
+        if (!this.live.containsKey(id)) {
+            return false;
+        }
+        this.appendCancel(id);
+        return true;
+    }
+
+    /**
+     * Drops all live records by rewriting the log empty.
+     *
+     * @throws IOException if the log cannot be rewritten
+     */
+    void clear() throws IOException {
+        synchronized (this.compactLock) {
+            synchronized (this) {
+                this.live.clear();
+            }
+            this.rewrite();
+        }
+    }
+
+    /**
+     * Returns whether superseded records dominate the log, so that {@link #compact()} is worthwhile.
+     * After a failed compaction, it is not worthwhile again until the log has grown by the threshold.
+     *
+     * @return {@code true} if the log should be compacted
+     */
+    synchronized boolean shouldCompact() {
+        return this.buffer.position() >= Math.max(COMPACT_THRESHOLD, this.retryPosition)
+                && this.dead > this.live.size();
+    }
+
+    /**
+     * Rewrites the log with only the live records.
+     * The new log is written next to the old one and atomically moved over it.
+     * Records appended meanwhile are written to the old log and replayed into the new one before the move.
+     *
+     * @throws IOException if the log cannot be rewritten
+     */
+    void compact() throws IOException {
+        synchronized (this.compactLock) {
+            this.rewrite();
+        }
+    }
+
+    private void rewrite() throws IOException {
+        final Map<Long, Record> snapshot;
+        synchronized (this) {
+            snapshot = new HashMap<>(this.live);
+            this.touched = new HashSet<>();
+        }
+
+        final Path temp = this.path.resolveSibling(this.path.getFileName() + ".compact");
+        FileChannel channel = null;
+        MappedByteBuffer buffer = null;
+        try {
+            long size = 0;
+            for (final Record record : snapshot.values()) {
+                size += SCHEDULE_HEADER + record.keyBytes.length;
+            }
+            Files.deleteIfExists(temp);
+            channel = open(temp);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(INITIAL_SIZE, size * 2));
+            for (final Record record : snapshot.values()) {
+                this.writeSchedule(buffer, record);
+            }
+
+            synchronized (this) {
+                long dead = 0;
+                for (final Long id : this.touched) {
+                    final Record record = this.live.get(id);
+                    final Record written = snapshot.get(id);
+                    if (record == written) {
+                        continue;
+                    }
+                    if (record != null) {
+                        buffer = this.grow(channel, buffer, SCHEDULE_HEADER + record.keyBytes.length);
+                        this.writeSchedule(buffer, record);
+                        if (written != null) {
+                            dead++;
+                        }
+                    } else {
+                        buffer = this.grow(channel, buffer, CANCEL_SIZE);
+                        writeCancel(buffer, id);
+                        dead += 2;
+                    }
+                }
+                buffer.force();
+                this.buffer.force();
+                this.replace(temp, channel, buffer);
+                this.dead = dead;
+                this.retryPosition = 0;
+            }
+        } catch (final IOException | RuntimeException e) {
+            final boolean swapped;
+            synchronized (this) {
+                swapped = this.channel == channel;
+                this.retryPosition = this.buffer.position() + COMPACT_THRESHOLD;
+            }
+            if (!swapped && channel != null) {
+                try {
+                    channel.close();
+                    if (buffer != null) {
+                        unmap(buffer);
+                    }
+                    Files.deleteIfExists(temp);
+                } catch (final IOException cleanup) {
+                    e.addSuppressed(cleanup);
+                }
+            }
+            throw e;
+        } finally {
+            synchronized (this) {
+                this.touched = null;
+            }
+        }
+    }
+
+    /**
+     * Moves the new log over the old one and switches to it. Must be called while holding the monitor.
+     * <p>
+     * Windows refuses to replace a file that is still mapped, so if the first attempt fails,
+     * the old log is unmapped and the move is retried.
+     * If that fails as well, the old log is mapped again and stays in use.
+     */
+    private void replace(final Path temp, final FileChannel channel, final MappedByteBuffer buffer)
+            throws IOException {
+        try {
+            Files.move(temp, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final IOException e) {
+            final MappedByteBuffer old = this.buffer;
+            final int position = old.position();
+            final int capacity = old.capacity();
+            // An unmapped buffer must never be accessed again, so switch to the new log first;
+            // it already holds every live record
+            this.buffer = buffer;
+            if (!unmap(old)) {
+                this.buffer = old;
+                throw e;
+            }
+            final FileChannel oldChannel = this.channel;
+            this.channel = channel;
+            oldChannel.close();
+            try {
+                Files.move(temp, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                return;
+            } catch (final IOException retry) {
+                retry.addSuppressed(e);
+                // If the old log cannot be mapped again either, the journal goes on in the new log
+                final FileChannel reopened = open(this.path);
+                final MappedByteBuffer remapped = reopened.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+                remapped.position(position);
+                this.channel = reopened;
+                this.buffer = remapped;
+                throw retry;
+            }
+        }
+
+        this.channel.close();
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Flushes the written records to the disk.
+     */
+    synchronized void force() {
+        this.buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this.compactLock) {
+            synchronized (this) {
+                this.buffer.force();
+                this.channel.close();
+            }
+        }
+    }
+
+    private void appendCancel(final long id) throws IOException {
+        this.ensureCapacity(CANCEL_SIZE);
+        writeCancel(this.buffer, id);
+
+        this.live.remove(id);
+        // Both the cancelled record and the cancel record itself are dead
+        this.dead += 2;
+        if (this.touched != null) {
+            this.touched.add(id);
+        }
+    }
+
+    private static void writeCancel(final MappedByteBuffer buffer, final long id) {
+        final int start = buffer.position();
+        buffer.position(start + 1);
+        buffer.putLong(id);
+        buffer.put(start, CANCEL);
+    }
+
+    private void writeSchedule(final MappedByteBuffer buffer, final Record record) {
+        final int start = buffer.position();
+        buffer.position(start + 1);
+        buffer.putLong(record.id);
+        buffer.putLong(record.fireAt);
+        buffer.putShort((short) record.keyBytes.length);
+        buffer.put(record.keyBytes);
+        buffer.put(start, SCHEDULE);
+    }
+
+    private void ensureCapacity(final int bytes) throws IOException {
+        this.buffer = this.grow(this.channel, this.buffer, bytes);
+    }
+
+    private MappedByteBuffer grow(final FileChannel channel, final MappedByteBuffer buffer, final int bytes)
+            throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return buffer;
+        }
+
+        final int position = buffer.position();
+        final long size = Math.max((long) buffer.capacity() * 2, position + bytes);
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Journal exceeds " + Integer.MAX_VALUE + " bytes: " + this.path);
+        }
+        buffer.force();
+        final MappedByteBuffer grown = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        grown.position(position);
+        return grown;
+    }
+
+    /**
+     * A durable one-time task.
+     */
+    static final class Record {
+        final long id;
+        /**
+         * The fire time in milliseconds since the epoch.
+         */
+        final long fireAt;
+        final String key;
+        final byte[] keyBytes;
+
+        Record(final long id, final long fireAt, final String key, final byte[] keyBytes) {
+            this.id = id;
+            this.fireAt = fireAt;
+            this.key = key;
+            this.keyBytes = keyBytes;
+        }
+    }
+}
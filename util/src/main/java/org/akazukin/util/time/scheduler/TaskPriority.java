@@ -0,0 +1,21 @@
+package org.akazukin.util.time.scheduler;
+
+/**
+ * The priority of a scheduled task, which decides the lane of a {@link PriorityLanes} the task runs in.
+ * <p>
+ * The constants are declared from the highest to the lowest priority.
+ */
+public enum TaskPriority {
+    /**
+     * Latency-sensitive tasks, such as timeouts.
+     */
+    HIGH,
+    /**
+     * Ordinary tasks. Tasks scheduled without a priority have this priority.
+     */
+    NORMAL,
+    /**
+     * Bulk or housekeeping tasks that may wait behind everything else.
+     */
+    LOW
+}
@@ -0,0 +1,384 @@
+package org.akazukin.util.time.scheduler;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.akazukin.annotation.marker.ThreadSafe;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A concurrent map from task ids to the entries of scheduled tasks.
+ * <p>
+ * The ids are hashed to a fixed number of segments, each guarded by its own monitor,
+ * so operations on different ids rarely contend.
+ * Ids are stored as primitive longs and entries are chained intrusively,
+ * so registering a task allocates nothing besides its entry.
+ * <p>
+ * Single-key operations lock their segment internally.
+ * Compound operations, such as replacing a task, synchronize on the {@link Segment} returned by {@link #segment(long)}
+ * and use its methods while holding the monitor.
+ *
+ * @param <T> the type of the scheduler-specific task handle
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@ThreadSafe
+final class TaskRegistry<T> {
+    private static final int MAX_SEGMENTS = 1 << 8;
+
+    Segment<T>[] segments;
+    int mask;
+
+    @SuppressWarnings("unchecked")
+    TaskRegistry() {
+        int count = 1;
+        while (count < Runtime.getRuntime().availableProcessors() * 4 && count < MAX_SEGMENTS) {
+            count <<= 1;
+        }
+
+        this.segments = (Segment<T>[]) new Segment<?>[count];
+        final int shift = Integer.numberOfTrailingZeros(count);
+        for (int i = 0; i < count; i++) {
+            this.segments[i] = new Segment<>(shift);
+        }
+        this.mask = count - 1;
+    }
+
+    static int hash(final long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        return (int) (h ^ h >>> 16);
+    }
+
+    /**
+     * Returns the segment that holds the specified id.
+     *
+     * @param id the task id
+     * @return the segment, whose monitor guards the id
+     */
+    Segment<T> segment(final long id) {
+        return this.segments[hash(id) & this.mask];
+    }
+
+    int segmentCount() {
+        return this.segments.length;
+    }
+
+    Segment<T> segmentAt(final int index) {
+        return this.segments[index];
+    }
+
+    /**
+     * Groups the indices of the ids by their segment with a stable counting sort,
+     * so a batch can be processed with one lock acquisition per segment.
+     *
+     * @param ids    the ids to group
+     * @param bounds an array of length {@link #segmentCount()} {@code + 1}, filled so that the indices
+     *               of the ids held by segment {@code s} are at {@code [bounds[s], bounds[s + 1])} of the result
+     * @return the indices of the ids, ordered by segment and then by their position in {@code ids}
+     */
+    int[] groupBySegment(final long[] ids, final int[] bounds) {
+        final int[] segmentOf = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            segmentOf[i] = hash(ids[i]) & this.mask;
+            bounds[segmentOf[i] + 1]++;
+        }
+        for (int s = 1; s < bounds.length; s++) {
+            bounds[s] += bounds[s - 1];
+        }
+
+        final int[] next = Arrays.copyOf(bounds, bounds.length - 1);
+        final int[] order = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            order[next[segmentOf[i]]++] = i;
+        }
+        return order;
+    }
+
+    @Nullable
+    Entry<T> get(final long id) {
+        final Segment<T> segment = this.segment(id);
+        synchronized (segment) {
+            return segment.get(id);
+        }
+    }
+
+    @Nullable
+    Entry<T> remove(final long id) {
+        final Segment<T> segment = this.segment(id);
+        synchronized (segment) {
+            return segment.remove(id);
+        }
+    }
+
+    /**
+     * Removes the entry of the specified id only if it is the specified entry.
+     *
+     * @param entry the entry to remove
+     * @return {@code true} if the entry was removed
+     */
+    boolean remove(final Entry<T> entry) {
+        final Segment<T> segment = this.segment(entry.id);
+        synchronized (segment) {
+            return segment.remove(entry);
+        }
+    }
+
+    /**
+     * Removes all entries.
+     *
+     * @return the removed entries
+     */
+    List<Entry<T>> clear() {
+        final List<Entry<T>> removed = new ArrayList<>();
+        for (final Segment<T> segment : this.segments) {
+            synchronized (segment) {
+                segment.drainTo(removed);
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Returns the number of entries.
+     * Each segment is read atomically, but the registry as a whole is not.
+     *
+     * @return the number of entries
+     */
+    int size() {
+        int size = 0;
+        for (final Segment<T> segment : this.segments) {
+            synchronized (segment) {
+                size += segment.size;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the ids of all entries.
+     * Each segment is read atomically, but the registry as a whole is not.
+     *
+     * @return the ids
+     */
+    long[] ids() {
+        long[] ids = new long[0];
+        int size = 0;
+        for (final Segment<T> segment : this.segments) {
+            synchronized (segment) {
+                if (size + segment.size > ids.length) {
+                    final long[] grown = new long[Math.max(ids.length * 2, size + segment.size)];
+                    System.arraycopy(ids, 0, grown, 0, size);
+                    ids = grown;
+                }
+                size = segment.copyIds(ids, size);
+            }
+        }
+
+        if (size == ids.length) {
+            return ids;
+        }
+        final long[] result = new long[size];
+        System.arraycopy(ids, 0, result, 0, size);
+        return result;
+    }
+
+    /**
+     * A registered task.
+     * The entry itself identifies the registration, so a task that completes after being replaced
+     * does not remove its replacement.
+     *
+     * @param <T> the type of the scheduler-specific task handle
+     */
+    static final class Entry<T> {
+        final long id;
+        /**
+         * The handle returned by the scheduler, set before the entry is published.
+         */
+        T handle;
+        /**
+         * The metrics of the task, or {@code null} if it was scheduled while metrics were disabled.
+         * Set before the task is handed to the scheduler.
+         */
+        @Nullable
+        SchedulerMetrics.TaskMetrics metrics;
+        /**
+         * The group of the task, or {@code null} if it belongs to none. Set before the entry is published.
+         */
+        @Nullable
+        Group group;
+        /**
+         * The generation of the group when the task joined it.
+         */
+        long generation;
+        /**
+         * The entry this one replaced, whose handle is still to be cancelled once the monitor of the segment
+         * is released, or {@code null}. Only accessed by the thread registering this entry.
+         */
+        @Nullable
+        Entry<T> replaced;
+        /**
+         * Whether the task was cancelled or replaced, set once the entry is unregistered
+         * and before its handle is cancelled.
+         */
+        volatile boolean cancelled;
+        Entry<T> next;
+
+        Entry(final long id) {
+            this.id = id;
+        }
+
+        /**
+         * Returns whether the group of the task was cancelled after the task joined it.
+         * A stale entry is no longer scheduled, but stays registered until it comes due.
+         */
+        boolean isStale() {
+            return this.group != null && this.group.generation.get() != this.generation;
+        }
+    }
+
+    /**
+     * A group of tasks sharing a tag.
+     * Cancelling the group only advances its generation, which makes every task that joined it before stale.
+     */
+    static final class Group {
+        final String tag;
+        final AtomicLong generation = new AtomicLong();
+
+        Group(final String tag) {
+            this.tag = tag;
+        }
+    }
+
+    /**
+     * A chained hash table of entries. All methods must be called while holding the monitor of the segment.
+     * <p>
+     * The ids of a segment share the low bits of their hash that chose the segment,
+     * so buckets are indexed by the bits above them.
+     *
+     * @param <T> the type of the scheduler-specific task handle
+     */
+    static final class Segment<T> {
+        private static final int INITIAL_CAPACITY = 4;
+
+        /**
+         * The number of low hash bits used to choose the segment.
+         */
+        final int shift;
+        Entry<T>[] table = newTable(INITIAL_CAPACITY);
+        int size;
+
+        Segment(final int shift) {
+            this.shift = shift;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> Entry<T>[] newTable(final int capacity) {
+            return (Entry<T>[]) new Entry<?>[capacity];
+        }
+
+        private static int index(final long id, final int shift, final int capacity) {
+            return hash(id) >>> shift & capacity - 1;
+        }
+
+        @Nullable
+        Entry<T> get(final long id) {
+            for (Entry<T> e = this.table[index(id, this.shift, this.table.length)]; e != null; e = e.next) {
+                if (e.id == id) {
+                    return e;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Adds an entry whose id is not present.
+         *
+         * @param entry the entry to add
+         */
+        void add(final Entry<T> entry) {
+            if (++this.size > this.table.length - (this.table.length >>> 2)) {
+                this.resize();
+            }
+            final int index = index(entry.id, this.shift, this.table.length);
+            entry.next = this.table[index];
+            this.table[index] = entry;
+        }
+
+        @Nullable
+        Entry<T> remove(final long id) {
+            final int index = index(id, this.shift, this.table.length);
+            Entry<T> prev = null;
+            for (Entry<T> e = this.table[index]; e != null; prev = e, e = e.next) {
+                if (e.id == id) {
+                    this.unlink(index, prev, e);
+                    return e;
+                }
+            }
+            return null;
+        }
+
+        boolean remove(final Entry<T> entry) {
+            final int index = index(entry.id, this.shift, this.table.length);
+            Entry<T> prev = null;
+            for (Entry<T> e = this.table[index]; e != null; prev = e, e = e.next) {
+                if (e == entry) {
+                    this.unlink(index, prev, e);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void unlink(final int index, @Nullable final Entry<T> prev, final Entry<T> entry) {
+            if (prev == null) {
+                this.table[index] = entry.next;
+            } else {
+                prev.next = entry.next;
+            }
+            entry.next = null;
+            this.size--;
+        }
+
+        private void resize() {
+            final Entry<T>[] old = this.table;
+            final Entry<T>[] table = newTable(old.length << 1);
+            for (final Entry<T> head : old) {
+                for (Entry<T> e = head; e != null; ) {
+                    final Entry<T> next = e.next;
+                    final int index = index(e.id, this.shift, table.length);
+                    e.next = table[index];
+                    table[index] = e;
+                    e = next;
+                }
+            }
+            this.table = table;
+        }
+
+        void drainTo(final List<Entry<T>> removed) {
+            for (int i = 0; i < this.table.length; i++) {
+                for (Entry<T> e = this.table[i]; e != null; ) {
+                    final Entry<T> next = e.next;
+                    e.next = null;
+                    removed.add(e);
+                    e = next;
+                }
+                this.table[i] = null;
+            }
+            this.size = 0;
+        }
+
+        int copyIds(final long[] ids, final int offset) {
+            int i = offset;
+            for (final Entry<T> head : this.table) {
+                for (Entry<T> e = head; e != null; e = e.next) {
+                    ids[i++] = e.id;
+                }
+            }
+            return i;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package org.akazukin.util.time.scheduler;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import org.akazukin.annotation.marker.ThreadSafe;
+import org.akazukin.util.time.NanoClock;
+import org.akazukin.util.time.TimeHolder;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs a task at most once per interval, however often it is triggered.
+ * <p>
+ * A trigger after a quiet interval runs the task right away. Triggers while the task is cooling down
+ * or running are collapsed into a single run once the interval since the start of the previous run has passed.
+ * Only one run is scheduled at a time, so triggers that find a run scheduled allocate nothing.
+ * <p>
+ * Every trigger is followed by a run that starts after it.
+ * Runs happen on the threads of the scheduler and use its throwable consumer.
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@ThreadSafe
+public final class Throttler {
+    IScheduler scheduler;
+    long id;
+    Runnable task;
+    long interval;
+    NanoClock clock;
+    /**
+     * The number of times a run was scheduled or released; odd while a run is scheduled or in progress.
+     * A scheduled run belongs to the state that scheduled it and does nothing once the state has moved on.
+     */
+    AtomicLong state = new AtomicLong();
+    @NonFinal
+    volatile boolean pending;
+    /**
+     * The time of the clock at which the previous run started.
+     */
+    @NonFinal
+    volatile long lastRun;
+
+    /**
+     * Constructs a throttler.
+     *
+     * @param scheduler the scheduler that runs the task. Must not be {@code null}.
+     * @param id        the id runs are scheduled with. It must not be used by other tasks of the scheduler.
+     * @param task      the task to run. Must not be {@code null}.
+     * @param interval  the minimum time between the starts of two runs.
+     */
+    public Throttler(@NotNull final IScheduler scheduler, final long id, @NotNull final Runnable task,
+                     @NotNull final TimeHolder interval) {
+        this(scheduler, id, task, interval, NanoClock.SYSTEM);
+    }
+
+    /**
+     * Constructs a throttler that measures the interval with the specified clock.
+     *
+     * @param scheduler the scheduler that runs the task. Must not be {@code null}.
+     * @param id        the id runs are scheduled with. It must not be used by other tasks of the scheduler.
+     * @param task      the task to run. Must not be {@code null}.
+     * @param interval  the minimum time between the starts of two runs.
+     * @param clock     the clock. Must not be {@code null}.
+     */
+    public Throttler(@NotNull final IScheduler scheduler, final long id, @NotNull final Runnable task,
+                     @NotNull final TimeHolder interval, @NotNull final NanoClock clock) {
+        this.scheduler = scheduler;
+        this.id = id;
+        this.task = task;
+        this.interval = interval.toConvert(TimeUnit.NANOSECONDS);
+        this.clock = clock;
+        this.lastRun = this.clock.nanoTime() - this.interval;
+    }
+
+    /**
+     * Records an event, running the task now or once the interval since the previous run has passed.
+     */
+    public void trigger() {
+        this.pending = true;
+        this.acquire();
+    }
+
+    /**
+     * Discards the pending run, if any. A run already in progress is not interrupted.
+     * <p>
+     * The discarded run stays with the scheduler and does nothing when it comes due,
+     * unless the next trigger replaces it first.
+     */
+    public void cancel() {
+        this.pending = false;
+        long state;
+        do {
+            state = this.state.get();
+            if ((state & 1) == 0) {
+                return;
+            }
+        } while (!this.state.compareAndSet(state, state + 1));
+    }
+
+    private void acquire() {
+        final long state = this.state.get();
+        if ((state & 1) == 0 && this.state.compareAndSet(state, state + 1)) {
+            this.scheduleNext(state + 1);
+        }
+    }
+
+    private void fire(final long scheduled) {
+        if (this.state.get() != scheduled) {
+            return;
+        }
+
+        this.pending = false;
+        this.lastRun = this.clock.nanoTime();
+        try {
+            this.task.run();
+        } finally {
+            if (this.pending && this.state.get() == scheduled) {
+                this.scheduleNext(scheduled);
+            } else if (this.state.compareAndSet(scheduled, scheduled + 1)) {
+                // Catch a trigger that saw the run as scheduled just before it was released
+                if (this.pending) {
+                    this.acquire();
+                }
+            }
+        }
+    }
+
+    /**
+     * Schedules the run of the specified state.
+     * <p>
+     * All runs share the id, so the run of a state that has since been cancelled may replace the run of a newer one.
+     * Whoever schedules therefore checks the state afterward and schedules the run of the current state if it differs,
+     * which leaves the last scheduled run belonging to the current state.
+     */
+    private void scheduleNext(final long scheduled) {
+        long current = scheduled;
+        while (true) {
+            final long state = current;
+            final long delay = Math.max(0, this.lastRun + this.interval - this.clock.nanoTime());
+            try {
+                this.scheduler.scheduleTask(this.id, () -> this.fire(state),
+                        new TimeHolder(delay, TimeUnit.NANOSECONDS), true);
+            } catch (final RuntimeException | Error e) {
+                this.state.compareAndSet(state, state + 1);
+                throw e;
+            }
+
+            current = this.state.get();
+            if (current == state || (current & 1) == 0) {
+                return;
+            }
+        }
+    }
+}
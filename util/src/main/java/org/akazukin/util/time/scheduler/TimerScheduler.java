@@ -4,6 +4,7 @@
 import lombok.SneakyThrows;
 import lombok.experimental.FieldDefaults;
 import org.akazukin.annotation.marker.ThreadSafe;
+import org.akazukin.util.time.NanoClock;
 import org.akazukin.util.time.TimeHolder;
 import org.jetbrains.annotations.NotNull;
 
@@ -38,6 +39,19 @@ public TimerScheduler() {
      *               {@code false} if the timer thread should run as a user thread.
      */
     public TimerScheduler(final boolean daemon) {
+        this(daemon, NanoClock.SYSTEM);
+    }
+
+    /**
+     * Constructs a {@code TimerScheduler} instance that times runs and plans looping tasks with the specified clock.
+     * The delays themselves are kept by the timer, which always follows the system clock.
+     *
+     * @param daemon {@code true} if the timer thread should run as a daemon thread,
+     *               {@code false} if the timer thread should run as a user thread.
+     * @param clock  the clock that runs are measured with. Must not be {@code null}.
+     */
+    public TimerScheduler(final boolean daemon, @NotNull final NanoClock clock) {
+        super(clock);
         this.timer = new Timer(daemon);
     }
 
@@ -47,17 +61,13 @@ public void close() {
         this.timer.cancel();
     }
 
+    /**
+     * Cancels all currently scheduled tasks and removes them from the queue of the timer.
+     */
     @Override
-    public synchronized void cancelAllTasks() {
+    public void cancelAllTasks() {
+        super.cancelAllTasks();
         this.timer.purge();
-        this.tasks.clear();
-    }
-
-    @Override
-    protected TimerTask scheduleLoopInternal(final Runnable task, final TimeHolder delay, final TimeHolder interval) {
-        final TimerTask timerTask = toTimerTask(task);
-        this.timer.scheduleAtFixedRate(timerTask, delay.toConvert(TimeUnit.MILLISECONDS), interval.toConvert(TimeUnit.MILLISECONDS));
-        return timerTask;
     }
 
     @Override
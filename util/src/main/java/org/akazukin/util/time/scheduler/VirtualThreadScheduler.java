@@ -0,0 +1,76 @@
+package org.akazukin.util.time.scheduler;
+
+import org.akazukin.annotation.marker.ThreadSafe;
+import org.akazukin.util.exception.UnsupportedLegacyOperationException;
+import org.akazukin.util.time.NanoClock;
+import org.akazukin.util.time.TimeHolder;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * VirtualThreadScheduler is an implementation of the {@link IScheduler} interface
+ * that keeps a single timing thread and runs every fired task on a new virtual thread,
+ * so tasks that block do not hold on to a pool of platform threads.
+ * <p>
+ * Virtual threads require Java 21 or later.
+ * The implementation is shipped in the Java 21 layer of the multi-release jar;
+ * on earlier runtimes this class cannot be instantiated, which can be checked with {@link #isSupported()}.
+ */
+@ThreadSafe
+public final class VirtualThreadScheduler extends AScheduler<VirtualThreadScheduler.VirtualTask> {
+    /**
+     * Constructs a scheduler with a daemon timing thread.
+     *
+     * @throws UnsupportedLegacyOperationException if the runtime does not support virtual threads
+     */
+    public VirtualThreadScheduler() {
+        throw unsupported();
+    }
+
+    /**
+     * Constructs a scheduler with a daemon timing thread that times runs and plans looping tasks with the specified clock.
+     * The delays themselves are kept by the timing thread, which always follows the system clock.
+     *
+     * @param clock the clock that runs are measured with. Must not be {@code null}.
+     * @throws UnsupportedLegacyOperationException if the runtime does not support virtual threads
+     */
+    public VirtualThreadScheduler(@NotNull final NanoClock clock) {
+        super(clock);
+        throw unsupported();
+    }
+
+    /**
+     * Returns whether the running JVM supports this scheduler.
+     *
+     * @return {@code true} on Java 21 or later
+     */
+    public static boolean isSupported() {
+        return false;
+    }
+
+    private static UnsupportedLegacyOperationException unsupported() {
+        return new UnsupportedLegacyOperationException("VirtualThreadScheduler requires Java 21 or later");
+    }
+
+    @Override
+    protected VirtualTask scheduleInternal(final Runnable task, final TimeHolder delay) {
+        throw unsupported();
+    }
+
+    @Override
+    protected void cancelInternal(@NotNull final VirtualTask task) {
+        throw unsupported();
+    }
+
+    @Override
+    public void close() {
+        throw unsupported();
+    }
+
+    /**
+     * A scheduled task of the Java 21 implementation.
+     */
+    static final class VirtualTask {
+        private VirtualTask() {
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package org.akazukin.util.time.scheduler;
+
+import org.akazukin.annotation.marker.ThreadSafe;
+import org.akazukin.util.time.NanoClock;
+import org.akazukin.util.time.TimeHolder;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * VirtualThreadScheduler is an implementation of the {@link IScheduler} interface
+ * that keeps a single timing thread and runs every fired task on a new virtual thread,
+ * so tasks that block do not hold on to a pool of platform threads.
+ * <p>
+ * The timing thread only starts the virtual threads and never runs tasks itself.
+ * Cancelling a task interrupts its running virtual thread.
+ */
+@ThreadSafe
+public final class VirtualThreadScheduler extends AScheduler<VirtualThreadScheduler.VirtualTask> {
+    private static final int TIMER_SHUTDOWN_TIMEOUT = 10;
+
+    private final ScheduledThreadPoolExecutor timer;
+    private final ThreadFactory virtualThreads;
+
+    /**
+     * Constructs a scheduler with a daemon timing thread.
+     */
+    public VirtualThreadScheduler() {
+        this(NanoClock.SYSTEM);
+    }
+
+    /**
+     * Constructs a scheduler with a daemon timing thread that times runs and plans looping tasks with the specified clock.
+     * The delays themselves are kept by the timing thread, which always follows the system clock.
+     *
+     * @param clock the clock that runs are measured with. Must not be {@code null}.
+     */
+    public VirtualThreadScheduler(@NotNull final NanoClock clock) {
+        super(clock);
+        this.timer = new ScheduledThreadPoolExecutor(1,
+                Thread.ofPlatform().name("VirtualThreadScheduler-timer").daemon().factory());
+        this.timer.setRemoveOnCancelPolicy(true);
+        this.virtualThreads = Thread.ofVirtual().name("VirtualThreadScheduler-task-", 0).factory();
+    }
+
+    /**
+     * Returns whether the running JVM supports this scheduler.
+     *
+     * @return {@code true} on Java 21 or later
+     */
+    public static boolean isSupported() {
+        return true;
+    }
+
+    @Override
+    protected VirtualTask scheduleInternal(final Runnable task, final TimeHolder delay) {
+        final VirtualTask virtualTask = new VirtualTask(task, this.virtualThreads);
+        virtualTask.timer = this.timer.schedule(virtualTask::fire,
+                delay.toConvert(TimeUnit.NANOSECONDS),
+                TimeUnit.NANOSECONDS);
+        return virtualTask;
+    }
+
+    @Override
+    protected void cancelInternal(@NotNull final VirtualTask task) {
+        task.cancel();
+    }
+
+    /**
+     * Terminates the scheduler by canceling all scheduled tasks and stopping the timing thread.
+     * Tasks already running on virtual threads are interrupted by the cancellation.
+     * Once this method is called, the scheduler is no longer operational, and no further tasks can be scheduled.
+     */
+    @Override
+    public void close() {
+        this.cancelAllTasks();
+        this.timer.shutdown();
+        try {
+            if (!this.timer.awaitTermination(TIMER_SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+                this.timer.shutdownNow();
+            }
+        } catch (final InterruptedException e) {
+            this.timer.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A scheduled task, fired by the timing thread and run on a virtual thread.
+     */
+    static final class VirtualTask {
+        private final Runnable task;
+        private final ThreadFactory threads;
+        private volatile Future<?> timer;
+        private volatile Thread runner;
+        private volatile boolean cancelled;
+
+        private VirtualTask(final Runnable task, final ThreadFactory threads) {
+            this.task = task;
+            this.threads = threads;
+        }
+
+        /**
+         * Starts a run on a new virtual thread. Only called by the timing thread.
+         */
+        private void fire() {
+            if (this.cancelled) {
+                return;
+            }
+
+            final Thread thread = this.threads.newThread(this::run);
+            this.runner = thread;
+            thread.start();
+        }
+
+        private void run() {
+            try {
+                if (!this.cancelled) {
+                    this.task.run();
+                }
+            } finally {
+                this.runner = null;
+            }
+        }
+
+        private void cancel() {
+            this.cancelled = true;
+            this.timer.cancel(false);
+            final Thread thread = this.runner;
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.akazukin.util.time.scheduler;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Finds the class that called into a scheduler.
+ * <p>
+ * This implementation walks the stack lazily with {@link StackWalker} and stops at the first matching frame,
+ * without filling a stack trace.
+ */
+final class CallerClassLocator {
+    private static final StackWalker WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    private CallerClassLocator() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Returns the innermost class on the current stack that is neither a scheduler nor part of the capture machinery.
+     *
+     * @return the calling class, or {@code null} if it cannot be determined
+     */
+    @Nullable
+    static Class<?> find() {
+        return WALKER.walk(frames -> frames
+                .<Class<?>>map(StackWalker.StackFrame::getDeclaringClass)
+                .filter(c -> !isInternal(c))
+                .findFirst()
+                .orElse(null));
+    }
+
+    static boolean isInternal(final Class<?> c) {
+        return IScheduler.class.isAssignableFrom(c)
+                || c == StackCapturePolicy.class
+                || c == CallerClassLocator.class;
+    }
+}
@@ -0,0 +1,160 @@
+package org.akazukin.util.concurrent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.akazukin.util.time.TimeHolder;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConditionalAtomicReferenceTest {
+    private static ConditionalAtomicReference<Long> newest(final long value) {
+        return new ConditionalAtomicReference<>((oldValue, newValue) -> newValue > oldValue, value);
+    }
+
+    @Test
+    public void update_applies_predicate() {
+        final ConditionalAtomicReference<Long> ref = newest(10);
+        assertFalse(ref.update(5L));
+        assertTrue(ref.update(20L));
+        assertEquals(20L, ref.getValue());
+    }
+
+    @Test
+    public void functional_updates_apply_predicate() {
+        final ConditionalAtomicReference<Long> ref = newest(10);
+        assertEquals(11L, ref.updateAndGet(v -> v + 1));
+        assertEquals(11L, ref.updateAndGet(v -> v - 1));
+        assertEquals(11L, ref.getAndUpdate(v -> v + 1));
+        assertEquals(12L, ref.getValue());
+        assertEquals(12L, ref.accumulateAndGet(3L, Math::max));
+        assertEquals(12L, ref.getAndAccumulate(20L, Math::max));
+        assertEquals(20L, ref.getValue());
+    }
+
+    @Test
+    public void concurrent_updates_keep_the_newest_value() throws Exception {
+        final ConditionalAtomicReference<Long> ref = newest(0);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int t = 0; t < 4; t++) {
+                final long offset = t;
+                executor.execute(() -> {
+                    for (long i = 0; i < 10_000; i++) {
+                        ref.update(i * 4 + offset);
+                    }
+                });
+            }
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+            assertEquals(9_999L * 4 + 3, ref.getValue());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void await_until_wakes_on_matching_update() throws Exception {
+        final ConditionalAtomicReference<Long> ref = newest(0);
+        assertTrue(ref.awaitUntil(v -> v == 0, new TimeHolder(0, TimeUnit.MILLISECONDS)));
+        assertFalse(ref.awaitUntil(v -> v >= 10, new TimeHolder(20, TimeUnit.MILLISECONDS)));
+
+        final AtomicInteger calls = new AtomicInteger();
+        final CompletableFuture<Boolean> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return ref.awaitUntil(v -> {
+                    calls.incrementAndGet();
+                    return v >= 10;
+                }, new TimeHolder(1, TimeUnit.SECONDS));
+            } catch (final InterruptedException e) {
+                return false;
+            }
+        });
+        Thread.sleep(20);
+        ref.update(5L);
+        ref.update(10L);
+        assertTrue(waiting.get(1, TimeUnit.SECONDS));
+
+        // The waiter is gone once the thread stops waiting
+        final int callsAtReturn = calls.get();
+        ref.update(20L);
+        assertEquals(callsAtReturn, calls.get());
+    }
+
+    @Test
+    public void when_matches_completes_with_matching_value() throws Exception {
+        final ConditionalAtomicReference<Long> ref = newest(0);
+        final AtomicInteger calls = new AtomicInteger();
+        final CompletableFuture<Long> future = ref.whenMatches(v -> {
+            calls.incrementAndGet();
+            return v >= 10;
+        });
+        final CompletableFuture<Long> cancelled = ref.whenMatches(v -> v >= 10);
+        cancelled.cancel(false);
+        assertFalse(future.isDone());
+
+        ref.update(5L);
+        assertFalse(future.isDone());
+        ref.update(12L);
+        assertEquals(12L, future.get(1, TimeUnit.SECONDS));
+        assertTrue(ref.whenMatches(v -> v == 12).isDone());
+
+        // The waiter is gone once its future is completed
+        final int callsAtCompletion = calls.get();
+        ref.update(20L);
+        assertEquals(callsAtCompletion, calls.get());
+    }
+
+    @Test
+    public void when_matches_completed_on_registration_is_not_kept() {
+        final ConditionalAtomicReference<Long> ref = newest(0);
+        final AtomicInteger calls = new AtomicInteger();
+        // Rejects the value on the first check and accepts it on the recheck after registering
+        final CompletableFuture<Long> future = ref.whenMatches(v -> calls.incrementAndGet() > 1);
+        assertTrue(future.isDone());
+        assertEquals(2, calls.get());
+
+        ref.update(5L);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void throwing_predicate_fails_only_its_waiter() throws Exception {
+        final ConditionalAtomicReference<Long> ref = newest(0);
+        final CompletableFuture<Long> throwing = ref.whenMatches(v -> {
+            if (v >= 10) {
+                throw new IllegalStateException("fail");
+            }
+            return false;
+        });
+        final CompletableFuture<Long> future = ref.whenMatches(v -> v >= 10);
+        final CompletableFuture<Throwable> awaiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                ref.awaitUntil(v -> {
+                    if (v >= 10) {
+                        throw new IllegalArgumentException("fail");
+                    }
+                    return false;
+                }, new TimeHolder(1, TimeUnit.SECONDS));
+                return null;
+            } catch (final Throwable t) {
+                return t;
+            }
+        });
+        Thread.sleep(20);
+
+        assertTrue(ref.update(10L));
+        assertEquals(10L, ref.getValue());
+        assertEquals(10L, future.get(1, TimeUnit.SECONDS));
+        final ExecutionException failure = assertThrows(ExecutionException.class, throwing::get);
+        assertEquals(IllegalStateException.class, failure.getCause().getClass());
+        assertEquals(IllegalArgumentException.class, awaiting.get(1, TimeUnit.SECONDS).getClass());
+    }
+}
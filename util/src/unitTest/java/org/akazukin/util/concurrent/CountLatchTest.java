@@ -0,0 +1,78 @@
+package org.akazukin.util.concurrent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+public class CountLatchTest {
+    @Test
+    public void callbacks_run_in_registration_order_on_zero() {
+        final CountLatch latch = new CountLatch(2);
+        final List<Integer> order = new ArrayList<>();
+        latch.onZero(() -> order.add(1), Runnable::run);
+        latch.onZero(() -> order.add(2), Runnable::run);
+
+        latch.release();
+        assertTrue(order.isEmpty());
+        latch.release();
+        assertEquals(Arrays.asList(1, 2), order);
+
+        latch.onZero(() -> order.add(3), Runnable::run);
+        assertEquals(Arrays.asList(1, 2, 3), order);
+    }
+
+    @Test
+    public void future_completes_when_count_reaches_zero() throws Exception {
+        final CountLatch latch = new CountLatch(1);
+        final CompletableFuture<Void> future = latch.toCompletableFuture();
+        assertFalse(future.isDone());
+
+        CompletableFuture.runAsync(latch::release);
+        future.get(1, TimeUnit.SECONDS);
+        assertTrue(new CountLatch(0).toCompletableFuture().isDone());
+    }
+
+    @Test
+    public void add_count_only_before_zero() {
+        final CountLatch latch = new CountLatch(1);
+        assertTrue(latch.addCount(2));
+        assertEquals(3, latch.getCount());
+
+        latch.release();
+        latch.release();
+        latch.release();
+        assertEquals(0, latch.getCount());
+        assertFalse(latch.addCount(1));
+        assertEquals(0, latch.getCount());
+    }
+
+    @Test
+    public void failing_callbacks_do_not_stop_the_others_or_the_release() {
+        final CountLatch latch = new CountLatch(1);
+        final List<Throwable> failures = new ArrayList<>();
+        latch.setThrowableConsumer(failures::add);
+        final List<Integer> order = new ArrayList<>();
+        latch.onZero(() -> {
+            throw new IllegalStateException("first");
+        }, Runnable::run);
+        latch.onZero(() -> order.add(1), Runnable::run);
+        latch.onZero(() -> {
+            throw new AssertionError("second");
+        }, Runnable::run);
+        latch.onZero(() -> order.add(2), Runnable::run);
+
+        latch.release();
+        assertEquals(0, latch.getCount());
+        assertEquals(Arrays.asList(1, 2), order);
+        assertEquals(1, failures.size());
+        assertEquals("first", failures.get(0).getMessage());
+        assertEquals(AssertionError.class, failures.get(0).getSuppressed()[0].getClass());
+    }
+}
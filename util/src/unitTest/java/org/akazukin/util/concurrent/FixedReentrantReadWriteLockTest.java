@@ -1,9 +1,13 @@
 package org.akazukin.util.concurrent;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
+import org.akazukin.util.time.TimeHolder;
 import org.junit.jupiter.api.Test;
 
 import java.util.concurrent.CompletableFuture;
@@ -406,4 +410,225 @@ public void lent_locks_are_restored_after_exclusive_release() throws Exception {
         assertEquals(1, lockCountAfterExclusiveRelease.get());
         assertEquals(0, locker.getLockCount());
     }
+
+    @Test
+    public void lent_lock_released_while_lent_is_not_restored() throws Exception {
+        final FixedReentrantReadWriteLock locker = new FixedReentrantReadWriteLock();
+        final CompletableFuture<Void> exclusiveHeld = new CompletableFuture<>();
+        final CompletableFuture<Void> sharedReleased = new CompletableFuture<>();
+
+        final CompletableFuture<Boolean> sharedFuture = CompletableFuture.supplyAsync(() -> {
+            try (final FixedReentrantReadWriteLock.ILock lock = locker.sharedLock()) {
+                lock.setLendable(true);
+                exclusiveHeld.join();
+                assertNull(locker.getLockType());
+            }
+            sharedReleased.complete(null);
+            return true;
+        });
+
+        Thread.sleep(50);
+
+        final CompletableFuture<Boolean> exclusiveFuture = CompletableFuture.supplyAsync(() -> {
+            try (final FixedReentrantReadWriteLock.ILock lock = locker.exclusiveLock()) {
+                exclusiveHeld.complete(null);
+                sharedReleased.join();
+                assertEquals(1, locker.getLockCount());
+                return true;
+            }
+        });
+
+        assertTrue(sharedFuture.get(1, TimeUnit.SECONDS));
+        assertTrue(exclusiveFuture.get(1, TimeUnit.SECONDS));
+        assertEquals(0, locker.getLockCount());
+    }
+
+    @Test
+    public void release_from_other_thread_is_rejected() throws Exception {
+        final FixedReentrantReadWriteLock locker = new FixedReentrantReadWriteLock();
+        final FixedReentrantReadWriteLock.ILock lock = locker.sharedLock();
+
+        final CompletableFuture<Boolean> fut = CompletableFuture.supplyAsync(() -> {
+            try {
+                lock.close();
+                return false;
+            } catch (final IllegalMonitorStateException e) {
+                return true;
+            }
+        });
+
+        assertTrue(fut.get(1, TimeUnit.SECONDS));
+        assertEquals(1, locker.getLockCount());
+        lock.close();
+        assertEquals(0, locker.getLockCount());
+    }
+
+    @Test
+    public void optimistic_read_validates_until_exclusive_acquired() throws Exception {
+        final FixedReentrantReadWriteLock locker = new FixedReentrantReadWriteLock();
+
+        final long stamp = locker.tryOptimisticRead();
+        assertTrue(stamp != 0);
+        try (final FixedReentrantReadWriteLock.ILock lock = locker.sharedLock()) {
+            assertTrue(locker.validate(stamp));
+        }
+        assertTrue(locker.validate(stamp));
+        assertEquals(0, locker.getLockCount());
+
+        final CompletableFuture<Long> fut = CompletableFuture.supplyAsync(() -> {
+            try (final FixedReentrantReadWriteLock.ILock lock = locker.exclusiveLock()) {
+                return locker.tryOptimisticRead();
+            }
+        });
+
+        assertEquals(0L, (long) fut.get(1, TimeUnit.SECONDS));
+        assertFalse(locker.validate(stamp));
+        assertTrue(locker.validate(locker.tryOptimisticRead()));
+        assertFalse(locker.validate(0));
+    }
+
+    @Test
+    public void try_lock_returns_null_when_unavailable() throws Exception {
+        final FixedReentrantReadWriteLock locker = new FixedReentrantReadWriteLock();
+
+        try (final FixedReentrantReadWriteLock.ILock lock = locker.sharedLock()) {
+            final CompletableFuture<Boolean> fut = CompletableFuture.supplyAsync(() -> {
+                try {
+                    assertNull(locker.tryExclusiveLock());
+                    assertNull(locker.tryExclusiveLock(new TimeHolder(50, TimeUnit.MILLISECONDS)));
+                    try (final FixedReentrantReadWriteLock.ILock shared = locker.trySharedLock()) {
+                        assertNotNull(shared);
+                        assertEquals(2, locker.getLockCount());
+                    }
+                    return true;
+                } catch (final InterruptedException e) {
+                    return false;
+                }
+            });
+
+            assertTrue(fut.get(1, TimeUnit.SECONDS));
+        }
+
+        try (final FixedReentrantReadWriteLock.ILock lock = locker.tryExclusiveLock(new TimeHolder(50, TimeUnit.MILLISECONDS))) {
+            assertNotNull(lock);
+            assertEquals(FixedReentrantReadWriteLock.LockType.EXCLUSIVE, locker.getLockType());
+        }
+        assertEquals(0, locker.getLockCount());
+    }
+
+    @Test
+    public void interruptible_lock_throws_when_interrupted() throws Exception {
+        final FixedReentrantReadWriteLock locker = new FixedReentrantReadWriteLock();
+
+        try (final FixedReentrantReadWriteLock.ILock lock = locker.exclusiveLock()) {
+            final CompletableFuture<Boolean> fut = CompletableFuture.supplyAsync(() -> {
+                Thread.currentThread().interrupt();
+                try (final FixedReentrantReadWriteLock.ILock shared = locker.sharedLockInterruptibly()) {
+                    return false;
+                } catch (final InterruptedException e) {
+                    return true;
+                }
+            });
+
+            assertTrue(fut.get(1, TimeUnit.SECONDS));
+            assertEquals(1, locker.getLockCount());
+        }
+    }
+
+    @Test
+    public void statistics_count_acquisitions_and_failures() throws Exception {
+        assertNull(new FixedReentrantReadWriteLock().getStatistics());
+
+        final FixedReentrantReadWriteLock locker = new FixedReentrantReadWriteLock(true);
+        try (final FixedReentrantReadWriteLock.ILock lock = locker.sharedLock()) {
+            lock.setLendable(true);
+            try (final FixedReentrantReadWriteLock.ILock shared = locker.sharedLock()) {
+                assertNotNull(shared);
+            }
+
+            final CompletableFuture<Boolean> fut = CompletableFuture.supplyAsync(() -> {
+                try (final FixedReentrantReadWriteLock.ILock exclusive = locker.exclusiveLock();
+                     final FixedReentrantReadWriteLock.ILock shared = locker.trySharedLock()) {
+                    return shared != null;
+                }
+            });
+            assertTrue(fut.get(1, TimeUnit.SECONDS));
+        }
+
+        try (final FixedReentrantReadWriteLock.ILock lock = locker.exclusiveLock()) {
+            assertFalse(CompletableFuture.supplyAsync(() -> locker.trySharedLock() != null).get(1, TimeUnit.SECONDS));
+        }
+
+        final LockStatistics.Snapshot snapshot = locker.getStatistics();
+        assertNotNull(snapshot);
+        assertEquals(2, snapshot.getAcquireCount(FixedReentrantReadWriteLock.LockType.EXCLUSIVE));
+        assertEquals(3, snapshot.getAcquireCount(FixedReentrantReadWriteLock.LockType.SHARED));
+        assertEquals(1, snapshot.getFailureCount(FixedReentrantReadWriteLock.LockType.SHARED));
+        assertEquals(1, snapshot.getLendCount());
+        assertEquals(3, snapshot.getHoldTime(FixedReentrantReadWriteLock.LockType.SHARED).getCount());
+        assertEquals(0, snapshot.getQueueLength());
+    }
+
+    @Test
+    public void closing_a_handle_again_has_no_effect() {
+        final FixedReentrantReadWriteLock locker = new FixedReentrantReadWriteLock();
+        try (final FixedReentrantReadWriteLock.ILock outer = locker.sharedLock()) {
+            final FixedReentrantReadWriteLock.ILock inner = locker.sharedLock();
+            inner.close();
+            inner.close();
+            inner.setLendable(true);
+            assertEquals(1, locker.getLockCount());
+            assertEquals(FixedReentrantReadWriteLock.LockType.SHARED, locker.getLockType());
+        }
+        assertEquals(0, locker.getLockCount());
+    }
+
+    @Test
+    public void released_handles_are_reused() {
+        final FixedReentrantReadWriteLock locker = new FixedReentrantReadWriteLock();
+        final FixedReentrantReadWriteLock.ILock shared = locker.sharedLock();
+        shared.setLendable(true);
+        shared.close();
+
+        try (final FixedReentrantReadWriteLock.ILock exclusive = locker.exclusiveLock()) {
+            assertSame(shared, exclusive);
+            assertEquals(FixedReentrantReadWriteLock.LockType.EXCLUSIVE, locker.getLockType());
+            assertFalse(((FixedReentrantReadWriteLock.Lock) exclusive).isLendable());
+        }
+        assertEquals(0, locker.getLockCount());
+        assertNull(locker.getLockType());
+    }
+
+    @Test
+    public void lending_beyond_the_limit_is_rejected() throws Exception {
+        final FixedReentrantReadWriteLock locker = new FixedReentrantReadWriteLock();
+        final FixedReentrantReadWriteLock.ILock[] locks = new FixedReentrantReadWriteLock.ILock[4096];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = locker.sharedLock();
+            locks[i].setLendable(true);
+        }
+
+        assertTrue(CompletableFuture.supplyAsync(() -> {
+            try {
+                locker.tryExclusiveLock();
+                return false;
+            } catch (final Error e) {
+                return true;
+            }
+        }).get(1, TimeUnit.SECONDS));
+        assertEquals(locks.length, locker.getLockCount());
+
+        // One hold fewer fits, and is restored in full on release
+        locks[locks.length - 1].close();
+        assertTrue(CompletableFuture.supplyAsync(() -> {
+            try (final FixedReentrantReadWriteLock.ILock exclusive = locker.tryExclusiveLock()) {
+                return exclusive != null && locker.getLockCount() == 1;
+            }
+        }).get(1, TimeUnit.SECONDS));
+        assertEquals(locks.length - 1, locker.getLockCount());
+        for (final FixedReentrantReadWriteLock.ILock lock : locks) {
+            lock.close();
+        }
+        assertEquals(0, locker.getLockCount());
+    }
 }
@@ -0,0 +1,92 @@
+package org.akazukin.util.concurrent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class StripedCountLatchTest {
+    @Test
+    public void concurrent_releases_reach_zero_exactly() throws Exception {
+        final int threads = 8;
+        final int perThread = 10_000;
+        final StripedCountLatch latch = new StripedCountLatch(threads * perThread, 16);
+        assertEquals(threads * perThread, latch.getCount());
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int t = 0; t < threads; t++) {
+                executor.execute(() -> {
+                    for (int i = 0; i < perThread - 1; i++) {
+                        latch.release();
+                    }
+                });
+            }
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+            assertEquals(threads, latch.getCount());
+            assertFalse(latch.await(10, TimeUnit.MILLISECONDS));
+            for (int t = 0; t < threads; t++) {
+                latch.release();
+            }
+            assertTrue(latch.await(1, TimeUnit.SECONDS));
+            assertEquals(0, latch.getCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void contended_live_cell_among_drained_cells_loses_no_release() throws Exception {
+        final int threads = 8;
+        final int perThread = 2_000;
+        for (int round = 0; round < 20; round++) {
+            final StripedCountLatch latch = new StripedCountLatch(8 * threads * perThread, 8);
+            // A single thread drains its cells in order, which leaves exactly one live cell
+            for (int i = 0; i < 7 * threads * perThread; i++) {
+                latch.release();
+            }
+            assertEquals(threads * perThread, latch.getCount());
+
+            final CountDownLatch start = new CountDownLatch(1);
+            final ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                for (int t = 0; t < threads; t++) {
+                    executor.execute(() -> {
+                        try {
+                            start.await();
+                        } catch (final InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                        for (int i = 0; i < perThread; i++) {
+                            latch.release();
+                        }
+                    });
+                }
+                start.countDown();
+                executor.shutdown();
+                assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+                assertEquals(0, latch.getCount());
+                assertTrue(latch.await(1, TimeUnit.SECONDS));
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    @Test
+    public void zero_count_is_released_immediately() throws Exception {
+        final StripedCountLatch latch = new StripedCountLatch(0);
+        latch.await();
+        latch.release();
+        assertEquals(0, latch.getCount());
+    }
+}
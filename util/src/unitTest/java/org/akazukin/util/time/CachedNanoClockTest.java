@@ -0,0 +1,30 @@
+package org.akazukin.util.time;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+class CachedNanoClockTest {
+    @Test
+    void testClockAdvancesByResolution() throws Exception {
+        try (final CachedNanoClock clock = new CachedNanoClock(new TimeHolder(1, TimeUnit.MILLISECONDS))) {
+            final long start = clock.nanoTime();
+            Thread.sleep(50);
+            final long elapsed = clock.nanoTime() - start;
+            assertTrue(elapsed >= TimeUnit.MILLISECONDS.toNanos(30), "elapsed: " + elapsed);
+            assertTrue(System.nanoTime() - clock.nanoTime() >= 0);
+        }
+    }
+
+    @Test
+    void testClosedClockStops() throws Exception {
+        final CachedNanoClock clock = new CachedNanoClock(new TimeHolder(1, TimeUnit.MILLISECONDS));
+        clock.close();
+        Thread.sleep(10);
+        final long stopped = clock.nanoTime();
+        Thread.sleep(10);
+        assertEquals(stopped, clock.nanoTime());
+    }
+}
@@ -0,0 +1,73 @@
+package org.akazukin.util.time;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+class TimerTest {
+    @Test
+    void testPassedTimeFollowsClock() {
+        final ManualNanoClock clock = new ManualNanoClock(1_000);
+        final Timer timer = new Timer(clock);
+        clock.advance(new TimeHolder(5, TimeUnit.SECONDS));
+        assertEquals(5, timer.getPassedTime().toConvert(TimeUnit.SECONDS));
+
+        timer.reset();
+        assertEquals(0, timer.getPassedTime().toConvert(TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    void testPausedTimeIsExcluded() {
+        final ManualNanoClock clock = new ManualNanoClock();
+        final Timer timer = new Timer(clock);
+        clock.advance(100);
+        timer.pause();
+        assertTrue(timer.isPaused());
+
+        clock.advance(1_000);
+        assertEquals(100, timer.getPassedTime().toConvert(TimeUnit.NANOSECONDS));
+
+        timer.resume();
+        assertFalse(timer.isPaused());
+        clock.advance(10);
+        assertEquals(110, timer.getPassedTime().toConvert(TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    void testNanosQueries() {
+        final ManualNanoClock clock = new ManualNanoClock();
+        final Timer timer = new Timer(clock);
+        clock.advance(300);
+        assertEquals(300, timer.passedNanos());
+        assertEquals(200, timer.leftNanos(500));
+        assertFalse(timer.hasPassedNanos(500));
+        assertFalse(timer.hasPassedTime(new TimeHolder(500, TimeUnit.NANOSECONDS)));
+        assertEquals(200, timer.getLeftTime(new TimeHolder(500, TimeUnit.NANOSECONDS)).toConvert(TimeUnit.NANOSECONDS));
+
+        clock.advance(200);
+        assertEquals(0, timer.leftNanos(500));
+        assertTrue(timer.hasPassedNanos(500));
+        assertTrue(timer.hasPassedTime(new TimeHolder(500, TimeUnit.NANOSECONDS)));
+    }
+
+    @Test
+    void testPauseAtAnyClockReading() {
+        // A reading of -1 is a valid time of the clock, not a marker of a running timer
+        final ManualNanoClock clock = new ManualNanoClock(-101);
+        final Timer timer = new Timer(clock);
+        clock.advance(100);
+        timer.pause();
+        assertTrue(timer.isPaused());
+
+        clock.advance(50);
+        assertEquals(100, timer.passedNanos());
+        timer.pause();
+        timer.resume();
+        timer.resume();
+        assertFalse(timer.isPaused());
+        assertEquals(100, timer.passedNanos());
+    }
+}
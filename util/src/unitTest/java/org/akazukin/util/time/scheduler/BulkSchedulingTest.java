@@ -0,0 +1,102 @@
+package org.akazukin.util.time.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.akazukin.util.time.TimeHolder;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BulkSchedulingTest {
+    private static final int SIZE = 1000;
+
+    private static long[] ids() {
+        final long[] ids = new long[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            ids[i] = i;
+        }
+        return ids;
+    }
+
+    /**
+     * Returns the even ids and one id that was never scheduled.
+     */
+    private static long[] halfOfTheIds() {
+        final long[] ids = new long[SIZE / 2 + 1];
+        for (int i = 0; i < SIZE / 2; i++) {
+            ids[i] = i * 2;
+        }
+        ids[SIZE / 2] = SIZE;
+        return ids;
+    }
+
+    @Test
+    public void bulk_scheduled_tasks_run_unless_cancelled() throws Exception {
+        SchedulerBackends.forEach(scheduler -> {
+            final CountDownLatch latch = new CountDownLatch(SIZE / 2);
+            final Runnable[] tasks = new Runnable[SIZE];
+            for (int i = 0; i < SIZE; i++) {
+                tasks[i] = latch::countDown;
+            }
+
+            final long[] ids = ids();
+            assertEquals(SIZE, scheduler.scheduleTasks(ids, tasks, new TimeHolder(50, TimeUnit.MILLISECONDS)));
+            assertEquals(0, scheduler.scheduleTasks(ids, tasks, new TimeHolder(50, TimeUnit.MILLISECONDS), false));
+            assertEquals(SIZE, scheduler.getAllScheduledTasks().length);
+
+            assertEquals(SIZE / 2, scheduler.cancelTasks(halfOfTheIds()));
+
+            assertTrue(latch.await(1, TimeUnit.SECONDS));
+            for (int i = 0; i < 100 && scheduler.getAllScheduledTasks().length > 0; i++) {
+                Thread.sleep(10);
+            }
+            assertEquals(0, scheduler.getAllScheduledTasks().length);
+        });
+    }
+
+    @Test
+    public void bulk_scheduled_loops_run_until_cancelled() throws Exception {
+        SchedulerBackends.forEach(scheduler -> {
+            final AtomicInteger[] runs = new AtomicInteger[SIZE];
+            final Runnable[] tasks = new Runnable[SIZE];
+            for (int i = 0; i < SIZE; i++) {
+                final AtomicInteger count = runs[i] = new AtomicInteger();
+                tasks[i] = count::incrementAndGet;
+            }
+
+            final long[] ids = ids();
+            final TimeHolder interval = new TimeHolder(5, TimeUnit.MILLISECONDS);
+            assertEquals(SIZE, scheduler.scheduleLoopingTasks(ids, tasks, interval, interval));
+            assertEquals(0, scheduler.scheduleLoopingTasks(ids, tasks, interval, interval, false));
+
+            assertEquals(SIZE / 2, scheduler.cancelTasks(halfOfTheIds()));
+            assertEquals(SIZE / 2, scheduler.getAllScheduledTasks().length);
+
+            // The odd loops keep running
+            for (int i = 0; i < 100 && runs[SIZE - 1].get() < 2; i++) {
+                Thread.sleep(10);
+            }
+            assertTrue(runs[SIZE - 1].get() >= 2);
+
+            scheduler.cancelTasks(ids);
+            assertEquals(0, scheduler.getAllScheduledTasks().length);
+        });
+    }
+
+    @Test
+    public void bulk_calls_of_differing_lengths_are_rejected() throws Exception {
+        SchedulerBackends.forEach(scheduler -> {
+            final TimeHolder delay = new TimeHolder(1, TimeUnit.MILLISECONDS);
+            assertThrows(IllegalArgumentException.class,
+                    () -> scheduler.scheduleTasks(new long[]{1, 2}, new Runnable[]{() -> {
+                    }}, delay));
+            assertThrows(IllegalArgumentException.class,
+                    () -> scheduler.scheduleLoopingTasks(new long[]{1, 2}, new Runnable[]{() -> {
+                    }}, delay, delay));
+            assertEquals(0, scheduler.getAllScheduledTasks().length);
+        });
+    }
+}
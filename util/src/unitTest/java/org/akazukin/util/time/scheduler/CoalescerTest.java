@@ -0,0 +1,72 @@
+package org.akazukin.util.time.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.akazukin.util.time.TimeHolder;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class CoalescerTest {
+    @Test
+    public void concurrent_triggers_are_counted_once() throws Exception {
+        try (final HashedWheelScheduler scheduler = new HashedWheelScheduler(new TimeHolder(1, TimeUnit.MILLISECONDS), 8)) {
+            final AtomicLong total = new AtomicLong();
+            final AtomicInteger batches = new AtomicInteger();
+            final Coalescer coalescer = new Coalescer(scheduler, 1, count -> {
+                total.addAndGet(count);
+                batches.incrementAndGet();
+            }, new TimeHolder(10, TimeUnit.MILLISECONDS));
+
+            final int threads = 4;
+            final int triggers = 250_000;
+            final CountDownLatch done = new CountDownLatch(threads);
+            for (int t = 0; t < threads; t++) {
+                new Thread(() -> {
+                    for (int i = 0; i < triggers; i++) {
+                        coalescer.trigger();
+                    }
+                    done.countDown();
+                }).start();
+            }
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            Thread.sleep(50);
+            assertEquals((long) threads * triggers, total.get());
+            assertEquals(0, coalescer.getPendingCount());
+            assertTrue(batches.get() < threads * triggers / 100, "batches: " + batches.get());
+        }
+    }
+
+    @Test
+    public void trigger_during_cancel_is_not_lost() throws Exception {
+        try (final HashedWheelScheduler wheel = new HashedWheelScheduler(new TimeHolder(1, TimeUnit.MILLISECONDS), 8)) {
+            final GatedScheduler scheduler = new GatedScheduler(wheel);
+            final Semaphore batches = new Semaphore(0);
+            final Coalescer coalescer = new Coalescer(scheduler, 1, count -> batches.release(),
+                    new TimeHolder(100, TimeUnit.MILLISECONDS));
+            coalescer.trigger();
+
+            final Thread canceller = new Thread(() -> {
+                coalescer.cancel();
+                scheduler.reached.release();
+            });
+            scheduler.gated = canceller;
+            canceller.start();
+            // The cancellation is either held at the scheduler or done
+            scheduler.reached.acquire();
+            coalescer.trigger();
+            scheduler.gate.countDown();
+            canceller.join();
+
+            assertTrue(batches.tryAcquire(1, TimeUnit.SECONDS));
+            coalescer.trigger();
+            assertTrue(batches.tryAcquire(1, TimeUnit.SECONDS));
+            assertEquals(0, coalescer.getPendingCount());
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.akazukin.util.time.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class CronExpressionTest {
+    private static ZonedDateTime at(final int year, final int month, final int day, final int hour, final int minute) {
+        return ZonedDateTime.of(year, month, day, hour, minute, 0, 0, ZoneOffset.UTC);
+    }
+
+    @Test
+    public void next_fire_jumps_to_matching_fields() {
+        assertEquals(at(2024, 1, 1, 0, 15),
+                CronExpression.parse("*/15 * * * *").nextFireAfter(at(2024, 1, 1, 0, 0)));
+        assertEquals(at(2024, 1, 2, 9, 30),
+                CronExpression.parse("30 9 * * *").nextFireAfter(at(2024, 1, 1, 9, 30)));
+        assertEquals(at(2025, 1, 1, 0, 0),
+                CronExpression.parse("0 0 1 JAN *").nextFireAfter(at(2024, 1, 1, 0, 0)));
+        // 2024-01-06 is a Saturday
+        assertEquals(at(2024, 1, 8, 8, 0),
+                CronExpression.parse("0 8 * * MON-FRI").nextFireAfter(at(2024, 1, 5, 8, 0)));
+        assertEquals(at(2028, 2, 29, 12, 0),
+                CronExpression.parse("0 12 29 2 *").nextFireAfter(at(2024, 3, 1, 0, 0)));
+        assertEquals(ZonedDateTime.of(2024, 1, 1, 0, 0, 10, 0, ZoneOffset.UTC),
+                CronExpression.parse("10 * * * * *").nextFireAfter(at(2024, 1, 1, 0, 0)));
+    }
+
+    @Test
+    public void restricted_days_match_either_field() {
+        // The 15th of the month or any Sunday; 2024-01-07 is a Sunday
+        final CronExpression cron = CronExpression.parse("0 0 15 * SUN");
+        assertEquals(at(2024, 1, 7, 0, 0), cron.nextFireAfter(at(2024, 1, 1, 0, 0)));
+        assertEquals(at(2024, 1, 15, 0, 0), cron.nextFireAfter(at(2024, 1, 14, 0, 0)));
+    }
+
+    @Test
+    public void parse_caches_and_validates() {
+        assertSame(CronExpression.parse("0 0 * * *"), CronExpression.parse("0 0 * * *"));
+        assertNull(CronExpression.parse("0 0 30 2 *").nextFireAfter(at(2024, 1, 1, 0, 0)));
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("0 0 * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("60 * * * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("*/0 * * * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("0 0 * FOO *"));
+    }
+
+    @Test
+    public void cron_task_fires_on_schedule() throws Exception {
+        try (final ExecutorsScheduler scheduler = new ExecutorsScheduler()) {
+            final CountDownLatch fired = new CountDownLatch(2);
+            assertTrue(scheduler.scheduleCronTask(1, fired::countDown, "* * * * * *"));
+            assertTrue(fired.await(3, TimeUnit.SECONDS));
+            assertTrue(scheduler.isScheduled(1));
+
+            scheduler.cancelTask(1);
+            assertThrows(IllegalArgumentException.class,
+                    () -> scheduler.scheduleCronTask(2, () -> {
+                    }, "0 0 30 2 *"));
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package org.akazukin.util.time.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.akazukin.util.time.TimeHolder;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DebouncerTest {
+    @Test
+    public void burst_runs_once_after_quiet_period() throws Exception {
+        try (final HashedWheelScheduler scheduler = new HashedWheelScheduler(new TimeHolder(1, TimeUnit.MILLISECONDS), 8)) {
+            final AtomicInteger runs = new AtomicInteger();
+            final Debouncer debouncer = new Debouncer(scheduler, 1, runs::incrementAndGet,
+                    new TimeHolder(30, TimeUnit.MILLISECONDS));
+            for (int i = 0; i < 10; i++) {
+                for (int j = 0; j < 100_000; j++) {
+                    debouncer.trigger();
+                }
+                Thread.sleep(5);
+            }
+            assertTrue(debouncer.isPending());
+            assertEquals(0, runs.get());
+
+            Thread.sleep(100);
+            assertEquals(1, runs.get());
+            assertFalse(debouncer.isPending());
+        }
+    }
+
+    @Test
+    public void max_delay_bounds_endless_burst() throws Exception {
+        try (final HashedWheelScheduler scheduler = new HashedWheelScheduler(new TimeHolder(1, TimeUnit.MILLISECONDS), 8)) {
+            final AtomicInteger runs = new AtomicInteger();
+            final Debouncer debouncer = new Debouncer(scheduler, 1, runs::incrementAndGet,
+                    new TimeHolder(20, TimeUnit.MILLISECONDS), new TimeHolder(50, TimeUnit.MILLISECONDS));
+            final long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(200);
+            while (System.nanoTime() < end) {
+                debouncer.trigger();
+                Thread.sleep(1);
+            }
+
+            assertTrue(runs.get() >= 2, "runs: " + runs.get());
+            debouncer.cancel();
+        }
+    }
+
+    @Test
+    public void trigger_during_cancel_is_not_lost() throws Exception {
+        try (final HashedWheelScheduler wheel = new HashedWheelScheduler(new TimeHolder(1, TimeUnit.MILLISECONDS), 8)) {
+            final GatedScheduler scheduler = new GatedScheduler(wheel);
+            final Semaphore runs = new Semaphore(0);
+            final Debouncer debouncer = new Debouncer(scheduler, 1, runs::release,
+                    new TimeHolder(100, TimeUnit.MILLISECONDS));
+            debouncer.trigger();
+
+            final Thread canceller = new Thread(() -> {
+                debouncer.cancel();
+                scheduler.reached.release();
+            });
+            scheduler.gated = canceller;
+            canceller.start();
+            // The cancellation is either held at the scheduler or done
+            scheduler.reached.acquire();
+            debouncer.trigger();
+            scheduler.gate.countDown();
+            canceller.join();
+
+            assertTrue(runs.tryAcquire(1, TimeUnit.SECONDS));
+            assertFalse(debouncer.isPending());
+            debouncer.trigger();
+            assertTrue(runs.tryAcquire(1, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void stale_arming_does_not_replace_newer_run() throws Exception {
+        try (final HashedWheelScheduler wheel = new HashedWheelScheduler(new TimeHolder(1, TimeUnit.MILLISECONDS), 8)) {
+            final GatedScheduler scheduler = new GatedScheduler(wheel);
+            final Semaphore runs = new Semaphore(0);
+            final Debouncer debouncer = new Debouncer(scheduler, 1, runs::release,
+                    new TimeHolder(10, TimeUnit.MILLISECONDS));
+
+            final Thread stale = new Thread(debouncer::trigger);
+            scheduler.gated = stale;
+            stale.start();
+            // The first arming is about to schedule its run; cancel it and arm again meanwhile
+            scheduler.reached.acquire();
+            debouncer.cancel();
+            debouncer.trigger();
+            scheduler.gate.countDown();
+            stale.join();
+
+            assertTrue(runs.tryAcquire(1, TimeUnit.SECONDS));
+            Thread.sleep(30);
+            assertEquals(0, runs.availablePermits());
+            assertFalse(debouncer.isPending());
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.akazukin.util.time.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.akazukin.util.time.TimeHolder;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ExecutorsSchedulerTest {
+    @Test
+    public void cancel_all_tasks_stops_running_loops() throws Exception {
+        try (final ExecutorsScheduler scheduler = new ExecutorsScheduler(2)) {
+            final AtomicInteger count = new AtomicInteger();
+            final CountDownLatch started = new CountDownLatch(1);
+            scheduler.scheduleLoopingTask(1, () -> {
+                count.incrementAndGet();
+                started.countDown();
+            }, new TimeHolder(0, TimeUnit.MILLISECONDS), new TimeHolder(5, TimeUnit.MILLISECONDS));
+            scheduler.scheduleTask(2, count::incrementAndGet, new TimeHolder(50, TimeUnit.MILLISECONDS));
+
+            assertTrue(started.await(1, TimeUnit.SECONDS));
+            scheduler.cancelAllTasks();
+            final int cancelledAt = count.get();
+            Thread.sleep(100);
+
+            assertEquals(cancelledAt, count.get());
+            assertFalse(scheduler.isScheduled(1));
+            assertFalse(scheduler.isScheduled(2));
+        }
+    }
+
+    @Test
+    public void task_queued_in_a_lane_is_still_scheduled() throws Exception {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        try (final PriorityLanes lanes = new PriorityLanes(0, 0, 1);
+             final ExecutorsScheduler scheduler = new ExecutorsScheduler(2)) {
+            scheduler.setLanes(lanes);
+            final CountDownLatch started = new CountDownLatch(1);
+            scheduler.scheduleTask(1, () -> {
+                started.countDown();
+                try {
+                    blocked.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, new TimeHolder(0, TimeUnit.MILLISECONDS), TaskPriority.LOW, true);
+            assertTrue(started.await(1, TimeUnit.SECONDS));
+
+            final CountDownLatch ran = new CountDownLatch(1);
+            scheduler.scheduleTask(2, ran::countDown, new TimeHolder(0, TimeUnit.MILLISECONDS), TaskPriority.LOW, true);
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+            while (lanes.getQueuedCount(TaskPriority.LOW) == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(1, lanes.getQueuedCount(TaskPriority.LOW));
+            assertTrue(scheduler.isScheduled(2));
+
+            blocked.countDown();
+            assertTrue(ran.await(1, TimeUnit.SECONDS));
+        } finally {
+            blocked.countDown();
+        }
+    }
+}
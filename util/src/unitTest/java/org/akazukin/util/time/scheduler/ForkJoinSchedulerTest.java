@@ -0,0 +1,77 @@
+package org.akazukin.util.time.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.akazukin.util.time.TimeHolder;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ForkJoinSchedulerTest {
+    @Test
+    public void fired_tasks_run_in_the_pool() throws Exception {
+        try (final ForkJoinScheduler scheduler = new ForkJoinScheduler()) {
+            final CompletableFuture<Thread> runner = new CompletableFuture<>();
+            scheduler.scheduleTask(1, () -> runner.complete(Thread.currentThread()),
+                    new TimeHolder(5, TimeUnit.MILLISECONDS));
+
+            assertTrue(runner.get(1, TimeUnit.SECONDS) instanceof ForkJoinWorkerThread);
+            Thread.sleep(20);
+            assertFalse(scheduler.isScheduled(1));
+        }
+    }
+
+    @Test
+    public void looping_runs_do_not_overlap() throws Exception {
+        try (final ForkJoinScheduler scheduler = new ForkJoinScheduler()) {
+            final AtomicInteger running = new AtomicInteger();
+            final AtomicInteger maxRunning = new AtomicInteger();
+            final AtomicInteger runs = new AtomicInteger();
+            scheduler.scheduleLoopingTask(1, () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(10);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                runs.incrementAndGet();
+            }, new TimeHolder(0, TimeUnit.MILLISECONDS), new TimeHolder(1, TimeUnit.MILLISECONDS));
+
+            Thread.sleep(100);
+            scheduler.cancelTask(1);
+            assertTrue(runs.get() > 1);
+            assertEquals(1, maxRunning.get());
+        }
+    }
+
+    @Test
+    public void task_rejected_by_shut_down_pool_is_unregistered() throws Exception {
+        final ForkJoinPool pool = new ForkJoinPool(1);
+        pool.shutdown();
+        try (final ForkJoinScheduler scheduler = new ForkJoinScheduler(pool)) {
+            final CountDownLatch rejected = new CountDownLatch(2);
+            scheduler.setThrowableConsumer(t -> {
+                if (t instanceof RejectedExecutionException) {
+                    rejected.countDown();
+                }
+            });
+            scheduler.scheduleTask(1, () -> {
+            }, new TimeHolder(1, TimeUnit.MILLISECONDS));
+            scheduler.scheduleLoopingTask(2, () -> {
+            }, new TimeHolder(1, TimeUnit.MILLISECONDS), new TimeHolder(5, TimeUnit.MILLISECONDS));
+
+            assertTrue(rejected.await(1, TimeUnit.SECONDS));
+            assertFalse(scheduler.isScheduled(1));
+            assertFalse(scheduler.isScheduled(2));
+            assertEquals(0, scheduler.getAllScheduledTasks().length);
+        }
+    }
+}
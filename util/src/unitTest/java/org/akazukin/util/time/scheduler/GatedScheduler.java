@@ -0,0 +1,104 @@
+package org.akazukin.util.time.scheduler;
+
+import org.akazukin.util.time.TimeHolder;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * Delegates to another scheduler, holding the calls of one thread that change the scheduled tasks until released,
+ * so that tests can run other calls in between.
+ */
+final class GatedScheduler implements IScheduler {
+    final IScheduler delegate;
+    /**
+     * Released whenever the gated thread reaches the gate.
+     */
+    final Semaphore reached = new Semaphore(0);
+    final CountDownLatch gate = new CountDownLatch(1);
+    volatile Thread gated;
+
+    GatedScheduler(final IScheduler delegate) {
+        this.delegate = delegate;
+    }
+
+    private void pass() {
+        if (Thread.currentThread() != this.gated) {
+            return;
+        }
+        this.reached.release();
+        try {
+            this.gate.await();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void setThrowableConsumer(@Nullable final Consumer<Throwable> throwableConsumer) {
+        this.delegate.setThrowableConsumer(throwableConsumer);
+    }
+
+    @Override
+    public boolean isScheduled(final long id) {
+        return this.delegate.isScheduled(id);
+    }
+
+    @Override
+    public void cancelAllTasks() {
+        this.pass();
+        this.delegate.cancelAllTasks();
+    }
+
+    @Override
+    public boolean scheduleTask(final long id, @NotNull final Runnable task, final TimeHolder delay) {
+        this.pass();
+        return this.delegate.scheduleTask(id, task, delay);
+    }
+
+    @Override
+    public boolean scheduleTask(final long id, @NotNull final Runnable task, final TimeHolder delay,
+                                final boolean override) {
+        this.pass();
+        return this.delegate.scheduleTask(id, task, delay, override);
+    }
+
+    @Override
+    public void cancelTask(final long id) {
+        this.pass();
+        this.delegate.cancelTask(id);
+    }
+
+    @Override
+    public int cancelTasks(@NotNull final long[] ids) {
+        this.pass();
+        return this.delegate.cancelTasks(ids);
+    }
+
+    @Override
+    public boolean scheduleLoopingTask(final long id, @NotNull final Runnable task, final TimeHolder delay,
+                                       final TimeHolder interval) {
+        this.pass();
+        return this.delegate.scheduleLoopingTask(id, task, delay, interval);
+    }
+
+    @Override
+    public boolean scheduleLoopingTask(final long id, @NotNull final Runnable task, final TimeHolder delay,
+                                       final TimeHolder interval, final boolean override) {
+        this.pass();
+        return this.delegate.scheduleLoopingTask(id, task, delay, interval, override);
+    }
+
+    @Override
+    public void close() {
+        this.delegate.close();
+    }
+
+    @Override
+    public long[] getAllScheduledTasks() {
+        return this.delegate.getAllScheduledTasks();
+    }
+}
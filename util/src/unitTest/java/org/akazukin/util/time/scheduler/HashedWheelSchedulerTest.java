@@ -0,0 +1,104 @@
+package org.akazukin.util.time.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.akazukin.util.time.TimeHolder;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class HashedWheelSchedulerTest {
+    private static final TimeHolder TICK = new TimeHolder(1, TimeUnit.MILLISECONDS);
+
+    @Test
+    public void one_shot_task_fires_once() throws Exception {
+        try (final HashedWheelScheduler scheduler = new HashedWheelScheduler(TICK, 8)) {
+            final CountDownLatch latch = new CountDownLatch(1);
+            assertTrue(scheduler.scheduleTask(1, latch::countDown, new TimeHolder(20, TimeUnit.MILLISECONDS)));
+            assertTrue(scheduler.isScheduled(1));
+
+            assertTrue(latch.await(1, TimeUnit.SECONDS));
+            Thread.sleep(20);
+            assertFalse(scheduler.isScheduled(1));
+        }
+    }
+
+    @Test
+    public void delay_longer_than_one_revolution() throws Exception {
+        try (final HashedWheelScheduler scheduler = new HashedWheelScheduler(TICK, 4)) {
+            final long start = System.nanoTime();
+            final CountDownLatch latch = new CountDownLatch(1);
+            scheduler.scheduleTask(1, latch::countDown, new TimeHolder(50, TimeUnit.MILLISECONDS));
+
+            assertTrue(latch.await(1, TimeUnit.SECONDS));
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        }
+    }
+
+    @Test
+    public void cancelled_task_does_not_fire() throws Exception {
+        try (final HashedWheelScheduler scheduler = new HashedWheelScheduler(TICK, 8)) {
+            final AtomicInteger count = new AtomicInteger();
+            scheduler.scheduleTask(1, count::incrementAndGet, new TimeHolder(50, TimeUnit.MILLISECONDS));
+            scheduler.cancelTask(1);
+
+            Thread.sleep(100);
+            assertEquals(0, count.get());
+            assertThrows(IllegalArgumentException.class, () -> scheduler.cancelTask(1));
+        }
+    }
+
+    @Test
+    public void looping_task_repeats_until_cancelled() throws Exception {
+        try (final HashedWheelScheduler scheduler = new HashedWheelScheduler(TICK, 8)) {
+            final CountDownLatch latch = new CountDownLatch(3);
+            scheduler.scheduleLoopingTask(1, latch::countDown,
+                    new TimeHolder(0, TimeUnit.MILLISECONDS), new TimeHolder(10, TimeUnit.MILLISECONDS));
+
+            assertTrue(latch.await(1, TimeUnit.SECONDS));
+            scheduler.cancelTask(1);
+            assertFalse(scheduler.isScheduled(1));
+        }
+    }
+
+    @Test
+    public void schedule_after_close_is_rejected() {
+        final HashedWheelScheduler scheduler = new HashedWheelScheduler(TICK, 8);
+        scheduler.close();
+
+        assertThrows(IllegalStateException.class,
+                () -> scheduler.scheduleTask(1, () -> {
+                }, new TimeHolder(1, TimeUnit.MILLISECONDS)));
+    }
+
+    @Test
+    public void task_rejected_by_executor_is_unregistered() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+        try (final HashedWheelScheduler scheduler = new HashedWheelScheduler(TICK, 8,
+                Executors.defaultThreadFactory(), executor)) {
+            final CountDownLatch rejected = new CountDownLatch(2);
+            scheduler.setThrowableConsumer(t -> {
+                if (t instanceof RejectedExecutionException) {
+                    rejected.countDown();
+                }
+            });
+            scheduler.scheduleTask(1, () -> {
+            }, new TimeHolder(1, TimeUnit.MILLISECONDS));
+            scheduler.scheduleLoopingTask(2, () -> {
+            }, new TimeHolder(1, TimeUnit.MILLISECONDS), new TimeHolder(5, TimeUnit.MILLISECONDS));
+
+            assertTrue(rejected.await(1, TimeUnit.SECONDS));
+            assertFalse(scheduler.isScheduled(1));
+            assertFalse(scheduler.isScheduled(2));
+            assertEquals(0, scheduler.getAllScheduledTasks().length);
+        }
+    }
+}
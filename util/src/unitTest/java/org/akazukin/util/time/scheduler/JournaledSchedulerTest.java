@@ -0,0 +1,129 @@
+package org.akazukin.util.time.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.akazukin.util.time.TimeHolder;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+public class JournaledSchedulerTest {
+    private static final TimeHolder TICK = new TimeHolder(1, TimeUnit.MILLISECONDS);
+
+    @Test
+    public void pending_tasks_are_recovered_after_restart() throws Exception {
+        final Path journal = Files.createTempFile("scheduler", ".journal");
+        final CountDownLatch fired = new CountDownLatch(2);
+        final Function<String, Runnable> resolver = key -> key.startsWith("job-") ? fired::countDown : null;
+        try {
+            try (final JournaledScheduler scheduler = new JournaledScheduler(new HashedWheelScheduler(TICK, 8), journal, resolver)) {
+                assertTrue(scheduler.scheduleTask(1, "job-1", new TimeHolder(50, TimeUnit.MILLISECONDS)));
+                assertTrue(scheduler.scheduleTask(2, "job-2", new TimeHolder(1, TimeUnit.HOURS)));
+                assertTrue(scheduler.scheduleTask(3, "job-3", new TimeHolder(1, TimeUnit.HOURS)));
+                scheduler.cancelTask(3);
+                assertFalse(scheduler.isJournaled(3));
+            }
+
+            try (final JournaledScheduler scheduler = new JournaledScheduler(new HashedWheelScheduler(TICK, 8), journal, resolver)) {
+                assertEquals(2, scheduler.recover());
+                assertTrue(scheduler.isScheduled(2));
+                scheduler.scheduleTask(2, "job-2", new TimeHolder(0, TimeUnit.MILLISECONDS));
+
+                assertTrue(fired.await(1, TimeUnit.SECONDS));
+                Thread.sleep(20);
+                assertFalse(scheduler.isJournaled(1));
+                assertFalse(scheduler.isJournaled(2));
+            }
+        } finally {
+            Files.deleteIfExists(journal);
+        }
+    }
+
+    @Test
+    public void compaction_keeps_only_live_tasks() throws Exception {
+        final Path journal = Files.createTempFile("scheduler", ".journal");
+        final Function<String, Runnable> resolver = key -> () -> {
+        };
+        try {
+            try (final JournaledScheduler scheduler = new JournaledScheduler(new HashedWheelScheduler(TICK, 8), journal, resolver)) {
+                for (int i = 0; i < 100_000; i++) {
+                    scheduler.scheduleTask(i % 10, "job-" + i, new TimeHolder(1, TimeUnit.HOURS));
+                }
+            }
+            assertTrue(Files.size(journal) < 1 << 22);
+
+            try (final JournaledScheduler scheduler = new JournaledScheduler(new HashedWheelScheduler(TICK, 8), journal, resolver)) {
+                assertEquals(10, scheduler.recover());
+            }
+        } finally {
+            Files.deleteIfExists(journal);
+        }
+    }
+
+    @Test
+    public void concurrent_schedules_of_one_id_leave_no_stale_record() throws Exception {
+        final Path journal = Files.createTempFile("scheduler", ".journal");
+        final CountDownLatch fired = new CountDownLatch(1);
+        final Function<String, Runnable> resolver = key -> fired::countDown;
+        final GatedScheduler gated = new GatedScheduler(new HashedWheelScheduler(TICK, 8));
+        try (final JournaledScheduler scheduler = new JournaledScheduler(gated, journal, resolver)) {
+            // The first call has journaled its record and is held before reaching the delegate
+            final Thread first = new Thread(() ->
+                    scheduler.scheduleTask(1, "first", new TimeHolder(0, TimeUnit.MILLISECONDS)));
+            gated.gated = first;
+            first.start();
+            gated.reached.acquire();
+
+            final Thread second = new Thread(() ->
+                    scheduler.scheduleTask(1, "second", new TimeHolder(0, TimeUnit.MILLISECONDS)));
+            second.start();
+            second.join(50);
+            gated.gate.countDown();
+            first.join();
+            second.join();
+
+            assertTrue(fired.await(1, TimeUnit.SECONDS));
+            for (int i = 0; i < 100 && scheduler.isJournaled(1); i++) {
+                Thread.sleep(10);
+            }
+            assertFalse(scheduler.isJournaled(1));
+        } finally {
+            Files.deleteIfExists(journal);
+        }
+    }
+
+    @Test
+    public void schedules_wait_for_cancel_all_to_clear_the_journal() throws Exception {
+        final Path journal = Files.createTempFile("scheduler", ".journal");
+        final Function<String, Runnable> resolver = key -> () -> {
+        };
+        final GatedScheduler gated = new GatedScheduler(new HashedWheelScheduler(TICK, 8));
+        try (final JournaledScheduler scheduler = new JournaledScheduler(gated, journal, resolver)) {
+            // The cancellation is held before reaching the delegate, so the journal is not cleared yet
+            final Thread canceller = new Thread(scheduler::cancelAllTasks);
+            gated.gated = canceller;
+            canceller.start();
+            gated.reached.acquire();
+
+            final Thread scheduling = new Thread(() ->
+                    scheduler.scheduleTask(1, "task", new TimeHolder(1, TimeUnit.MINUTES)));
+            scheduling.start();
+            scheduling.join(50);
+            assertTrue(scheduling.isAlive());
+
+            gated.gate.countDown();
+            canceller.join();
+            scheduling.join();
+
+            assertTrue(scheduler.isScheduled(1));
+            assertTrue(scheduler.isJournaled(1));
+        } finally {
+            Files.deleteIfExists(journal);
+        }
+    }
+}
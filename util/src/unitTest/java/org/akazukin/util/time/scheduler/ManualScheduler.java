@@ -0,0 +1,111 @@
+package org.akazukin.util.time.scheduler;
+
+import org.akazukin.util.time.ManualNanoClock;
+import org.akazukin.util.time.TimeHolder;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A scheduler that only runs tasks when told to, on the calling thread, timed by a {@link ManualNanoClock}.
+ */
+final class ManualScheduler extends AScheduler<ManualScheduler.Timeout> {
+    final ManualNanoClock clock;
+    private final PriorityQueue<Timeout> queue = new PriorityQueue<>(
+            Comparator.comparingLong((Timeout t) -> t.deadline).thenComparingLong(t -> t.sequence));
+    private long sequence;
+    /**
+     * Whether {@link #scheduleInternal} rejects new tasks.
+     */
+    volatile boolean rejecting;
+    /**
+     * The number of handles cancelled while holding the monitor of a registry segment.
+     */
+    volatile int cancelledUnderMonitor;
+    /**
+     * The resolution of the timer in nanoseconds, or {@code 0} to fire tasks exactly at their deadline.
+     * Like a timer wheel, a coarse timer fires a task at the end of the tick containing its deadline.
+     */
+    volatile long resolution;
+
+    ManualScheduler(final ManualNanoClock clock) {
+        super(clock);
+        this.clock = clock;
+    }
+
+    /**
+     * Advances the clock, running every task that is due on the way in deadline order.
+     * The clock is moved to the deadline of each task before it runs, and tasks may advance it further.
+     *
+     * @param nanos the time to advance by, in nanoseconds
+     */
+    void advance(final long nanos) {
+        final long target = this.clock.nanoTime() + nanos;
+        while (true) {
+            final Timeout timeout;
+            synchronized (this) {
+                timeout = this.queue.peek();
+                if (timeout == null || timeout.deadline > target) {
+                    break;
+                }
+                this.queue.poll();
+            }
+            if (timeout.cancelled) {
+                continue;
+            }
+            final long now = this.clock.nanoTime();
+            if (timeout.deadline > now) {
+                this.clock.advance(timeout.deadline - now);
+            }
+            timeout.task.run();
+        }
+        final long now = this.clock.nanoTime();
+        if (target > now) {
+            this.clock.advance(target - now);
+        }
+    }
+
+    @Override
+    protected synchronized Timeout scheduleInternal(final Runnable task, final TimeHolder delay) {
+        if (this.rejecting) {
+            throw new IllegalStateException("rejecting");
+        }
+        long deadline = this.clock.nanoTime() + Math.max(0, delay.toConvert(TimeUnit.NANOSECONDS));
+        if (this.resolution > 0) {
+            deadline = (deadline / this.resolution + 1) * this.resolution;
+        }
+        final Timeout timeout = new Timeout(task, deadline, this.sequence++);
+        this.queue.add(timeout);
+        return timeout;
+    }
+
+    @Override
+    protected void cancelInternal(@NotNull final Timeout task) {
+        for (int i = 0; i < this.tasks.segmentCount(); i++) {
+            if (Thread.holdsLock(this.tasks.segmentAt(i))) {
+                this.cancelledUnderMonitor++;
+            }
+        }
+        task.cancelled = true;
+    }
+
+    @Override
+    public void close() {
+        this.cancelAllTasks();
+    }
+
+    static final class Timeout {
+        final Runnable task;
+        final long deadline;
+        final long sequence;
+        volatile boolean cancelled;
+
+        Timeout(final Runnable task, final long deadline, final long sequence) {
+            this.task = task;
+            this.deadline = deadline;
+            this.sequence = sequence;
+        }
+    }
+}
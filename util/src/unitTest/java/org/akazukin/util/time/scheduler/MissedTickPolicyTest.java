@@ -0,0 +1,124 @@
+package org.akazukin.util.time.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.akazukin.util.time.ManualNanoClock;
+import org.akazukin.util.time.TimeHolder;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MissedTickPolicyTest {
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void missed_ticks_follow_policy() {
+        // The first run takes 100ms of a 40ms interval
+        assertArrayEquals(new long[]{0, 100, 100, 120, 160}, runStartsMillis(MissedTickPolicy.FIXED_RATE));
+        assertArrayEquals(new long[]{0, 140}, runStartsMillis(MissedTickPolicy.FIXED_DELAY));
+        assertArrayEquals(new long[]{0, 120, 160}, runStartsMillis(MissedTickPolicy.SKIP_TO_NEXT));
+        assertArrayEquals(new long[]{0, 100, 120, 160}, runStartsMillis(MissedTickPolicy.COALESCE));
+    }
+
+    private static long[] runStartsMillis(final MissedTickPolicy policy) {
+        final ManualNanoClock clock = new ManualNanoClock();
+        try (final ManualScheduler scheduler = new ManualScheduler(clock)) {
+            final List<Long> starts = new ArrayList<>();
+            scheduler.scheduleLoopingTask(1, () -> {
+                starts.add(clock.nanoTime() / MS);
+                if (starts.size() == 1) {
+                    clock.advance(100 * MS);
+                }
+            }, new TimeHolder(0, TimeUnit.MILLISECONDS), new TimeHolder(40, TimeUnit.MILLISECONDS), policy, false);
+
+            scheduler.advance(170 * MS);
+            return starts.stream().mapToLong(Long::longValue).toArray();
+        }
+    }
+
+    @Test
+    public void skip_to_next_runs_on_a_coarse_timer() {
+        // Every fire of a timer as coarse as the interval is a full interval late
+        assertArrayEquals(new long[]{10, 30, 50, 70, 90}, coarseRunStartsMillis(10));
+        // The first fire of a coarser timer is two intervals late, but the tick planned by skipping it runs
+        assertArrayEquals(new long[]{40, 60, 80, 100}, coarseRunStartsMillis(20));
+    }
+
+    private static long[] coarseRunStartsMillis(final long resolutionMillis) {
+        final ManualNanoClock clock = new ManualNanoClock();
+        try (final ManualScheduler scheduler = new ManualScheduler(clock)) {
+            scheduler.resolution = resolutionMillis * MS;
+            final List<Long> starts = new ArrayList<>();
+            scheduler.scheduleLoopingTask(1, () -> starts.add(clock.nanoTime() / MS),
+                    new TimeHolder(0, TimeUnit.MILLISECONDS), new TimeHolder(10, TimeUnit.MILLISECONDS),
+                    MissedTickPolicy.SKIP_TO_NEXT, false);
+
+            scheduler.advance(100 * MS);
+            return starts.stream().mapToLong(Long::longValue).toArray();
+        }
+    }
+
+    @Test
+    public void fixed_rate_lateness_is_measured_against_the_grid() {
+        final ManualNanoClock clock = new ManualNanoClock();
+        try (final ManualScheduler scheduler = new ManualScheduler(clock)) {
+            scheduler.setMetricsEnabled(true);
+            final AtomicInteger runs = new AtomicInteger();
+            scheduler.scheduleLoopingTask(1, () -> {
+                if (runs.getAndIncrement() == 0) {
+                    clock.advance(100 * MS);
+                }
+            }, new TimeHolder(0, TimeUnit.MILLISECONDS), new TimeHolder(40, TimeUnit.MILLISECONDS), false);
+
+            scheduler.advance(170 * MS);
+            final SchedulerMetrics.Snapshot metrics = scheduler.getMetrics(1);
+            assertNotNull(metrics);
+            assertEquals(5, metrics.getRunCount());
+            // The catch-up runs planned at 40ms and 80ms started at 100ms
+            assertEquals(80 * MS, metrics.getLateness().getSum());
+            assertEquals(60 * MS, metrics.getLateness().getMax());
+        }
+    }
+
+    @Test
+    public void fixed_rate_runs_never_overlap() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (final HashedWheelScheduler wheel = new HashedWheelScheduler(new TimeHolder(1, TimeUnit.MILLISECONDS), 8,
+                Executors.defaultThreadFactory(), executor);
+             final ForkJoinScheduler forkJoin = new ForkJoinScheduler()) {
+            assertEquals(1, maxConcurrentRuns(wheel));
+            assertEquals(1, maxConcurrentRuns(forkJoin));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static int maxConcurrentRuns(final IScheduler scheduler) throws InterruptedException {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger max = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(5);
+        // Every run takes four intervals
+        scheduler.scheduleLoopingTask(1, () -> {
+            max.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            latch.countDown();
+        }, new TimeHolder(0, TimeUnit.MILLISECONDS), new TimeHolder(5, TimeUnit.MILLISECONDS));
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        scheduler.cancelTask(1);
+        return max.get();
+    }
+}
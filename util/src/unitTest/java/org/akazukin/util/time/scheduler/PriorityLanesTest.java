@@ -0,0 +1,159 @@
+package org.akazukin.util.time.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.akazukin.util.time.TimeHolder;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PriorityLanesTest {
+    @Test
+    public void queued_tasks_run_in_priority_order() throws Exception {
+        try (final PriorityLanes lanes = new PriorityLanes(0, 0, 1)) {
+            final CountDownLatch blocked = new CountDownLatch(1);
+            final CountDownLatch done = new CountDownLatch(3);
+            final List<TaskPriority> order = new CopyOnWriteArrayList<>();
+            lanes.execute(TaskPriority.LOW, () -> {
+                try {
+                    blocked.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            for (final TaskPriority priority : new TaskPriority[]{TaskPriority.LOW, TaskPriority.NORMAL, TaskPriority.HIGH}) {
+                lanes.execute(priority, () -> {
+                    order.add(priority);
+                    done.countDown();
+                });
+            }
+
+            blocked.countDown();
+            assertTrue(done.await(1, TimeUnit.SECONDS));
+            assertEquals(Arrays.asList(TaskPriority.HIGH, TaskPriority.NORMAL, TaskPriority.LOW), order);
+        }
+    }
+
+    @Test
+    public void low_priority_work_does_not_starve_high_lane() throws Exception {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        try (final PriorityLanes lanes = new PriorityLanes(1, 0, 1);
+             final HashedWheelScheduler scheduler = new HashedWheelScheduler(new TimeHolder(1, TimeUnit.MILLISECONDS), 8)) {
+            scheduler.setLanes(lanes);
+            scheduler.scheduleTask(1, () -> {
+                try {
+                    blocked.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, new TimeHolder(0, TimeUnit.MILLISECONDS), TaskPriority.LOW, true);
+
+            final CountDownLatch high = new CountDownLatch(1);
+            scheduler.scheduleTask(2, high::countDown, new TimeHolder(5, TimeUnit.MILLISECONDS), TaskPriority.HIGH, true);
+            assertTrue(high.await(1, TimeUnit.SECONDS));
+            assertTrue(scheduler.isScheduled(1));
+        } finally {
+            blocked.countDown();
+        }
+    }
+
+    @Test
+    public void interrupt_left_by_a_task_does_not_retire_the_worker() throws Exception {
+        try (final PriorityLanes lanes = new PriorityLanes(0, 0, 1)) {
+            final CountDownLatch first = new CountDownLatch(1);
+            lanes.execute(TaskPriority.LOW, () -> {
+                Thread.currentThread().interrupt();
+                first.countDown();
+            });
+            assertTrue(first.await(1, TimeUnit.SECONDS));
+            // Let the worker go idle before the next task arrives
+            Thread.sleep(20);
+
+            final CountDownLatch second = new CountDownLatch(1);
+            final AtomicBoolean interrupted = new AtomicBoolean(true);
+            lanes.execute(TaskPriority.LOW, () -> {
+                interrupted.set(Thread.currentThread().isInterrupted());
+                second.countDown();
+            });
+            assertTrue(second.await(1, TimeUnit.SECONDS));
+            assertFalse(interrupted.get());
+            assertEquals(0, lanes.getQueuedCount(TaskPriority.LOW));
+        }
+    }
+
+    @Test
+    public void worker_failing_with_an_error_is_replaced() throws Exception {
+        final CountDownLatch died = new CountDownLatch(1);
+        final ThreadFactory threadFactory = runnable -> {
+            final Thread thread = new Thread(runnable);
+            thread.setUncaughtExceptionHandler((t, e) -> died.countDown());
+            return thread;
+        };
+        try (final PriorityLanes lanes = new PriorityLanes(0, 0, 1, threadFactory)) {
+            lanes.execute(TaskPriority.LOW, () -> {
+                throw new AssertionError("fail");
+            });
+            assertTrue(died.await(1, TimeUnit.SECONDS));
+
+            final CountDownLatch next = new CountDownLatch(1);
+            lanes.execute(TaskPriority.LOW, next::countDown);
+            assertTrue(next.await(1, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void tasks_cancelled_while_queued_in_a_lane_do_not_run() throws Exception {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        try (final PriorityLanes lanes = new PriorityLanes(0, 0, 1);
+             final HashedWheelScheduler scheduler = new HashedWheelScheduler(new TimeHolder(1, TimeUnit.MILLISECONDS), 8)) {
+            scheduler.setLanes(lanes);
+            final CountDownLatch started = new CountDownLatch(1);
+            scheduler.scheduleTask(1, () -> {
+                started.countDown();
+                try {
+                    blocked.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, new TimeHolder(0, TimeUnit.MILLISECONDS), TaskPriority.LOW, true);
+            assertTrue(started.await(1, TimeUnit.SECONDS));
+
+            final AtomicInteger ran = new AtomicInteger();
+            scheduler.scheduleTask(2, ran::incrementAndGet, new TimeHolder(0, TimeUnit.MILLISECONDS), TaskPriority.LOW, true);
+            scheduler.scheduleLoopingTask(3, ran::incrementAndGet, new TimeHolder(0, TimeUnit.MILLISECONDS),
+                    new TimeHolder(5, TimeUnit.MILLISECONDS), MissedTickPolicy.FIXED_RATE, TaskPriority.LOW, true);
+            scheduler.scheduleTask(4, ran::incrementAndGet, new TimeHolder(0, TimeUnit.MILLISECONDS), TaskPriority.LOW, true);
+            scheduler.scheduleTask(5, ran::incrementAndGet, new TimeHolder(0, TimeUnit.MILLISECONDS), TaskPriority.LOW, true);
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+            while (lanes.getQueuedCount(TaskPriority.LOW) < 4 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(4, lanes.getQueuedCount(TaskPriority.LOW));
+
+            scheduler.cancelTask(2);
+            assertEquals(1, scheduler.cancelTasks(new long[]{3}));
+            scheduler.scheduleTask(4, () -> {
+            }, new TimeHolder(1, TimeUnit.SECONDS), TaskPriority.LOW, true);
+            scheduler.cancelAllTasks();
+            blocked.countDown();
+
+            final long drained = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+            while (lanes.getQueuedCount(TaskPriority.LOW) > 0 && System.nanoTime() < drained) {
+                Thread.sleep(1);
+            }
+            Thread.sleep(20);
+            assertEquals(0, ran.get());
+            assertEquals(0, scheduler.getAllScheduledTasks().length);
+        } finally {
+            blocked.countDown();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.akazukin.util.time.scheduler;
+
+import org.akazukin.util.time.TimeHolder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs a test of a feature implemented by {@link AScheduler} against each scheduler that uses the system clock.
+ */
+final class SchedulerBackends {
+    static final TimeHolder TICK = new TimeHolder(1, TimeUnit.MILLISECONDS);
+
+    private SchedulerBackends() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Runs the test against a new hashed wheel, executor and timer scheduler in turn, closing each afterward,
+     * and against a virtual thread scheduler when the running JVM supports one.
+     * A failed assertion names the scheduler it failed on.
+     *
+     * @param test the test to run
+     */
+    static void forEach(final SchedulerTest test) throws Exception {
+        forEach(() -> new HashedWheelScheduler(TICK, 8), test);
+        forEach(() -> new ExecutorsScheduler(2), test);
+        forEach(() -> new TimerScheduler(true), test);
+        if (VirtualThreadScheduler.isSupported()) {
+            forEach(VirtualThreadScheduler::new, test);
+        }
+    }
+
+    private static void forEach(final Supplier<AScheduler<?>> factory, final SchedulerTest test)
+            throws Exception {
+        try (final AScheduler<?> scheduler = factory.get()) {
+            try {
+                test.run(scheduler);
+            } catch (final AssertionError e) {
+                throw new AssertionError(scheduler.getClass().getSimpleName() + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface SchedulerTest {
+        void run(AScheduler<?> scheduler) throws Exception;
+    }
+}
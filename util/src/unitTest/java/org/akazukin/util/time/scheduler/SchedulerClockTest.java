@@ -0,0 +1,64 @@
+package org.akazukin.util.time.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.akazukin.util.time.ManualNanoClock;
+import org.akazukin.util.time.TimeHolder;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class SchedulerClockTest {
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void runs_are_timed_with_injected_clock() throws Exception {
+        final ManualNanoClock executorsClock = new ManualNanoClock();
+        try (final ExecutorsScheduler scheduler = new ExecutorsScheduler(2, Executors.defaultThreadFactory(),
+                executorsClock)) {
+            assertRunTimedWith(scheduler, executorsClock);
+        }
+        final ManualNanoClock timerClock = new ManualNanoClock();
+        try (final TimerScheduler scheduler = new TimerScheduler(true, timerClock)) {
+            assertRunTimedWith(scheduler, timerClock);
+        }
+    }
+
+    private static void assertRunTimedWith(final AScheduler<?> scheduler, final ManualNanoClock clock)
+            throws InterruptedException {
+        scheduler.setMetricsEnabled(true);
+        final CountDownLatch latch = new CountDownLatch(1);
+        // The backend keeps the delay on the system clock, while the planned time is read from the injected one
+        scheduler.scheduleTask(1, () -> {
+            clock.advance(7 * MS);
+            latch.countDown();
+        }, new TimeHolder(100, TimeUnit.MILLISECONDS));
+        clock.advance(140 * MS);
+
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Thread.sleep(20);
+        final SchedulerMetrics.Snapshot metrics = scheduler.getMetrics();
+        assertEquals(1, metrics.getRunCount());
+        assertEquals(40 * MS, metrics.getLateness().getSum());
+        assertEquals(7 * MS, metrics.getRunTime().getSum());
+    }
+
+    @Test
+    public void wheel_follows_injected_clock() throws Exception {
+        final ManualNanoClock clock = new ManualNanoClock();
+        try (final HashedWheelScheduler scheduler = new HashedWheelScheduler(SchedulerBackends.TICK, 8,
+                Executors.defaultThreadFactory(), null, clock)) {
+            final CountDownLatch latch = new CountDownLatch(1);
+            scheduler.scheduleTask(1, latch::countDown, new TimeHolder(1, TimeUnit.SECONDS));
+            assertFalse(latch.await(50, TimeUnit.MILLISECONDS));
+
+            // The task fires once the tick containing its deadline has ended
+            clock.advance(new TimeHolder(1, TimeUnit.SECONDS));
+            clock.advance(SchedulerBackends.TICK);
+            assertTrue(latch.await(1, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.akazukin.util.time.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.akazukin.util.time.TimeHolder;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SchedulerMetricsTest {
+    @Test
+    public void metrics_record_runs_and_throwables() throws Exception {
+        SchedulerBackends.forEach(scheduler -> {
+            assertNull(scheduler.getMetrics());
+            scheduler.setMetricsEnabled(true);
+
+            final AtomicInteger runs = new AtomicInteger();
+            scheduler.scheduleLoopingTask(1, () -> {
+                if (runs.incrementAndGet() == 2) {
+                    throw new IllegalStateException("fail");
+                }
+            }, new TimeHolder(0, TimeUnit.MILLISECONDS), new TimeHolder(5, TimeUnit.MILLISECONDS));
+            while (runs.get() < 4) {
+                Thread.sleep(5);
+            }
+            scheduler.cancelTask(1);
+            Thread.sleep(20);
+
+            final SchedulerMetrics.Snapshot metrics = scheduler.getMetrics();
+            assertNotNull(metrics);
+            assertEquals(runs.get(), metrics.getRunCount());
+            assertEquals(1, metrics.getThrowableCount());
+            assertEquals(0, metrics.getPendingCount());
+            assertNull(scheduler.getMetrics(1));
+        });
+    }
+
+    @Test
+    public void only_tasks_scheduled_while_enabled_are_recorded() throws Exception {
+        SchedulerBackends.forEach(scheduler -> {
+            final CountDownLatch latch = new CountDownLatch(2);
+            scheduler.scheduleTask(1, latch::countDown, new TimeHolder(20, TimeUnit.MILLISECONDS));
+            scheduler.setMetricsEnabled(true);
+            scheduler.scheduleTask(2, latch::countDown, new TimeHolder(20, TimeUnit.MILLISECONDS));
+            assertNull(scheduler.getMetrics(1));
+            assertNotNull(scheduler.getMetrics(2));
+            assertEquals(2, scheduler.getMetrics().getPendingCount());
+
+            assertTrue(latch.await(1, TimeUnit.SECONDS));
+            Thread.sleep(20);
+            assertEquals(1, scheduler.getMetrics().getRunCount());
+            // The metrics of a one-time task are dropped once it has run
+            assertNull(scheduler.getMetrics(2));
+
+            scheduler.setMetricsEnabled(false);
+            assertNull(scheduler.getMetrics());
+            scheduler.setMetricsEnabled(true);
+            assertEquals(0, scheduler.getMetrics().getRunCount());
+        });
+    }
+}
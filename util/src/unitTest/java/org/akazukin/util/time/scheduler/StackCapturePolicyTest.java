@@ -0,0 +1,96 @@
+package org.akazukin.util.time.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.akazukin.util.time.TimeHolder;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+public class StackCapturePolicyTest {
+    /**
+     * Schedules a failing task under the policy and returns what the task threw.
+     */
+    private static Throwable failureOf(final AScheduler<?> scheduler, final StackCapturePolicy policy)
+            throws Exception {
+        final CompletableFuture<Throwable> failure = new CompletableFuture<>();
+        scheduler.setThrowableConsumer(failure::complete);
+        scheduler.setStackCapturePolicy(policy);
+        scheduler.scheduleTask(1, () -> {
+            throw new IllegalArgumentException("fail");
+        }, new TimeHolder(1, TimeUnit.MILLISECONDS));
+        return failure.get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void caller_class_is_attached_to_task_failure() throws Exception {
+        SchedulerBackends.forEach(scheduler -> {
+            final Throwable cause = failureOf(scheduler, StackCapturePolicy.CALLER_CLASS).getCause();
+            assertNotNull(cause);
+            assertEquals("Task scheduled from " + StackCapturePolicyTest.class.getName(), cause.getMessage());
+            assertEquals(0, cause.getStackTrace().length);
+        });
+    }
+
+    @Test
+    public void full_stack_trace_is_attached_to_task_failure() throws Exception {
+        SchedulerBackends.forEach(scheduler -> {
+            final Throwable cause = failureOf(scheduler, StackCapturePolicy.ALWAYS).getCause();
+            assertNotNull(cause);
+            assertTrue(Arrays.stream(cause.getStackTrace())
+                    .anyMatch(e -> e.getClassName().equals(StackCapturePolicyTest.class.getName())));
+        });
+    }
+
+    @Test
+    public void nothing_is_attached_without_capture() throws Exception {
+        SchedulerBackends.forEach(scheduler -> {
+            assertNull(failureOf(scheduler, StackCapturePolicy.NONE).getCause());
+            // One in 2^31 calls is sampled
+            assertNull(failureOf(scheduler, StackCapturePolicy.sampled(Integer.MAX_VALUE)).getCause());
+        });
+    }
+
+    @Test
+    public void sampled_policy_captures_one_in_every_calls() {
+        final StackCapturePolicy policy = StackCapturePolicy.sampled(4);
+        int captured = 0;
+        for (int i = 0; i < 40_000; i++) {
+            final Throwable trace = policy.capture();
+            if (trace != null) {
+                assertEquals(IllegalStateException.class, trace.getClass());
+                captured++;
+            }
+        }
+        // More than 11 standard deviations either side of the expected 10000
+        assertTrue(captured > 9_000 && captured < 11_000, "captured " + captured);
+    }
+
+    @Test
+    public void sampling_interval_must_be_positive() {
+        assertSame(StackCapturePolicy.ALWAYS, StackCapturePolicy.sampled(1));
+        assertThrows(IllegalArgumentException.class, () -> StackCapturePolicy.sampled(0));
+        assertThrows(IllegalArgumentException.class, () -> StackCapturePolicy.sampled(-1));
+        assertEquals("StackCapturePolicy[SAMPLED, every=8]", StackCapturePolicy.sampled(8).toString());
+        assertEquals("StackCapturePolicy[NONE]", StackCapturePolicy.NONE.toString());
+    }
+
+    @Test
+    public void caller_class_locator_skips_scheduler_frames() {
+        // The unit tests run against the Java 8 implementation, which reads the class context of a security manager
+        assertSame(StackCapturePolicyTest.class, CallerClassLocator.find());
+        assertTrue(CallerClassLocator.isInternal(CallerClassLocator.class));
+        assertTrue(CallerClassLocator.isInternal(StackCapturePolicy.class));
+        assertTrue(CallerClassLocator.isInternal(AScheduler.class));
+        assertTrue(CallerClassLocator.isInternal(HashedWheelScheduler.class));
+        assertTrue(CallerClassLocator.isInternal(IScheduler.class));
+        assertFalse(CallerClassLocator.isInternal(StackCapturePolicyTest.class));
+    }
+}
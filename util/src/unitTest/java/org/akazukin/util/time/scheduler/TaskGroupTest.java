@@ -0,0 +1,67 @@
+package org.akazukin.util.time.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.akazukin.util.time.TimeHolder;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TaskGroupTest {
+    @Test
+    public void cancelled_group_stops_its_tasks() throws Exception {
+        SchedulerBackends.forEach(scheduler -> {
+            final AtomicInteger count = new AtomicInteger();
+            for (int i = 0; i < 100; i++) {
+                scheduler.scheduleTask(i, count::incrementAndGet, new TimeHolder(30, TimeUnit.MILLISECONDS), "player", true);
+            }
+            scheduler.scheduleLoopingTask(100, count::incrementAndGet, new TimeHolder(30, TimeUnit.MILLISECONDS),
+                    new TimeHolder(5, TimeUnit.MILLISECONDS), "player", true);
+            final CountDownLatch other = new CountDownLatch(1);
+            scheduler.scheduleTask(200, other::countDown, new TimeHolder(30, TimeUnit.MILLISECONDS), "other", true);
+
+            assertTrue(scheduler.cancelGroup("player"));
+            assertFalse(scheduler.cancelGroup("player"));
+            assertFalse(scheduler.isScheduled(0));
+            assertFalse(scheduler.isScheduled(100));
+            assertTrue(scheduler.isScheduled(200));
+            assertEquals(1, scheduler.getAllScheduledTasks().length);
+
+            // The id of a cancelled task is free again
+            final CountDownLatch rescheduled = new CountDownLatch(1);
+            assertTrue(scheduler.scheduleTask(0, rescheduled::countDown, new TimeHolder(30, TimeUnit.MILLISECONDS),
+                    "player", false));
+
+            assertTrue(other.await(1, TimeUnit.SECONDS));
+            assertTrue(rescheduled.await(1, TimeUnit.SECONDS));
+            Thread.sleep(50);
+            assertEquals(0, count.get());
+            assertEquals(0, scheduler.getAllScheduledTasks().length);
+        });
+    }
+
+    @Test
+    public void cancelled_group_stops_a_running_loop() throws Exception {
+        SchedulerBackends.forEach(scheduler -> {
+            final AtomicInteger count = new AtomicInteger();
+            final CountDownLatch started = new CountDownLatch(3);
+            scheduler.scheduleLoopingTask(1, () -> {
+                count.incrementAndGet();
+                started.countDown();
+            }, new TimeHolder(0, TimeUnit.MILLISECONDS), new TimeHolder(5, TimeUnit.MILLISECONDS), "player", false);
+
+            assertTrue(started.await(1, TimeUnit.SECONDS));
+            assertTrue(scheduler.cancelGroup("player"));
+            // A run that already started may still finish
+            Thread.sleep(20);
+            final int cancelledAt = count.get();
+            Thread.sleep(50);
+
+            assertEquals(cancelledAt, count.get());
+            assertFalse(scheduler.isScheduled(1));
+        });
+    }
+}
@@ -0,0 +1,109 @@
+package org.akazukin.util.time.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+public class TaskJournalTest {
+    private static TaskJournal.Record record(final long id, final String key) {
+        return new TaskJournal.Record(id, 0, key, TaskJournal.encodeKey(key));
+    }
+
+    @Test
+    public void appends_made_during_compaction_are_kept() throws Exception {
+        final Path path = Files.createTempFile("scheduler", ".journal");
+        try {
+            try (final TaskJournal journal = new TaskJournal(path)) {
+                for (int i = 0; i < 10_000; i++) {
+                    journal.schedule(record(i, "v1-" + i));
+                }
+
+                final CompletableFuture<Void> compactions = CompletableFuture.runAsync(() -> {
+                    try {
+                        for (int i = 0; i < 20; i++) {
+                            journal.compact();
+                        }
+                    } catch (final IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+                for (int i = 0; i < 10_000; i++) {
+                    if (i % 2 == 0) {
+                        assertTrue(journal.cancel(i));
+                    } else {
+                        journal.schedule(record(i, "v2-" + i));
+                    }
+                    journal.schedule(record(10_000 + i, "new-" + i));
+                }
+                compactions.get();
+            }
+
+            try (final TaskJournal journal = new TaskJournal(path)) {
+                assertEquals(15_000, journal.records().size());
+                for (int i = 0; i < 10_000; i++) {
+                    final TaskJournal.Record record = journal.get(i);
+                    if (i % 2 == 0) {
+                        assertNull(record);
+                    } else {
+                        assertNotNull(record);
+                        assertEquals("v2-" + i, record.key);
+                    }
+                    assertEquals("new-" + i, journal.get(10_000 + i).key);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    public void failed_compaction_is_not_retried_until_the_log_grows() throws Exception {
+        final Path path = Files.createTempFile("scheduler", ".journal");
+        // A non-empty directory in the way of the new log makes compaction fail
+        final Path blocker = path.resolveSibling(path.getFileName() + ".compact");
+        Files.createDirectory(blocker);
+        final Path inside = Files.createFile(blocker.resolve("file"));
+        final char[] padding = new char[1000];
+        Arrays.fill(padding, 'x');
+        final String key = new String(padding);
+        try {
+            try (final TaskJournal journal = new TaskJournal(path)) {
+                int i = 0;
+                while (!journal.shouldCompact()) {
+                    journal.schedule(record(1, key + i++));
+                }
+
+                assertThrows(IOException.class, journal::compact);
+                assertFalse(journal.shouldCompact());
+                journal.schedule(record(2, "after"));
+
+                while (!journal.shouldCompact()) {
+                    journal.schedule(record(1, key + i++));
+                }
+                Files.delete(inside);
+                Files.delete(blocker);
+                journal.compact();
+                assertFalse(journal.shouldCompact());
+            }
+
+            try (final TaskJournal journal = new TaskJournal(path)) {
+                assertEquals(2, journal.records().size());
+                assertEquals("after", journal.get(2).key);
+            }
+        } finally {
+            Files.deleteIfExists(inside);
+            Files.deleteIfExists(blocker);
+            Files.deleteIfExists(path);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package org.akazukin.util.time.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.akazukin.util.time.ManualNanoClock;
+import org.akazukin.util.time.TimeHolder;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TaskRegistryTest {
+    /**
+     * Returns ids that share a bucket in a segment table of the specified capacity.
+     */
+    private static long[] collidingIds(final int count, final int capacity) {
+        final long[] ids = new long[count];
+        final int bucket = TaskRegistry.hash(0) & capacity - 1;
+        int found = 0;
+        for (long id = 0; found < count; id++) {
+            if ((TaskRegistry.hash(id) & capacity - 1) == bucket) {
+                ids[found++] = id;
+            }
+        }
+        return ids;
+    }
+
+    @Test
+    public void colliding_ids_are_chained_in_one_bucket() {
+        final TaskRegistry.Segment<String> segment = new TaskRegistry.Segment<>(0);
+        final int capacity = segment.table.length;
+        // Stays below the load factor, so the chain is not split by a resize
+        final long[] ids = collidingIds(3, capacity);
+        final List<TaskRegistry.Entry<String>> entries = Arrays.asList(
+                new TaskRegistry.Entry<>(ids[0]), new TaskRegistry.Entry<>(ids[1]), new TaskRegistry.Entry<>(ids[2]));
+        for (final TaskRegistry.Entry<String> entry : entries) {
+            segment.add(entry);
+        }
+        assertEquals(capacity, segment.table.length);
+        assertEquals(3, segment.size);
+        for (int i = 0; i < 3; i++) {
+            assertSame(entries.get(i), segment.get(ids[i]));
+        }
+
+        // Unlink the middle, the head and the tail of the chain
+        assertSame(entries.get(1), segment.remove(ids[1]));
+        assertNull(segment.get(ids[1]));
+        assertSame(entries.get(0), segment.get(ids[0]));
+        assertSame(entries.get(2), segment.get(ids[2]));
+
+        assertSame(entries.get(2), segment.remove(ids[2]));
+        assertSame(entries.get(0), segment.get(ids[0]));
+        assertSame(entries.get(0), segment.remove(ids[0]));
+        assertNull(segment.remove(ids[0]));
+        assertEquals(0, segment.size);
+    }
+
+    @Test
+    public void resize_keeps_every_entry() {
+        final TaskRegistry.Segment<String> segment = new TaskRegistry.Segment<>(0);
+        final int initialCapacity = segment.table.length;
+        final long[] ids = collidingIds(1_000, initialCapacity);
+        for (final long id : ids) {
+            segment.add(new TaskRegistry.Entry<>(id));
+        }
+
+        assertEquals(1_000, segment.size);
+        assertTrue(segment.table.length > initialCapacity);
+        assertTrue(segment.size <= segment.table.length - (segment.table.length >>> 2));
+        for (final long id : ids) {
+            assertEquals(id, segment.get(id).id);
+        }
+        final long[] copied = new long[ids.length];
+        assertEquals(ids.length, segment.copyIds(copied, 0));
+        Arrays.sort(copied);
+        assertArrayEquals(ids, copied);
+    }
+
+    @Test
+    public void ids_of_one_segment_spread_over_its_buckets() {
+        final TaskRegistry<String> registry = new TaskRegistry<>();
+        final TaskRegistry.Segment<String> segment = registry.segmentAt(0);
+        int added = 0;
+        for (long id = 0; added < 1_000; id++) {
+            if (registry.segment(id) == segment) {
+                synchronized (segment) {
+                    segment.add(new TaskRegistry.Entry<>(id));
+                }
+                added++;
+            }
+        }
+
+        int used = 0;
+        int longest = 0;
+        for (final TaskRegistry.Entry<String> head : segment.table) {
+            int length = 0;
+            for (TaskRegistry.Entry<String> e = head; e != null; e = e.next) {
+                length++;
+            }
+            if (length > 0) {
+                used++;
+            }
+            longest = Math.max(longest, length);
+        }
+        // About 39% of the buckets are used at this load, against at most 25% if they shared the segment bits
+        assertTrue(used > segment.table.length * 3 / 10, used + " of " + segment.table.length);
+        assertTrue(longest <= 8, "longest chain " + longest);
+    }
+
+    @Test
+    public void removing_an_entry_spares_its_replacement() {
+        final TaskRegistry<String> registry = new TaskRegistry<>();
+        final TaskRegistry.Entry<String> replaced = new TaskRegistry.Entry<>(7);
+        final TaskRegistry.Segment<String> segment = registry.segment(7);
+        synchronized (segment) {
+            segment.add(replaced);
+            segment.remove(replaced);
+        }
+        final TaskRegistry.Entry<String> replacement = new TaskRegistry.Entry<>(7);
+        synchronized (segment) {
+            segment.add(replacement);
+        }
+
+        // A completing task only removes its own registration
+        assertFalse(registry.remove(replaced));
+        assertSame(replacement, registry.get(7));
+        // Removing by id removes whichever entry holds the id
+        assertSame(replacement, registry.remove(7));
+        assertNull(registry.get(7));
+        assertFalse(registry.remove(replacement));
+        assertNull(registry.remove(7));
+    }
+
+    @Test
+    public void ids_are_grouped_by_segment_in_order() {
+        final TaskRegistry<String> registry = new TaskRegistry<>();
+        final long[] ids = new Random(42).longs(500).toArray();
+        final int[] bounds = new int[registry.segmentCount() + 1];
+        final int[] order = registry.groupBySegment(ids, bounds);
+
+        assertEquals(0, bounds[0]);
+        assertEquals(ids.length, bounds[registry.segmentCount()]);
+        final boolean[] seen = new boolean[ids.length];
+        for (int s = 0; s < registry.segmentCount(); s++) {
+            for (int k = bounds[s]; k < bounds[s + 1]; k++) {
+                assertSame(registry.segmentAt(s), registry.segment(ids[order[k]]));
+                if (k > bounds[s]) {
+                    // Stable within the segment
+                    assertTrue(order[k - 1] < order[k]);
+                }
+                assertFalse(seen[order[k]]);
+                seen[order[k]] = true;
+            }
+        }
+    }
+
+    @Test
+    public void clear_removes_every_entry() {
+        final TaskRegistry<String> registry = new TaskRegistry<>();
+        for (long id = 0; id < 100; id++) {
+            final TaskRegistry.Segment<String> segment = registry.segment(id);
+            synchronized (segment) {
+                segment.add(new TaskRegistry.Entry<>(id));
+            }
+        }
+        assertEquals(100, registry.size());
+
+        final List<TaskRegistry.Entry<String>> removed = registry.clear();
+        assertEquals(100, removed.size());
+        for (final TaskRegistry.Entry<String> entry : removed) {
+            assertNull(entry.next);
+        }
+        assertEquals(0, registry.size());
+        assertEquals(0, registry.ids().length);
+        assertNull(registry.get(5));
+
+        final TaskRegistry.Segment<String> segment = registry.segment(5);
+        synchronized (segment) {
+            segment.add(new TaskRegistry.Entry<>(5));
+        }
+        assertArrayEquals(new long[]{5}, registry.ids());
+    }
+
+    @Test
+    public void replaced_tasks_are_cancelled_outside_the_segment_monitor() {
+        final TimeHolder delay = new TimeHolder(10, TimeUnit.MILLISECONDS);
+        try (final ManualScheduler scheduler = new ManualScheduler(new ManualNanoClock())) {
+            final AtomicInteger runs = new AtomicInteger();
+            final long[] ids = {1, 2, 3};
+            assertEquals(3, scheduler.scheduleTasks(ids, new Runnable[]{runs::incrementAndGet, runs::incrementAndGet,
+                    runs::incrementAndGet}, delay, false));
+            assertTrue(scheduler.scheduleTask(1, runs::incrementAndGet, delay, true));
+            assertTrue(scheduler.scheduleLoopingTask(2, runs::incrementAndGet, delay, delay, true));
+            assertEquals(1, scheduler.scheduleTasks(new long[]{3}, new Runnable[]{runs::incrementAndGet}, delay, true));
+            assertEquals(0, scheduler.cancelledUnderMonitor);
+
+            scheduler.advance(TimeUnit.MILLISECONDS.toNanos(10));
+            // Only the replacements ran
+            assertEquals(3, runs.get());
+        }
+    }
+
+    @Test
+    public void rejected_replacement_keeps_the_replaced_task() {
+        final TimeHolder delay = new TimeHolder(10, TimeUnit.MILLISECONDS);
+        try (final ManualScheduler scheduler = new ManualScheduler(new ManualNanoClock())) {
+            final AtomicInteger runs = new AtomicInteger();
+            assertTrue(scheduler.scheduleTask(1, runs::incrementAndGet, delay, false));
+
+            scheduler.rejecting = true;
+            assertThrows(IllegalStateException.class, () -> scheduler.scheduleTask(1, () -> {
+            }, delay, true));
+            scheduler.rejecting = false;
+
+            assertTrue(scheduler.isScheduled(1));
+            scheduler.advance(TimeUnit.MILLISECONDS.toNanos(10));
+            assertEquals(1, runs.get());
+        }
+    }
+}
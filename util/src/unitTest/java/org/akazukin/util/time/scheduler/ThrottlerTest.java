@@ -0,0 +1,63 @@
+package org.akazukin.util.time.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.akazukin.util.time.TimeHolder;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ThrottlerTest {
+    @Test
+    public void runs_at_most_once_per_interval() throws Exception {
+        try (final HashedWheelScheduler scheduler = new HashedWheelScheduler(new TimeHolder(1, TimeUnit.MILLISECONDS), 8)) {
+            final AtomicInteger runs = new AtomicInteger();
+            final Throttler throttler = new Throttler(scheduler, 1, runs::incrementAndGet,
+                    new TimeHolder(50, TimeUnit.MILLISECONDS));
+            final long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(220);
+            while (System.nanoTime() < end) {
+                throttler.trigger();
+            }
+            Thread.sleep(100);
+
+            // A leading run, then one per interval, plus the trailing run of the last triggers
+            final int count = runs.get();
+            assertTrue(count >= 4 && count <= 6, "runs: " + count);
+            Thread.sleep(100);
+            assertEquals(count, runs.get());
+        }
+    }
+
+    @Test
+    public void trigger_during_cancel_is_not_lost() throws Exception {
+        try (final HashedWheelScheduler wheel = new HashedWheelScheduler(new TimeHolder(1, TimeUnit.MILLISECONDS), 8)) {
+            final GatedScheduler scheduler = new GatedScheduler(wheel);
+            final Semaphore runs = new Semaphore(0);
+            final Throttler throttler = new Throttler(scheduler, 1, runs::release,
+                    new TimeHolder(20, TimeUnit.MILLISECONDS));
+            throttler.trigger();
+            assertTrue(runs.tryAcquire(1, TimeUnit.SECONDS));
+            // Within the interval, so the next run is scheduled rather than run right away
+            throttler.trigger();
+
+            final Thread canceller = new Thread(() -> {
+                throttler.cancel();
+                scheduler.reached.release();
+            });
+            scheduler.gated = canceller;
+            canceller.start();
+            // The cancellation is either held at the scheduler or done
+            scheduler.reached.acquire();
+            throttler.trigger();
+            scheduler.gate.countDown();
+            canceller.join();
+
+            assertTrue(runs.tryAcquire(1, TimeUnit.SECONDS));
+            Thread.sleep(30);
+            throttler.trigger();
+            assertTrue(runs.tryAcquire(1, TimeUnit.SECONDS));
+        }
+    }
+}
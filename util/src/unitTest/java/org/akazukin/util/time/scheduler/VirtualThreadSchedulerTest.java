@@ -0,0 +1,90 @@
+package org.akazukin.util.time.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import org.akazukin.util.exception.UnsupportedLegacyOperationException;
+import org.akazukin.util.time.NanoClock;
+import org.akazukin.util.time.TimeHolder;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class VirtualThreadSchedulerTest {
+    @Test
+    public void construction_fails_before_java_21() {
+        assumeFalse(VirtualThreadScheduler.isSupported());
+
+        assertThrows(UnsupportedLegacyOperationException.class, VirtualThreadScheduler::new);
+        assertThrows(UnsupportedLegacyOperationException.class, () -> new VirtualThreadScheduler(NanoClock.SYSTEM));
+    }
+
+    @Test
+    public void fired_tasks_run_on_virtual_threads() throws Exception {
+        assumeTrue(VirtualThreadScheduler.isSupported());
+
+        try (final VirtualThreadScheduler scheduler = new VirtualThreadScheduler()) {
+            final CompletableFuture<Thread> runner = new CompletableFuture<>();
+            scheduler.scheduleTask(1, () -> runner.complete(Thread.currentThread()),
+                    new TimeHolder(5, TimeUnit.MILLISECONDS));
+
+            assertTrue(runner.get(1, TimeUnit.SECONDS).getName().startsWith("VirtualThreadScheduler-task-"));
+            Thread.sleep(20);
+            assertFalse(scheduler.isScheduled(1));
+        }
+    }
+
+    @Test
+    public void cancelling_interrupts_a_running_task() throws Exception {
+        assumeTrue(VirtualThreadScheduler.isSupported());
+
+        try (final VirtualThreadScheduler scheduler = new VirtualThreadScheduler()) {
+            final CountDownLatch started = new CountDownLatch(1);
+            final CountDownLatch interrupted = new CountDownLatch(1);
+            scheduler.scheduleTask(1, () -> {
+                started.countDown();
+                try {
+                    Thread.sleep(TimeUnit.SECONDS.toMillis(10));
+                } catch (final InterruptedException e) {
+                    interrupted.countDown();
+                }
+            }, new TimeHolder(0, TimeUnit.MILLISECONDS));
+
+            assertTrue(started.await(1, TimeUnit.SECONDS));
+            scheduler.cancelTask(1);
+            assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void looping_runs_do_not_overlap() throws Exception {
+        assumeTrue(VirtualThreadScheduler.isSupported());
+
+        try (final VirtualThreadScheduler scheduler = new VirtualThreadScheduler()) {
+            final AtomicInteger running = new AtomicInteger();
+            final AtomicInteger maxRunning = new AtomicInteger();
+            final AtomicInteger runs = new AtomicInteger();
+            scheduler.scheduleLoopingTask(1, () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(10);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                runs.incrementAndGet();
+            }, new TimeHolder(0, TimeUnit.MILLISECONDS), new TimeHolder(1, TimeUnit.MILLISECONDS));
+
+            Thread.sleep(100);
+            scheduler.cancelTask(1);
+            assertTrue(runs.get() > 1);
+            assertEquals(1, maxRunning.get());
+        }
+    }
+}